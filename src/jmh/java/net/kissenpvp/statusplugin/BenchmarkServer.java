@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2023 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+
+package net.kissenpvp.statusplugin;
+
+import lombok.Getter;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * A {@link FakeServer} running the plug-in with a fixed number of online players, shared by the benchmarks.
+ *
+ * <p>The plug-in runs with its default configuration, except for the audit
+ * log, which is disabled: its writer thread cannot keep up with the rate at
+ * which benchmarks change statuses, so its queue would grow for as long as a
+ * benchmark runs. Every player starts with one of {@link #STATUSES}, and all
+ * tab updates caused by the set-up have been sent once the server is created.
+ *
+ * <p>Calls into the Bukkit API go through the reflective stand-ins of the fake
+ * server, which adds a small, constant cost to every operation compared to a
+ * real server. Results are meant to be compared against each other, not taken
+ * as the absolute cost on a production server.
+ */
+final class BenchmarkServer implements AutoCloseable {
+
+    /**
+     * Statuses in the formats players typically use, with legacy colours and a hex colour.
+     */
+    static final String[] STATUSES = {"&aBuilding", "&cAFK", "&6Streaming", "&#FF8800Mining", "&eIn a match", "&bExploring", "&dTrading", "&7Away"};
+
+    private final Path dataFolder;
+    @Getter
+    private final FakeServer server;
+    @Getter
+    private final StatusPlugin plugin;
+    @Getter
+    private final FakePlayer[] players;
+
+    /**
+     * Constructor for creating a new {@code BenchmarkServer}.
+     *
+     * <p>This must be called from the thread running the benchmark, which becomes the main thread.
+     *
+     * @param players the number of players who join the server.
+     * @param config  configuration values replacing the defaults of the benchmark server. Must be non-{@code null}.
+     * @throws IOException if the data folder could not be created.
+     */
+    BenchmarkServer(int players, @NotNull Map<String, ?> config) throws IOException {
+        this.dataFolder = Files.createTempDirectory("status-benchmark");
+        Map<String, Object> values = new HashMap<>();
+        values.put("audit.enabled", false);
+        values.putAll(config);
+
+        this.server = new FakeServer();
+        this.plugin = server.enable(dataFolder, values);
+        this.players = new FakePlayer[players];
+        for (int i = 0; i < players; i++) {
+            this.players[i] = server.join("Player" + i);
+            plugin.setStatus(this.players[i].getPlayer(), STATUSES[i % STATUSES.length]);
+        }
+        awaitTab();
+    }
+
+    /**
+     * Runs ticks until all pending tab updates have been sent.
+     */
+    void awaitTab() {
+        server.tickUntil(() -> plugin.getTabStats().pending() == 0, Duration.ofMinutes(1));
+    }
+
+    /**
+     * @return the number of tab updates sent to all players so far.
+     */
+    long countTabUpdates() {
+        long updates = 0;
+        for (FakePlayer player : players) {
+            updates += player.getListNameUpdates();
+        }
+        return updates;
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.close();
+        try (Stream<Path> files = Files.walk(dataFolder)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2023 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+
+package net.kissenpvp.statusplugin;
+
+import net.kissenpvp.statusplugin.event.SetStatusEvent;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how the cost of changing a status grows with the number of
+ * listeners registered for the {@link SetStatusEvent}.
+ *
+ * <p>The listeners only count the events they receive, so the difference
+ * between the parameters is the cost of creating and dispatching the event.
+ * Without any listener, the event is neither created nor fired at all.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventDispatchBenchmark {
+
+    private static final int PLAYERS = 500;
+
+    @Param({"0", "1", "10", "100"})
+    private int listeners;
+
+    private BenchmarkServer benchmarkServer;
+    private StatusPlugin plugin;
+    private Player[] online;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        benchmarkServer = new BenchmarkServer(PLAYERS, Map.of());
+        plugin = benchmarkServer.getPlugin();
+        for (int i = 0; i < listeners; i++) {
+            benchmarkServer.getServer().getPluginManager().registerEvents(new CountingListener(), plugin);
+        }
+        online = new Player[PLAYERS];
+        for (int i = 0; i < PLAYERS; i++) {
+            online[i] = benchmarkServer.getPlayers()[i].getPlayer();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        benchmarkServer.close();
+    }
+
+    /**
+     * Changes the status of a player, firing the event to all listeners.
+     */
+    @Benchmark
+    public String setStatus() {
+        Player player = online[next];
+        next = (next + 1) % PLAYERS;
+        return plugin.setStatus(player, BenchmarkServer.STATUSES[next % BenchmarkServer.STATUSES.length]);
+    }
+
+    /**
+     * A listener which counts the events it receives without changing them.
+     */
+    public static class CountingListener implements Listener {
+
+        private long received;
+
+        @EventHandler
+        public void onSetStatusEvent(SetStatusEvent setStatusEvent) {
+            received++;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2023 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+
+package net.kissenpvp.statusplugin;
+
+import org.bukkit.entity.Player;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput and allocation of the basic status operations
+ * depending on the number of online players.
+ *
+ * <p>Each invocation operates on the next player in turn, so the caches see
+ * the access pattern of many players instead of a single hot one. Run with
+ * {@code -prof gc}, as the {@code jmh} task does, to see the bytes allocated
+ * per operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StatusOperationsBenchmark {
+
+    @Param({"50", "500", "5000"})
+    private int players;
+
+    private BenchmarkServer benchmarkServer;
+    private StatusPlugin plugin;
+    private Player[] online;
+    private int next;
+    private int round;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        benchmarkServer = new BenchmarkServer(players, Map.of());
+        plugin = benchmarkServer.getPlugin();
+        online = new Player[players];
+        for (int i = 0; i < players; i++) {
+            online[i] = benchmarkServer.getPlayers()[i].getPlayer();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        benchmarkServer.close();
+    }
+
+    /**
+     * Changes the status of a player, including the event, the store hand-off and marking the tab entry dirty.
+     */
+    @Benchmark
+    public String set() {
+        return plugin.setStatus(nextPlayer(), nextStatus());
+    }
+
+    /**
+     * Reads the status of a player through the allocation-free lookup.
+     */
+    @Benchmark
+    public String peek() {
+        return plugin.peekStatus(nextPlayer());
+    }
+
+    /**
+     * Reads the status of a player through the lookup wrapping it into an {@link Optional}.
+     */
+    @Benchmark
+    public Optional<String> get() {
+        return plugin.getStatus(nextPlayer());
+    }
+
+    /**
+     * Changes and clears the status of a player, as a player only has a status to clear after setting one.
+     */
+    @Benchmark
+    public void setAndClear() {
+        Player player = nextPlayer();
+        plugin.setStatus(player, nextStatus());
+        plugin.clearStatus(player);
+    }
+
+    /**
+     * Changes the status of a player and runs the tick sending their tab update.
+     */
+    @Benchmark
+    public String setAndRefresh() {
+        String status = plugin.setStatus(nextPlayer(), nextStatus());
+        benchmarkServer.getServer().tick();
+        return status;
+    }
+
+    private Player nextPlayer() {
+        Player player = online[next];
+        if (++next == online.length) {
+            next = 0;
+            round++;
+        }
+        return player;
+    }
+
+    private String nextStatus() {
+        return BenchmarkServer.STATUSES[(next + round) % BenchmarkServer.STATUSES.length];
+    }
+}
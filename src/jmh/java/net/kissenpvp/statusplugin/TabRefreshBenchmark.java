@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2023 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+
+package net.kissenpvp.statusplugin;
+
+import org.bukkit.entity.Player;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the fan-out of tab updates when every online player changes their status at once.
+ *
+ * <p>An operation changes the status of every player and runs ticks until all
+ * tab updates have been sent, which takes at least {@code players / maxUpdatesPerTick}
+ * ticks. The number of tab updates sent is reported as the secondary result
+ * {@code tabUpdates}, so coalesced or skipped updates show up as fewer updates
+ * per operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TabRefreshBenchmark {
+
+    @Param({"50", "500", "5000"})
+    private int players;
+
+    @Param({"50", "1000"})
+    private int maxUpdatesPerTick;
+
+    private BenchmarkServer benchmarkServer;
+    private StatusPlugin plugin;
+    private Player[] online;
+    private int round;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        benchmarkServer = new BenchmarkServer(players, Map.of("tab.max-updates-per-tick", maxUpdatesPerTick));
+        plugin = benchmarkServer.getPlugin();
+        online = new Player[players];
+        for (int i = 0; i < players; i++) {
+            online[i] = benchmarkServer.getPlayers()[i].getPlayer();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        benchmarkServer.close();
+    }
+
+    /**
+     * Changes the status of every player and sends all resulting tab updates.
+     */
+    @Benchmark
+    public void changeAll(TabUpdates tabUpdates) {
+        round++;
+        long before = benchmarkServer.countTabUpdates();
+        for (int i = 0; i < online.length; i++) {
+            plugin.setStatus(online[i], BenchmarkServer.STATUSES[(i + round) % BenchmarkServer.STATUSES.length]);
+        }
+        benchmarkServer.awaitTab();
+        tabUpdates.tabUpdates += benchmarkServer.countTabUpdates() - before;
+    }
+
+    /**
+     * Requests a tab refresh of every player without any change, all of which are skipped.
+     */
+    @Benchmark
+    public void refreshUnchanged(TabUpdates tabUpdates) {
+        long before = benchmarkServer.countTabUpdates();
+        for (Player player : online) {
+            plugin.refreshTab(player);
+        }
+        benchmarkServer.awaitTab();
+        tabUpdates.tabUpdates += benchmarkServer.countTabUpdates() - before;
+    }
+
+    /**
+     * The number of tab updates sent, reported next to the primary result.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class TabUpdates {
+
+        public long tabUpdates;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            tabUpdates = 0;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2023 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+package net.kissenpvp.statusplugin.filter;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures what checking one status against the blocklist costs.
+ *
+ * <p>{@code automaton} walks the status once through the compiled
+ * {@link BlocklistAutomaton}, so its cost should depend on the length of the
+ * status only. {@code contains} checks every term on its own, as a filter
+ * without an automaton would, and grows with the number of terms. A clean
+ * status is the common case and the worst case for both, since no term ends
+ * the search early.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BlocklistAutomatonBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    private int terms;
+
+    @Param({"Building a castle at spawn", "Streaming on Twitch, come and watch the event tonight", "Trading diamonds for a zzqblocked sword"})
+    private String status;
+
+    private BlocklistAutomaton automaton;
+    private String[] blocklist;
+    private String lowered;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        List<String> list = new ArrayList<>(terms);
+        while (list.size() < terms - 1) {
+            char[] term = new char[6 + random.nextInt(5)];
+            for (int i = 0; i < term.length; i++) {
+                term[i] = (char) ('a' + random.nextInt(26));
+            }
+            list.add(new String(term));
+        }
+        list.add("zzqblocked"); // last, so that checking each term finds it only after all others
+        automaton = BlocklistAutomaton.compile(list);
+        blocklist = list.toArray(String[]::new);
+        lowered = status.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Checks the status with the compiled automaton, including its normalisation.
+     */
+    @Benchmark
+    public String automaton() {
+        return automaton.find(status);
+    }
+
+    /**
+     * Checks the status for every term one after another, without any normalisation.
+     */
+    @Benchmark
+    public String contains() {
+        for (String term : blocklist) {
+            if (lowered.contains(term)) {
+                return term;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2023 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+
+package net.kissenpvp.statusplugin.format;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares compiling statuses through the {@link StatusFormatter} with the
+ * plain string replacement the plug-in used before.
+ *
+ * <p>The replacement only translates legacy codes, so it is the lower bound of
+ * what formatting a status can cost. {@code compileCached} shows the cost of
+ * the common case, in which many players set the same status, and
+ * {@code compileUncached} the cost of parsing a status seen for the first time.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StatusFormatterBenchmark {
+
+    @Param({"&aBuilding &la castle", "&#ff8800Streaming &7on Twitch", "<gradient:#ff0000:#00ff00:#0000ff>Rainbow &lRoad</gradient>"})
+    private String status;
+
+    private StatusFormatter cached;
+    private StatusFormatter uncached;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        cached = new StatusFormatter(32, 1024);
+        uncached = new StatusFormatter(32, 0);
+        cached.compile(status);
+    }
+
+    /**
+     * Translates the legacy codes by replacing every ampersand, as the plug-in did before the formatter.
+     */
+    @Benchmark
+    public String replace() {
+        return status.replace('&', '§').strip() + " ";
+    }
+
+    /**
+     * Looks up the compiled form of a status which has been compiled before.
+     */
+    @Benchmark
+    public String compileCached() {
+        return cached.compile(status).rendered();
+    }
+
+    /**
+     * Parses the status as if it had never been seen before.
+     */
+    @Benchmark
+    public String compileUncached() {
+        return uncached.compile(status).rendered();
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (C) 2023 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+package net.kissenpvp.statusplugin;
+
+import net.kissenpvp.statusplugin.audit.AuditLog;
+import net.kissenpvp.statusplugin.cache.StatusCache;
+import net.kissenpvp.statusplugin.sync.StatusSync;
+import net.kissenpvp.statusplugin.tab.TabRefreshScheduler;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.util.UUID;
+import java.util.logging.Level;
+
+/**
+ * Ties the statuses held in memory to the lifecycle of the players.
+ *
+ * <p>While a player is logging in, their status is loaded from the status store
+ * on the asynchronous login thread, so joining does not require any I/O on the
+ * main thread. Once the player has joined, the status is moved into the online
+ * part of the {@link StatusCache} and displayed in the player tab. When the
+ * player leaves, the status is released from the online part again and the
+ * rendered player list name is dropped, so the memory held by the plug-in only
+ * depends on the number of online players. The same holds for the recent
+ * status transitions kept by the {@link AuditLog}.
+ *
+ * <p>If statuses are synchronised across servers, the latest status of every
+ * joining player is requested from the other servers through the
+ * {@link StatusSync}, as this server may have missed changes while it was empty.
+ *
+ * <p>Players whose status is not held in memory when they join, such as those
+ * already online when the plug-in is enabled, join without a status. It is
+ * loaded on an asynchronous thread and applied on the main thread afterwards.
+ *
+ * @see StatusCache
+ */
+class PlayerLifecycleListener implements Listener {
+
+    private final StatusPlugin plugin;
+    private final StatusCache statusCache;
+    private final TabRefreshScheduler tabRefreshScheduler;
+    private final AuditLog auditLog;
+    private final StatusSync statusSync;
+
+    /**
+     * Constructor for creating a new {@code PlayerLifecycleListener}.
+     *
+     * @param plugin              the plug-in owning the cache. Must be non-{@code null}.
+     * @param statusCache         the cache holding the statuses. Must be non-{@code null}.
+     * @param tabRefreshScheduler the scheduler caching the rendered player list names. Must be non-{@code null}.
+     * @param auditLog            the log recording the status transitions, or {@code null} if it is disabled.
+     * @param statusSync          the synchronisation with other servers, or {@code null} if it is disabled.
+     */
+    PlayerLifecycleListener(@NotNull StatusPlugin plugin, @NotNull StatusCache statusCache, @NotNull TabRefreshScheduler tabRefreshScheduler, @Nullable AuditLog auditLog, @Nullable StatusSync statusSync) {
+        this.plugin = plugin;
+        this.statusCache = statusCache;
+        this.tabRefreshScheduler = tabRefreshScheduler;
+        this.auditLog = auditLog;
+        this.statusSync = statusSync;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onAsyncPlayerPreLoginEvent(@NotNull AsyncPlayerPreLoginEvent asyncPlayerPreLoginEvent) {
+        if (asyncPlayerPreLoginEvent.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED) {
+            return;
+        }
+
+        try {
+            statusCache.preload(asyncPlayerPreLoginEvent.getUniqueId());
+        } catch (IOException ioException) {
+            plugin.getLogger().log(Level.SEVERE, String.format("Could not load the status of %s.", asyncPlayerPreLoginEvent.getName()), ioException);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.LOWEST)
+    public void onPlayerJoinEvent(@NotNull PlayerJoinEvent playerJoinEvent) {
+        activate(playerJoinEvent.getPlayer());
+        tabRefreshScheduler.join(playerJoinEvent.getPlayer());
+        if (statusSync != null) {
+            statusSync.request(playerJoinEvent.getPlayer().getUniqueId());
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuitEvent(@NotNull PlayerQuitEvent playerQuitEvent) {
+        statusCache.release(playerQuitEvent.getPlayer().getUniqueId());
+        tabRefreshScheduler.forget(playerQuitEvent.getPlayer().getUniqueId());
+        if (auditLog != null) {
+            auditLog.quit(playerQuitEvent.getPlayer().getUniqueId());
+        }
+    }
+
+    /**
+     * Moves the status of the given player into the online part of the {@link StatusCache}
+     * and assigns them a ring of the {@link AuditLog}.
+     *
+     * <p>This is called for every player who joins, as well as for all players
+     * who are already online when the plug-in is enabled.
+     *
+     * @param player the player who has joined. Must be non-{@code null}.
+     */
+    void activate(@NotNull Player player) {
+        UUID uuid = player.getUniqueId();
+        if (auditLog != null) {
+            auditLog.join(uuid);
+        }
+        if (statusCache.activate(uuid)) {
+            return;
+        }
+
+        plugin.getServer().getScheduler().runTaskAsynchronously(plugin, () -> {
+            String loaded;
+            try {
+                loaded = statusCache.load(uuid);
+            } catch (IOException ioException) {
+                plugin.getLogger().log(Level.SEVERE, String.format("Could not load the status of %s.", player.getName()), ioException);
+                return;
+            }
+            if (plugin.isEnabled()) {
+                plugin.getServer().getScheduler().runTask(plugin, () -> {
+                    if (statusCache.complete(uuid, loaded) && player.isOnline()) {
+                        tabRefreshScheduler.markDirty(player);
+                    }
+                });
+            }
+        });
+    }
+}
@@ -19,19 +19,65 @@
 package net.kissenpvp.statusplugin;
 
 import lombok.Getter;
+import net.kissenpvp.statusplugin.audit.AuditAction;
+import net.kissenpvp.statusplugin.audit.AuditEntry;
+import net.kissenpvp.statusplugin.audit.AuditLog;
+import net.kissenpvp.statusplugin.cache.CacheStats;
+import net.kissenpvp.statusplugin.cache.InternStats;
+import net.kissenpvp.statusplugin.cache.MemoryUsage;
+import net.kissenpvp.statusplugin.cache.Retention;
+import net.kissenpvp.statusplugin.cache.StatusCache;
+import net.kissenpvp.statusplugin.cache.StatusInterner;
 import net.kissenpvp.statusplugin.command.ClearStatusCommand;
+import net.kissenpvp.statusplugin.command.CommandPipeline;
+import net.kissenpvp.statusplugin.command.StatusAdminCommand;
+import net.kissenpvp.statusplugin.command.ToggleStatusesCommand;
+import net.kissenpvp.statusplugin.event.BulkStatusEvent;
 import net.kissenpvp.statusplugin.event.ClearStatusEvent;
 import net.kissenpvp.statusplugin.event.SetStatusEvent;
+import net.kissenpvp.statusplugin.expiry.ExpiryStats;
+import net.kissenpvp.statusplugin.expiry.ExpiryWheel;
+import net.kissenpvp.statusplugin.filter.FilterStats;
+import net.kissenpvp.statusplugin.filter.StatusFilter;
+import net.kissenpvp.statusplugin.format.CompiledStatus;
+import net.kissenpvp.statusplugin.format.StatusFormatter;
+import net.kissenpvp.statusplugin.limit.TokenBucketLimiter;
+import net.kissenpvp.statusplugin.metrics.PrometheusExporter;
+import net.kissenpvp.statusplugin.metrics.StatusMetrics;
 import net.kissenpvp.statusplugin.command.StatusCommand;
+import net.kissenpvp.statusplugin.store.JournalStatusStore;
+import net.kissenpvp.statusplugin.store.MemoryStatusStore;
+import net.kissenpvp.statusplugin.store.StatusSnapshot;
+import net.kissenpvp.statusplugin.store.StatusStore;
+import net.kissenpvp.statusplugin.sync.*;
+import net.kissenpvp.statusplugin.tab.BukkitTabRenderer;
+import net.kissenpvp.statusplugin.tab.PacketTabRenderer;
+import net.kissenpvp.statusplugin.tab.TabRefreshScheduler;
+import net.kissenpvp.statusplugin.tab.TabRenderer;
+import net.kissenpvp.statusplugin.tab.TabStats;
 import org.bukkit.entity.Player;
-import org.bukkit.event.EventHandler;
-import org.bukkit.event.EventPriority;
-import org.bukkit.event.Listener;
-import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.Event;
+import org.bukkit.event.HandlerList;
+import org.bukkit.plugin.PluginDescriptionFile;
 import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.plugin.java.JavaPluginLoader;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.logging.Level;
 
 /**
  * Class representing the main status plug-in for the game.
@@ -55,23 +101,322 @@ public final class StatusPlugin extends JavaPlugin {
 
     @Getter
     private static StatusPlugin instance;
-    private final Map<UUID, String> statusMap = new HashMap<>();
+    private StatusStore statusStore;
+    private StatusCache statusCache;
+    private TabRefreshScheduler tabRefreshScheduler;
+    private TabRenderer tabRenderer;
+    private StatusFormatter statusFormatter;
+    private StatusFilter statusFilter;
+    private StatusSync statusSync;
+    private ExpiryWheel expiryWheel;
+    private AuditLog auditLog;
+    @Getter
+    private TokenBucketLimiter rateLimiter;
+    @Getter
+    private StatusMetrics metrics;
+    @Getter
+    private CommandPipeline commandPipeline;
+    private PrometheusExporter prometheusExporter;
+
+    /**
+     * Constructor used by the server to create the plug-in.
+     */
+    public StatusPlugin() {
+        super();
+    }
+
+    /**
+     * Constructor for creating a {@code StatusPlugin} outside of a server, such as in tests and benchmarks.
+     *
+     * <p>The server loading the plug-in this way has to provide the commands
+     * declared in the description and enable the plug-in itself.
+     *
+     * @param loader      the loader which is associated with the server. Must be non-{@code null}.
+     * @param description the description of the plug-in, as read from its {@code plugin.yml}. Must be non-{@code null}.
+     * @param dataFolder  the data folder of the plug-in. Must be non-{@code null}.
+     * @param file        the file the plug-in would have been loaded from. Must be non-{@code null}.
+     */
+    StatusPlugin(@NotNull JavaPluginLoader loader, @NotNull PluginDescriptionFile description, @NotNull File dataFolder, @NotNull File file) {
+        super(loader, description, dataFolder, file);
+    }
 
     @Override
     public void onEnable() {
         instance = this;
-        statusMap.clear();
+        saveDefaultConfig();
+        metrics = new StatusMetrics(getConfig().getBoolean("metrics.enabled", false));
+        statusStore = createStatusStore();
+        statusCache = new StatusCache(statusStore, Retention.fromName(getConfig().getString("cache.retention", "store")),
+                getConfig().getInt("cache.offline-max-size", 1000), getConfig().getLong("cache.offline-expire-seconds", 300));
+        getServer().getScheduler().runTaskTimerAsynchronously(this, statusCache::evictExpired, 20L, 20L);
+        statusFormatter = new StatusFormatter(getConfig().getInt("format.max-length", 32), getConfig().getInt("format.cache-size", 1024));
+        statusFilter = createStatusFilter();
+        tabRenderer = createTabRenderer();
+        tabRefreshScheduler = new TabRefreshScheduler(getServer(), this::peekStatus, tabRenderer, getConfig().getInt("tab.max-updates-per-tick", 50));
+        getServer().getScheduler().runTaskTimer(this, this::flushTab, 1L, 1L);
+        rateLimiter = new TokenBucketLimiter(getConfig().getInt("rate-limit.capacity", 3), getConfig().getDouble("rate-limit.refill-per-second", 0.2));
+        getServer().getScheduler().runTaskTimerAsynchronously(this, rateLimiter::evictIdle, 1200L, 1200L);
+        expiryWheel = new ExpiryWheel(Duration.ofMillis(50), this::expireStatus);
+        rearmExpiries();
+        getServer().getScheduler().runTaskTimer(this, expiryWheel::advance, 1L, 1L);
+        statusSync = createStatusSync();
+        if (statusSync != null) {
+            getServer().getScheduler().runTaskTimer(this, statusSync::flush, 1L, 1L);
+        }
+
+        commandPipeline = new CommandPipeline(this, metrics, getConfig().getInt("commands.worker-threads", 2));
         Objects.requireNonNull(getCommand("status")).setExecutor(new StatusCommand());
         Objects.requireNonNull(getCommand("clearstatus")).setExecutor(new ClearStatusCommand());
+        Objects.requireNonNull(getCommand("statusadmin")).setExecutor(new StatusAdminCommand());
+        Objects.requireNonNull(getCommand("togglestatuses")).setExecutor(new ToggleStatusesCommand());
 
-        getServer().getPluginManager().registerEvents(new Listener() {
+        auditLog = createAuditLog();
+        PlayerLifecycleListener playerLifecycleListener = new PlayerLifecycleListener(this, statusCache, tabRefreshScheduler, auditLog, statusSync);
+        getServer().getOnlinePlayers().forEach(playerLifecycleListener::activate); // players who were online during a reload
+        getServer().getOnlinePlayers().forEach(tabRefreshScheduler::join);
+        getServer().getPluginManager().registerEvents(playerLifecycleListener, this);
+        startMetricsExport();
+    }
 
-            @EventHandler(priority = EventPriority.LOWEST)
-            public void onPlayerJoinEvent(@NotNull PlayerJoinEvent playerJoinEvent) {
-                refreshTab(playerJoinEvent.getPlayer());
+    @Override
+    public void onDisable() {
+        if (commandPipeline != null) {
+            commandPipeline.close();
+            commandPipeline = null;
+        }
+        if (prometheusExporter != null) {
+            prometheusExporter.close();
+            prometheusExporter = null;
+        }
+        if (statusSync != null) {
+            statusSync.close(); // applies the deltas still queued, so the wheel, audit log and store must be open
+            statusSync = null;
+        }
+        expiryWheel = null; // the expiries are persisted by the store and re-armed on start-up
+        if (auditLog != null) {
+            auditLog.close();
+            auditLog = null;
+        }
+        if (statusStore != null) {
+            statusStore.close();
+            statusStore = null;
+        }
+    }
+
+    /**
+     * Creates and opens the {@link StatusStore} selected by {@code store.type} in the configuration.
+     *
+     * <p>The {@code journal} type persists statuses into an append-only journal
+     * within the data folder of this plug-in, whereas the {@code memory} type
+     * does not persist anything at all. If the journal cannot be opened, this
+     * plug-in falls back to the {@code memory} type, so statuses keep working
+     * until the next restart, but are not persisted.
+     *
+     * @return the opened status store to be used by this plug-in.
+     */
+    private @NotNull StatusStore createStatusStore() {
+        String type = getConfig().getString("store.type", "journal");
+        if (type.equalsIgnoreCase("memory")) {
+            return new MemoryStatusStore();
+        }
+
+        if (!type.equalsIgnoreCase("journal")) {
+            getLogger().warning(String.format("Unknown store type '%s', falling back to journal.", type));
+        }
+        StatusStore store = new JournalStatusStore(getDataFolder().toPath().resolve("statuses.journal"), getLogger(),
+                getConfig().getLong("store.flush-interval-ms", 1000),
+                TimeUnit.MINUTES.toMillis(getConfig().getLong("store.compact-interval-minutes", 30)));
+        try {
+            store.open();
+        } catch (IOException ioException) {
+            getLogger().log(Level.SEVERE, "Could not open the status journal, statuses are only kept in memory and lost on restart.", ioException);
+            store.close();
+            return new MemoryStatusStore();
+        }
+        return store;
+    }
+
+    /**
+     * Starts exporting the metrics in the Prometheus text format, as configured in the {@code metrics} section.
+     *
+     * <p>The values owned by other components, such as the number of statuses
+     * held in memory, are registered first. If {@code metrics.file} is set, the
+     * metrics are written into that file within the data folder of this plug-in
+     * in the configured interval. If {@code metrics.port} is set, they are
+     * served at {@code /metrics} on that port. Nothing is exported if the
+     * metrics are disabled.
+     */
+    private void startMetricsExport() {
+        if (!metrics.isEnabled()) {
+            return;
+        }
+
+        Supplier<MemoryUsage> memory = metrics.perScrape(statusCache::estimateMemory);
+        metrics.register("statuses_online", "Statuses of online players held in memory.", false, () -> memory.get().onlineEntries());
+        metrics.register("statuses_offline", "Statuses of offline players held in memory.", false, () -> memory.get().offlineEntries());
+        metrics.register("statuses_retained_bytes", "Estimated bytes retained by statuses.", false, () -> memory.get().totalBytes());
+        metrics.register("cache_hits", "Lookups of the status cache which were served from memory.", true, () -> statusCache.getStats().hits());
+        metrics.register("cache_misses", "Lookups of the status cache which had to read the store.", true, () -> statusCache.getStats().misses());
+        metrics.register("command_rate_limited", "Status commands which have been rejected by the rate limit.", true, rateLimiter::getRejected);
+
+        prometheusExporter = new PrometheusExporter(metrics);
+        String file = getConfig().getString("metrics.file", "");
+        if (!file.isBlank()) {
+            Path path = getDataFolder().toPath().resolve(file);
+            long interval = Math.max(1, getConfig().getLong("metrics.file-interval-seconds", 15)) * 20L;
+            getServer().getScheduler().runTaskTimerAsynchronously(this, () -> {
+                try {
+                    prometheusExporter.writeTo(path);
+                } catch (IOException ioException) {
+                    getLogger().log(Level.WARNING, "Could not write the metrics file.", ioException);
+                }
+            }, interval, interval);
+        }
+
+        int port = getConfig().getInt("metrics.port", 0);
+        if (port > 0) {
+            try {
+                prometheusExporter.serve(new InetSocketAddress(getConfig().getString("metrics.bind-address", "127.0.0.1"), port));
+            } catch (IOException ioException) {
+                getLogger().log(Level.SEVERE, String.format("Could not serve the metrics on port %d.", port), ioException);
             }
+        }
+    }
+
+    /**
+     * Creates the {@link StatusFilter} rejecting blocked terms, if enabled through {@code filter.enabled}.
+     *
+     * <p>The blocked terms are read from {@code filter.file} within the data
+     * folder of this plug-in right away, so the filter is in place before any
+     * player joins. Later reloads compile the terms asynchronously.
+     *
+     * @return the status filter, or {@code null} if filtering is disabled.
+     * @see #reloadFilter()
+     */
+    private @Nullable StatusFilter createStatusFilter() {
+        if (!getConfig().getBoolean("filter.enabled", true)) {
+            return null;
+        }
 
-        }, this);
+        StatusFilter filter = new StatusFilter(getDataFolder().toPath().resolve(getConfig().getString("filter.file", "blocklist.txt")));
+        try {
+            getLogger().info(String.format("Loaded %d blocked terms.", filter.load()));
+        } catch (IOException ioException) {
+            getLogger().log(Level.SEVERE, "Could not load the blocked terms.", ioException);
+        }
+        return filter;
+    }
+
+    /**
+     * Creates the {@link TabRenderer} selected by {@code tab.renderer} in the configuration.
+     *
+     * <p>The {@code packet} renderer requires ProtocolLib. If it is not installed,
+     * the {@code bukkit} renderer, which relies on the Bukkit API only, is used instead.
+     *
+     * @return the tab renderer to be used by this plug-in.
+     */
+    private @NotNull TabRenderer createTabRenderer() {
+        if (!getConfig().getString("tab.renderer", "bukkit").equalsIgnoreCase("packet")) {
+            return new BukkitTabRenderer();
+        }
+
+        if (!getServer().getPluginManager().isPluginEnabled("ProtocolLib")) {
+            getLogger().warning("The packet tab renderer requires ProtocolLib, falling back to the Bukkit renderer.");
+            return new BukkitTabRenderer();
+        }
+        return new PacketTabRenderer(getServer());
+    }
+
+    /**
+     * Creates the {@link AuditLog} recording the status transitions of all players,
+     * if enabled by {@code audit.enabled} in the configuration.
+     *
+     * <p>The log is kept in {@code audit.log} within the data folder of this
+     * plug-in, while the latest {@code audit.history-size} transitions of each
+     * online player are held in memory.
+     *
+     * @return the audit log, or {@code null} if it is disabled or could not be opened.
+     */
+    private @Nullable AuditLog createAuditLog() {
+        if (!getConfig().getBoolean("audit.enabled", true)) {
+            return null;
+        }
+
+        AuditLog log = new AuditLog(getDataFolder().toPath().resolve("audit.log"), getLogger(), Math.max(1, getConfig().getInt("audit.history-size", 16)));
+        try {
+            log.open();
+        } catch (IOException ioException) {
+            getLogger().log(Level.SEVERE, "Could not open the audit log, status transitions are not recorded.", ioException);
+            log.close();
+            return null;
+        }
+        return log;
+    }
+
+    /**
+     * Creates the {@link StatusSync} connecting this server to the {@link StatusBus}
+     * selected by {@code sync.bus} in the configuration.
+     *
+     * <p>The {@code plugin-messaging} bus relays changes through the BungeeCord
+     * plugin messaging channel, which is supported by BungeeCord and Velocity.
+     * The {@code local} bus connects plug-in instances within the same process.
+     * Players joining this server are requested from the other servers, see
+     * {@link PlayerLifecycleListener}.
+     *
+     * @return the status synchronisation, or {@code null} if synchronisation is disabled.
+     */
+    private @Nullable StatusSync createStatusSync() {
+        StatusBus statusBus;
+        String bus = getConfig().getString("sync.bus", "none");
+        switch (bus.toLowerCase()) {
+            case "plugin-messaging" -> statusBus = new PluginMessageStatusBus(this);
+            case "local" -> statusBus = new LocalStatusBus();
+            case "none" -> {
+                return null;
+            }
+            default -> {
+                getLogger().warning(String.format("Unknown sync bus '%s', synchronisation is disabled.", bus));
+                return null;
+            }
+        }
+
+        String serverId = getConfig().getString("sync.server-id", "");
+        return new StatusSync(serverId.isBlank() ? UUID.randomUUID().toString() : serverId, statusBus, delta -> applyRemoteStatus(delta.uuid(), delta.status(), delta.expiresAt()));
+    }
+
+    /**
+     * Applies a status change received from another server of the network,
+     * or imported from a snapshot.
+     *
+     * <p>No events are fired, as the change has already passed them on the
+     * server it originates from. If the player is online on this server, the
+     * status is put into the {@link StatusCache} and the player tab is refreshed
+     * through the regular, coalesced refresh. Otherwise only the {@link StatusStore}
+     * is updated, so the status is in place once the player joins. A timed
+     * status expires on this server at the same time as on its origin.
+     *
+     * @param uuid      the unique ID of the player. Must be non-{@code null}.
+     * @param status    the new status, or {@code null} if it has been cleared.
+     * @param expiresAt the epoch millis at which the status expires, or {@code 0} if it does not expire.
+     */
+    private void applyRemoteStatus(@NotNull UUID uuid, @Nullable String status, long expiresAt) {
+        expiryWheel.cancel(uuid);
+        Player player = getServer().getPlayer(uuid);
+        if (status == null) {
+            statusCache.remove(uuid);
+            statusStore.remove(uuid);
+        } else {
+            if (player != null) {
+                status = statusCache.put(uuid, status);
+            }
+            storeStatus(uuid, status, expiresAt);
+        }
+
+        if (player != null) {
+            refreshTab(player);
+            return;
+        }
+        statusCache.invalidate(uuid);
     }
 
     /**
@@ -79,57 +424,355 @@ public final class StatusPlugin extends JavaPlugin {
      * to all relevant game components. The status will not be changed if the
      * {@link SetStatusEvent} is cancelled by any event listener in the game.
      *
-     * <p>This method first creates a {@link SetStatusEvent} with the given player
-     * and status. This event is then passed to the server's plugin manager which
-     * in turn distributes the event to all registered event listeners. If any
-     * of these listeners cancels the event, this method will throw an
-     * {@link EventCancelledException} and the player's status will remain unchanged.
+     * <p>This method first compiles the status through the {@link StatusFormatter}:
+     * colour codes, hex colours and gradients are translated into section sign
+     * codes, white space is removed from both ends, the visible text is cut to the
+     * configured length and a trailing space is added. Statuses without any
+     * visible character, or whose visible text contains a term blocked by the
+     * {@link StatusFilter}, are rejected with an {@link EventCancelledException}.
+     * As the compiled form is cached, popular statuses are only parsed once.
      *
-     * <p>Subsequently, the status is sanitized and a trailing space is added:
-     * any ampersand characters ('&') are replaced with section sign characters ('§'),
-     * and white space is removed from both ends. Hereafter, the previous status
-     * of the player is cleared from the {@code statusMap} and the updated status
-     * is inserted. This map relates each player (based on their unique ID) to
-     * their corresponding status.
+     * <p>Subsequently, a {@link SetStatusEvent} with the given player and the
+     * compiled status is created. This event is then passed to the server's
+     * plugin manager which in turn distributes the event to all registered event
+     * listeners. If any of these listeners cancels the event, this method will
+     * throw an {@link EventCancelledException} and the player's status will
+     * remain unchanged. Listeners may also replace the status, which is then
+     * compiled and filtered again, just like the input of a player, before it is
+     * stored. A replacement without any visible character or with a blocked
+     * term counts as a cancellation and is recorded as such. If no
+     * listener is registered for the event at all, it is neither created nor
+     * fired. Hereafter, the updated status is
+     * put into the {@link StatusCache}, replacing the previous status. This cache
+     * relates each online player (based on their unique ID) to their corresponding
+     * status. The change is handed to the {@link StatusStore},
+     * which persists it without blocking the calling thread, and, if enabled,
+     * to the {@link StatusSync}, which publishes it to the other servers.
      *
      * <p>Lastly, the {@link #refreshTab(Player)} method is called to ensure the
      * updated status is properly displayed on the game's player tab.
      *
+     * <p>As the event has to be fired on the main thread, calls from other
+     * threads are handed over to the main thread once the status has been
+     * compiled, and block until the status has been changed. Threads which must
+     * not block, or which the main thread may be waiting for, should use
+     * {@link #setStatusAsync(Player, String)} instead.
+     *
      * @param player the player whose status is to be updated.
      *               Must be non-{@code null}.
      * @param status a String representing the new status of the player.
      *               Must be non-{@code null}.
-     * @return a sanitized version of the input status, with ampersands replaced with
-     * section signs, white space removed from both ends, and with a trailing space
+     * @return the compiled version of the input status, with colour codes translated
+     * into section signs, white space removed from both ends, and with a trailing space
      * added.
-     * @throws EventCancelledException if any event listener in the game cancels
-     *                                 the {@link SetStatusEvent} that is fired when changing the player's status.
+     * @throws EventCancelledException if the status has no visible characters or any event listener
+     *                                 in the game cancels the {@link SetStatusEvent} that is fired when
+     *                                 changing the player's status.
      * @see SetStatusEvent
      * @see EventCancelledException
+     * @see StatusFormatter
      */
     public @NotNull String setStatus(@NotNull Player player, @NotNull String status) throws EventCancelledException {
-        status = status.replace('&', '§').strip() + " ";
-        SetStatusEvent setStatusEvent = new SetStatusEvent(player, status);
-        getServer().getPluginManager().callEvent(setStatusEvent);
-        if (setStatusEvent.isCancelled() || setStatusEvent.getStatus().isBlank()) {
-            throw new EventCancelledException();
+        return setStatus(player, compileStatus(status));
+    }
+
+    /**
+     * Compiles the given status and checks whether it may be used.
+     *
+     * <p>This method performs the part of {@link #setStatus(Player, String)}
+     * which does not need the main thread: the status is compiled through the
+     * {@link StatusFormatter} and checked against the {@link StatusFilter}. It
+     * is thread-safe, so commands call it from their worker threads and only
+     * hand the result over to {@link #setStatus(Player, CompiledStatus)} on the
+     * main thread.
+     *
+     * @param status the status as entered by a player. Must be non-{@code null}.
+     * @return the compiled status.
+     * @throws EventCancelledException if the status has no visible characters or contains a blocked term.
+     */
+    public @NotNull CompiledStatus compileStatus(@NotNull String status) throws EventCancelledException {
+        CompiledStatus compiledStatus = statusFormatter.compile(status);
+        if (compiledStatus.isBlank() || isBlocked(compiledStatus)) {
+            throw cancelled();
         }
+        return compiledStatus;
+    }
 
-        statusMap.remove(player.getUniqueId()); // clear previous data
-        statusMap.put(player.getUniqueId(), status);
+    /**
+     * Changes the status of a provided player to an already compiled status.
+     *
+     * <p>This method continues {@link #setStatus(Player, String)} after the
+     * status has been compiled: the {@link SetStatusEvent} is fired and the
+     * status is stored. The compiled status must have been obtained from
+     * {@link #compileStatus(String)}. Calls from other threads block until
+     * the main thread has changed the status.
+     *
+     * @param player         the player whose status is to be updated.
+     *                       Must be non-{@code null}.
+     * @param compiledStatus the compiled status. Must be non-{@code null}.
+     * @return the rendered status which has been stored.
+     * @throws EventCancelledException if any event listener cancels the {@link SetStatusEvent}.
+     * @see #compileStatus(String)
+     */
+    public @NotNull String setStatus(@NotNull Player player, @NotNull CompiledStatus compiledStatus) throws EventCancelledException {
+        if (!getServer().isPrimaryThread()) {
+            return awaitPrimaryThread(() -> setStatus(player, compiledStatus));
+        }
+        return setStatusUntil(player, compiledStatus, 0);
+    }
 
-        refreshTab(player);
-        return status;
+    /**
+     * Fires the {@link SetStatusEvent} for an already compiled status and
+     * stores the status if the event passes.
+     *
+     * @param player         the player whose status is to be updated. Must be non-{@code null}.
+     * @param compiledStatus the compiled status. Must be non-{@code null}.
+     * @param expiresAt      the epoch millis at which the status expires, or {@code 0} if it does not expire.
+     * @return the rendered status which has been stored.
+     * @throws EventCancelledException if any event listener cancels the {@link SetStatusEvent}.
+     */
+    private @NotNull String setStatusUntil(@NotNull Player player, @NotNull CompiledStatus compiledStatus, long expiresAt) throws EventCancelledException {
+        String status = compiledStatus.rendered();
+        if (hasListeners(SetStatusEvent.getHandlerList())) {
+            SetStatusEvent setStatusEvent = new SetStatusEvent(player, status);
+            callEvent(setStatusEvent);
+            if (setStatusEvent.isCancelled() || setStatusEvent.getStatus() == null) {
+                audit(player.getUniqueId(), AuditAction.CANCEL, status);
+                throw cancelled();
+            }
+
+            if (!setStatusEvent.getStatus().equals(status)) { // changed by a listener
+                try {
+                    status = compileStatus(setStatusEvent.getStatus()).rendered();
+                } catch (EventCancelledException eventCancelledException) {
+                    audit(player.getUniqueId(), AuditAction.CANCEL, status);
+                    throw eventCancelledException;
+                }
+            }
+        }
+
+        return applyStatus(player, status, expiresAt);
+    }
+
+    /**
+     * Changes the status of a provided player for a limited time.
+     *
+     * <p>This method changes the status just like {@link #setStatus(Player, String)}
+     * and schedules its expiry within the {@link ExpiryWheel}. Once the duration
+     * has passed, the status is removed through {@link #clearStatus(Player)}, so
+     * the {@link ClearStatusEvent} is fired as usual. If a listener cancels that
+     * event, the status is kept until it is changed otherwise. If the player is
+     * offline by then, the status is removed without an event.
+     *
+     * <p>Changing or clearing the status in the meantime cancels the expiry.
+     * The time at which the status expires is persisted along with it, so a
+     * timed status survives a restart. One which expired while the server was
+     * down expires right after the start-up.
+     *
+     * @param player   the player whose status is to be updated.
+     *                 Must be non-{@code null}.
+     * @param status   a String representing the new status of the player.
+     *                 Must be non-{@code null}.
+     * @param duration the time after which the status expires. Must be positive.
+     * @return the compiled version of the input status.
+     * @throws EventCancelledException  if the status has no visible characters or any event listener
+     *                                  cancels the {@link SetStatusEvent}.
+     * @throws IllegalArgumentException if the duration is not positive.
+     * @see #setStatus(Player, String)
+     * @see ExpiryWheel
+     */
+    public @NotNull String setStatus(@NotNull Player player, @NotNull String status, @NotNull Duration duration) throws EventCancelledException {
+        return setStatus(player, compileStatus(status), duration);
+    }
+
+    /**
+     * Changes the status of a provided player to an already compiled status for a limited time.
+     *
+     * @param player         the player whose status is to be updated.
+     *                       Must be non-{@code null}.
+     * @param compiledStatus the compiled status, obtained from {@link #compileStatus(String)}.
+     *                       Must be non-{@code null}.
+     * @param duration       the time after which the status expires. Must be positive.
+     * @return the rendered status which has been stored.
+     * @throws EventCancelledException  if any event listener cancels the {@link SetStatusEvent}.
+     * @throws IllegalArgumentException if the duration is not positive.
+     * @see #setStatus(Player, String, Duration)
+     */
+    public @NotNull String setStatus(@NotNull Player player, @NotNull CompiledStatus compiledStatus, @NotNull Duration duration) throws EventCancelledException {
+        if (duration.isNegative() || duration.isZero()) {
+            throw new IllegalArgumentException("The duration must be positive.");
+        }
+        if (!getServer().isPrimaryThread()) {
+            return awaitPrimaryThread(() -> setStatus(player, compiledStatus, duration));
+        }
+
+        return setStatusUntil(player, compiledStatus, System.currentTimeMillis() + duration.toMillis());
+    }
+
+    /**
+     * Changes the status of a provided player for a limited time from any thread.
+     *
+     * @param player   the player whose status is to be updated.
+     *                 Must be non-{@code null}.
+     * @param status   a String representing the new status of the player.
+     *                 Must be non-{@code null}.
+     * @param duration the time after which the status expires. Must be positive.
+     * @return a future which is completed with the sanitized status, or completed
+     * exceptionally with an {@link EventCancelledException} if the event was cancelled.
+     * @see #setStatus(Player, String, Duration)
+     */
+    public @NotNull CompletableFuture<String> setStatusAsync(@NotNull Player player, @NotNull String status, @NotNull Duration duration) {
+        return onPrimaryThread(() -> setStatus(player, status, duration));
+    }
+
+    /**
+     * Determines the time left until the status of the given player expires.
+     *
+     * <p>As the expiry wheel is owned by the main thread, calls from other
+     * threads block until the main thread has looked the time up.
+     *
+     * @param player the player whose status is checked. Must be non-{@code null}.
+     * @return the remaining time, or {@code null} if the status of the player does not expire.
+     * @see #setStatus(Player, String, Duration)
+     */
+    public @Nullable Duration getRemainingStatusTime(@NotNull Player player) {
+        if (!getServer().isPrimaryThread()) {
+            return awaitPrimaryThread(() -> getRemainingStatusTime(player));
+        }
+        return expiryWheel.getRemaining(player.getUniqueId());
+    }
+
+    /**
+     * Removes the status of a player whose timed status has expired.
+     *
+     * <p>Online players have their status cleared through {@link #clearStatus(Player)},
+     * for offline players no event can be fired, so it is dropped right away.
+     * The same holds for online players whose status is still being loaded
+     * after the plug-in has been enabled, which also discards the pending load.
+     *
+     * @param uuid the unique ID of the player. Must be non-{@code null}.
+     */
+    private void expireStatus(@NotNull UUID uuid) {
+        metrics.increment(StatusMetrics.Counter.STATUS_EXPIRED);
+        Player player = getServer().getPlayer(uuid);
+        if (player == null || peekStatus(player) == null) { // offline, or online with the status still loading
+            dropStatus(uuid);
+            return;
+        }
+
+        try {
+            clearStatus(player, AuditAction.EXPIRE);
+        } catch (EventCancelledException eventCancelledException) {
+            String status = peekStatus(player); // a listener keeps the status, it stays until it is changed otherwise
+            if (status != null) {
+                statusStore.put(uuid, status);
+                if (statusSync != null) {
+                    statusSync.publish(uuid, status, 0); // the other servers would expire it otherwise
+                }
+            }
+        }
     }
 
     /**
-     * Retrieves the status of a provided player from the {@code statusMap}.
+     * Schedules the expiry of every timed status persisted by the {@link StatusStore}.
+     *
+     * <p>This is called once while the plug-in is enabling. Statuses whose
+     * expiry has passed while the server was down expire within the first tick.
+     */
+    private void rearmExpiries() {
+        try {
+            statusStore.forEachExpiry(this::scheduleExpiry);
+        } catch (IOException ioException) {
+            getLogger().log(Level.SEVERE, "Could not restore the expiry of timed statuses.", ioException);
+        }
+    }
+
+    /**
+     * Schedules the expiry of a timed status within the {@link ExpiryWheel}.
+     *
+     * @param uuid      the unique ID of the player. Must be non-{@code null}.
+     * @param expiresAt the epoch millis at which the status expires. An expiry in the past fires within the next tick.
+     */
+    private void scheduleExpiry(@NotNull UUID uuid, long expiresAt) {
+        expiryWheel.schedule(uuid, Duration.ofMillis(Math.max(1, expiresAt - System.currentTimeMillis())));
+    }
+
+    /**
+     * Removes the expired status of an offline player without firing an event.
+     *
+     * <p>The player may have changed their status on another server since, so
+     * the removal is published as an expiry, which does not supersede such a change.
+     *
+     * @param uuid the unique ID of the player. Must be non-{@code null}.
+     * @see StatusSync#publishExpiry(UUID)
+     */
+    private void dropStatus(@NotNull UUID uuid) {
+        audit(uuid, AuditAction.EXPIRE, peekStatus(uuid));
+        statusCache.remove(uuid);
+        statusStore.remove(uuid);
+        if (statusSync != null) {
+            statusSync.publishExpiry(uuid);
+        }
+        statusCache.invalidate(uuid);
+    }
+
+    /**
+     * Changes the status of a provided player from any thread.
+     *
+     * <p>This method hands the call to {@link #setStatus(Player, String)} over to
+     * the main thread, so the {@link SetStatusEvent} is fired there. If this
+     * method is called from the main thread, the status is changed immediately.
+     *
+     * @param player the player whose status is to be updated.
+     *               Must be non-{@code null}.
+     * @param status a String representing the new status of the player.
+     *               Must be non-{@code null}.
+     * @return a future which is completed with the sanitized status, or completed
+     * exceptionally with an {@link EventCancelledException} if the event was cancelled.
+     * @see #setStatus(Player, String)
+     */
+    public @NotNull CompletableFuture<String> setStatusAsync(@NotNull Player player, @NotNull String status) {
+        return onPrimaryThread(() -> setStatus(player, status));
+    }
+
+    /**
+     * Retrieves the status of a provided player without any allocation.
+     *
+     * <p>This method reads the online part of the {@link StatusCache}, which is
+     * backed by a concurrent map. It is therefore safe to call from any thread,
+     * such as asynchronous chat or scheduler threads, and neither locks nor
+     * allocates.
+     *
+     * @param uuid the unique ID of the player whose status is to be retrieved.
+     *             Must be non-{@code null}.
+     * @return the status of the player, or {@code null} if the player has none or is offline.
+     */
+    public @Nullable String peekStatus(@NotNull UUID uuid) {
+        return statusCache.get(uuid);
+    }
+
+    /**
+     * Retrieves the status of a provided player without any allocation.
+     *
+     * @param player the player whose status is to be retrieved.
+     *               Must be non-{@code null}.
+     * @return the status of the player, or {@code null} if the player has none.
+     * @see #peekStatus(UUID)
+     */
+    public @Nullable String peekStatus(@NotNull Player player) {
+        return peekStatus(player.getUniqueId());
+    }
+
+    /**
+     * Retrieves the status of a provided player from the {@link StatusCache}.
      *
      * <p>This method fetches the status of the player referenced by their unique
-     * ID from the {@code statusMap}. This map relates each player (based on their
-     * unique ID) to their corresponding status.
+     * ID from the {@link StatusCache}. This cache relates each player (based on their
+     * unique ID) to their corresponding status. It may be called from any thread,
+     * callers on a hot path should prefer {@link #peekStatus(Player)}, which does
+     * not wrap the result.
      *
-     * <p>If a status value for the player does not exist in the {@code statusMap},
+     * <p>If a status value for the player does not exist in the {@link StatusCache},
      * {@link Optional#empty()} is returned.
      *
      * <p>The {@link Optional} wrapper is used to safely handle null values and
@@ -138,14 +781,266 @@ public final class StatusPlugin extends JavaPlugin {
      * @param player the player whose status is to be retrieved.
      *               Must be non-{@code null}.
      * @return An {@link Optional} that may contain the {@code String} status of the
-     * player if it exists in {@code statusMap}. If not, it will contain no value
+     * player if it exists in {@link StatusCache}. If not, it will contain no value
      * ({@link Optional#empty()}).
      * @throws EventCancelledException - This exception is no longer thrown
      *                                 from this method. This change in method signature might affect an interface
      *                                 it may be overwriting or some other part of your architecture.
      */
     public @NotNull Optional<String> getStatus(@NotNull Player player) throws EventCancelledException {
-        return Optional.ofNullable(statusMap.get(player.getUniqueId()));
+        return Optional.ofNullable(peekStatus(player));
+    }
+
+    /**
+     * Creates a snapshot of the hit, miss and eviction counters of the status cache.
+     *
+     * @return the current statistics of the status cache.
+     * @see StatusCache
+     */
+    public @NotNull CacheStats getCacheStats() {
+        return statusCache.getStats();
+    }
+
+    /**
+     * Creates a snapshot of the status interner, which shares equal statuses between players.
+     *
+     * @return the number of distinct statuses held in memory and the estimated memory saved by sharing them.
+     * @see StatusInterner
+     */
+    public @NotNull InternStats getInternStats() {
+        return statusCache.getInternStats();
+    }
+
+    /**
+     * Creates a snapshot of the counters of the tab refresh scheduler.
+     *
+     * <p>Calls from other threads block until the main thread has taken the snapshot.
+     *
+     * @return the current statistics of the tab refresh scheduler.
+     * @see TabRefreshScheduler
+     */
+    public @NotNull TabStats getTabStats() {
+        if (!getServer().isPrimaryThread()) {
+            return awaitPrimaryThread(this::getTabStats);
+        }
+        return tabRefreshScheduler.getStats();
+    }
+
+    /**
+     * Changes whether the given viewer sees the statuses of other players in the player tab.
+     *
+     * <p>This is only supported if the configured {@link TabRenderer} renders
+     * per viewer, which is the case for the packet renderer. The preference
+     * lasts for the current session of the viewer.
+     *
+     * @param viewer  the viewer whose preference is changed. Must be non-{@code null}.
+     * @param visible whether statuses are displayed to the viewer.
+     * @throws UnsupportedOperationException if the tab renderer does not render per viewer.
+     * @see #isPerViewerRendering()
+     */
+    public void setStatusesVisible(@NotNull Player viewer, boolean visible) {
+        tabRenderer.setStatusesVisible(viewer, visible);
+    }
+
+    /**
+     * Checks whether the given viewer sees the statuses of other players in the player tab.
+     *
+     * @param viewer the viewer to check. Must be non-{@code null}.
+     * @return {@code true} if statuses are displayed to the viewer.
+     */
+    public boolean areStatusesVisible(@NotNull Player viewer) {
+        return tabRenderer.areStatusesVisible(viewer);
+    }
+
+    /**
+     * Checks whether the configured {@link TabRenderer} is able to hide statuses from single viewers.
+     *
+     * @return {@code true} if statuses can be hidden per viewer.
+     */
+    public boolean isPerViewerRendering() {
+        return tabRenderer.isPerViewer();
+    }
+
+    /**
+     * Reloads the blocked terms of the status filter.
+     *
+     * <p>The terms are read and compiled on an asynchronous thread. Statuses
+     * are checked against the previous terms until the new ones are in use.
+     *
+     * @return a future which is completed with the number of blocked terms once they are in use,
+     * or completed exceptionally if the filter is disabled or the terms could not be read.
+     * @see StatusFilter
+     */
+    public @NotNull CompletableFuture<Integer> reloadFilter() {
+        if (statusFilter == null) {
+            return CompletableFuture.failedFuture(new IllegalStateException("The status filter is disabled."));
+        }
+        return statusFilter.reload(runnable -> getServer().getScheduler().runTaskAsynchronously(this, runnable));
+    }
+
+    /**
+     * Creates a snapshot of the counters of the status filter.
+     *
+     * @return the current statistics of the status filter, or {@code null} if it is disabled.
+     * @see StatusFilter
+     */
+    public @Nullable FilterStats getFilterStats() {
+        return statusFilter == null ? null : statusFilter.getStats();
+    }
+
+    /**
+     * Writes the statuses of all players into a snapshot.
+     *
+     * <p>The statuses are streamed from the {@link StatusStore} into the
+     * snapshot on an asynchronous thread. Timed statuses are exported without
+     * their expiry.
+     *
+     * @param file the snapshot to write, which is replaced if it exists. Must be non-{@code null}.
+     * @return a future which is completed with the number of exported statuses,
+     * or completed exceptionally if the snapshot could not be written.
+     * @see StatusSnapshot
+     */
+    public @NotNull CompletableFuture<Long> exportStatuses(@NotNull Path file) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return StatusSnapshot.write(file, statusStore);
+            } catch (IOException ioException) {
+                throw new UncheckedIOException(ioException);
+            }
+        }, runnable -> getServer().getScheduler().runTaskAsynchronously(this, runnable));
+    }
+
+    /**
+     * Reads the statuses of a snapshot into the status store.
+     *
+     * <p>The snapshot is verified and then streamed into the {@link StatusStore}
+     * on an asynchronous thread, replacing the statuses of the players it
+     * contains. Other statuses are kept. The statuses of players who are
+     * online are applied on the main thread afterwards, without any event,
+     * and their tab entries are refreshed. Imported statuses are not compiled
+     * again, as they have been compiled before they were exported. Pending
+     * expiries of the imported players are cancelled, as the snapshot holds
+     * statuses without expiry.
+     *
+     * <p>An import is local and unaudited: the statuses are neither published
+     * to other servers, which import the same snapshot themselves when it is
+     * used for a migration, nor recorded in the {@link AuditLog}, as a restore
+     * of every status would flood the history of each player with a single
+     * administrative action.
+     *
+     * <p>The online players and the pending expiries are determined on the
+     * main thread, so calls from other threads are handed over to it.
+     *
+     * @param file the snapshot to read. Must be non-{@code null}.
+     * @return a future which is completed on the main thread with the number of imported statuses,
+     * or completed exceptionally if the snapshot could not be read or is damaged.
+     * @see StatusSnapshot
+     */
+    public @NotNull CompletableFuture<Long> importStatuses(@NotNull Path file) {
+        if (!getServer().isPrimaryThread()) {
+            return onPrimaryThread(() -> importStatuses(file)).thenCompose(Function.identity());
+        }
+        Set<UUID> online = new HashSet<>();
+        getServer().getOnlinePlayers().forEach(player -> online.add(player.getUniqueId()));
+        Set<UUID> timed = expiryWheel.getPending();
+        Map<UUID, String> onlineStatuses = new ConcurrentHashMap<>();
+        Set<UUID> untimed = ConcurrentHashMap.newKeySet();
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return StatusSnapshot.read(file, (uuid, status) -> {
+                    if (online.contains(uuid)) {
+                        onlineStatuses.put(uuid, status);
+                        return;
+                    }
+                    statusStore.put(uuid, status);
+                    statusCache.invalidate(uuid);
+                    if (timed.contains(uuid)) {
+                        untimed.add(uuid);
+                    }
+                });
+            } catch (IOException ioException) {
+                throw new UncheckedIOException(ioException);
+            }
+        }, runnable -> getServer().getScheduler().runTaskAsynchronously(this, runnable)).thenApplyAsync(count -> {
+            untimed.forEach(expiryWheel::cancel);
+            onlineStatuses.forEach((uuid, status) -> applyRemoteStatus(uuid, status, 0)); // cancels the expiry as well
+            return count;
+        }, runnable -> getServer().getScheduler().runTask(this, runnable));
+    }
+
+    /**
+     * Retrieves a page of the status transitions of a player, newest first.
+     *
+     * <p>Recent transitions of online players are served from memory, older
+     * ones and those of offline players are read from the {@link AuditLog} on
+     * an asynchronous thread.
+     *
+     * <p>The recent transitions are read on the main thread, so calls from
+     * other threads are handed over to it.
+     *
+     * @param uuid   the unique ID of the player. Must be non-{@code null}.
+     * @param offset the number of newer transitions to skip. Must not be negative.
+     * @param limit  the maximum number of transitions to return. Must not be negative.
+     * @return a future which is completed with the transitions, or completed
+     * exceptionally if the audit log could not be read.
+     * @throws IllegalStateException    if the audit log is disabled.
+     * @throws IllegalArgumentException if the offset or the limit is negative.
+     * @see AuditLog#getHistory(UUID, int, int)
+     */
+    public @NotNull CompletableFuture<List<AuditEntry>> getStatusHistory(@NotNull UUID uuid, int offset, int limit) {
+        if (auditLog == null) {
+            throw new IllegalStateException("The audit log is disabled.");
+        }
+        if (!getServer().isPrimaryThread()) {
+            return onPrimaryThread(() -> getStatusHistory(uuid, offset, limit)).thenCompose(Function.identity());
+        }
+        return auditLog.getHistory(uuid, offset, limit);
+    }
+
+    /**
+     * @return whether status transitions are recorded in the {@link AuditLog}.
+     */
+    public boolean isAuditEnabled() {
+        return auditLog != null;
+    }
+
+    /**
+     * Creates a snapshot of the counters of the expiry wheel.
+     *
+     * <p>Calls from other threads block until the main thread has taken the snapshot.
+     *
+     * @return the current statistics of the expiry wheel, including the number of pending expirations.
+     * @see ExpiryWheel
+     */
+    public @NotNull ExpiryStats getExpiryStats() {
+        if (!getServer().isPrimaryThread()) {
+            return awaitPrimaryThread(this::getExpiryStats);
+        }
+        return expiryWheel.getStats();
+    }
+
+    /**
+     * Creates a snapshot of the counters of the cross-server synchronisation.
+     *
+     * @return the current statistics of the synchronisation, or {@code null} if it is disabled.
+     * @see StatusSync
+     */
+    public @Nullable SyncStats getSyncStats() {
+        return statusSync == null ? null : statusSync.getStats();
+    }
+
+    /**
+     * Estimates the memory retained by the statuses held by this plug-in.
+     *
+     * <p>This includes the statuses of online players, the statuses of offline
+     * players which are still cached, as well as whatever the status store keeps
+     * on the heap.
+     *
+     * @return the number of entries and the estimated number of retained bytes.
+     * @see MemoryUsage
+     */
+    public @NotNull MemoryUsage getMemoryUsage() {
+        return statusCache.estimateMemory();
     }
 
     /**
@@ -161,11 +1056,17 @@ public final class StatusPlugin extends JavaPlugin {
      * distributes the event to all registered event listeners. If any of these
      * event listeners cancels the event, this method will throw an
      * {@link EventCancelledException} and the player's status will remain active.
+     * If no listener is registered for the event, it is neither created nor fired.
      *
      * <p>If the event is not cancelled, the status of the player is removed from
-     * the {@code statusMap}. Lastly, the {@link #refreshTab(Player)} method is
-     * called to ensure the updated (empty) status is properly displayed on the
-     * game's player tab.
+     * the {@link StatusCache} as well as from the {@link StatusStore}. Lastly, the
+     * {@link #refreshTab(Player)} method is called to ensure the updated (empty)
+     * status is properly displayed on the game's player tab.
+     *
+     * <p>Calls from other threads are handed over to the main thread and block
+     * until the status has been cleared. Threads which must not block, or which
+     * the main thread may be waiting for, should use
+     * {@link #clearStatusAsync(Player)} instead.
      *
      * @param player the player whose status is to be cleared.
      *               Must be non-{@code null}.
@@ -175,30 +1076,351 @@ public final class StatusPlugin extends JavaPlugin {
      * @see EventCancelledException
      */
     public void clearStatus(@NotNull Player player) throws EventCancelledException {
-        Optional<String> status = getStatus(player);
-        if (status.isPresent()) {
-            ClearStatusEvent clearStatusEvent = new ClearStatusEvent(player, status.get());
-            getServer().getPluginManager().callEvent(clearStatusEvent);
-            if (clearStatusEvent.isCancelled()) {
-                throw new EventCancelledException();
-            }
-            statusMap.remove(player.getUniqueId());
-            refreshTab(player);
+        if (!getServer().isPrimaryThread()) {
+            awaitPrimaryThread(() -> {
+                clearStatus(player);
+                return null;
+            });
+            return;
+        }
+        clearStatus(player, AuditAction.CLEAR);
+    }
+
+    /**
+     * Clears the status of a provided player and records the given transition.
+     *
+     * @param player the player whose status is to be cleared. Must be non-{@code null}.
+     * @param action the transition recorded in the {@link AuditLog}. Must be non-{@code null}.
+     * @throws EventCancelledException if any event listener cancels the {@link ClearStatusEvent}.
+     * @see #clearStatus(Player)
+     */
+    private void clearStatus(@NotNull Player player, @NotNull AuditAction action) throws EventCancelledException {
+        String status = peekStatus(player);
+        if (status != null) {
+            if (hasListeners(ClearStatusEvent.getHandlerList())) {
+                ClearStatusEvent clearStatusEvent = new ClearStatusEvent(player, status);
+                callEvent(clearStatusEvent);
+                if (clearStatusEvent.isCancelled()) {
+                    audit(player.getUniqueId(), AuditAction.CANCEL, status);
+                    throw cancelled();
+                }
+            }
+            applyClear(player, status, action);
+        }
+    }
+
+    /**
+     * Changes the statuses of several players at once, firing a single event.
+     *
+     * <p>Each status is compiled through the {@link StatusFormatter} just like in
+     * {@link #setStatus(Player, String)}, players who are offline or whose status
+     * has no visible characters are left out. Instead of one {@link SetStatusEvent} per player,
+     * a single {@link BulkStatusEvent} of type {@link BulkStatusEvent.Type#SET}
+     * is fired. Listeners may cancel the whole operation, exclude single players
+     * or replace their statuses. Players added to the event by a listener
+     * are ignored. Only replaced statuses are compiled and checked again
+     * afterwards, all others keep their compiled form. Players whose
+     * replacement has no visible characters or contains a blocked term are
+     * left out and recorded as cancelled.
+     *
+     * <p>The statuses of all remaining players are then applied, and their tab
+     * entries are refreshed within the same coalesced refresh pass.
+     *
+     * @param statuses a map relating each player to their new status. Must be non-{@code null}.
+     * @return a map relating each player whose status was changed to their compiled status.
+     * @throws EventCancelledException if any event listener cancels the {@link BulkStatusEvent}.
+     * @see BulkStatusEvent
+     */
+    public @NotNull Map<Player, String> setStatuses(@NotNull Map<? extends Player, String> statuses) throws EventCancelledException {
+        if (!getServer().isPrimaryThread()) {
+            return awaitPrimaryThread(() -> setStatuses(statuses));
+        }
+        Map<Player, CompiledStatus> compiledStatuses = new HashMap<>();
+        Map<Player, String> compiled = new LinkedHashMap<>();
+        statuses.forEach((player, status) -> {
+            CompiledStatus compiledStatus = statusFormatter.compile(status);
+            if (player.isOnline() && !compiledStatus.isBlank() && !isBlocked(compiledStatus)) {
+                compiledStatuses.put(player, compiledStatus);
+                compiled.put(player, compiledStatus.rendered());
+            }
+        });
+
+        BulkStatusEvent bulkStatusEvent = new BulkStatusEvent(BulkStatusEvent.Type.SET, new LinkedHashMap<>(compiled));
+        callEvent(bulkStatusEvent);
+        if (bulkStatusEvent.isCancelled()) {
+            compiled.forEach((player, status) -> audit(player.getUniqueId(), AuditAction.CANCEL, status));
+            throw cancelled();
+        }
+
+        Map<Player, String> applied = new LinkedHashMap<>();
+        compiled.forEach((player, original) -> { // players added by a listener have passed none of the checks
+            String status = bulkStatusEvent.getStatuses().get(player);
+            if (status == null) { // excluded by a listener
+                return;
+            }
+            CompiledStatus compiledStatus = compiledStatuses.get(player);
+            if (!original.equals(status)) { // replaced by a listener
+                compiledStatus = statusFormatter.compile(status);
+                if (compiledStatus.isBlank() || isBlocked(compiledStatus)) {
+                    audit(player.getUniqueId(), AuditAction.CANCEL, original);
+                    return;
+                }
+            }
+            applied.put(player, applyStatus(player, compiledStatus.rendered(), 0));
+        });
+        return applied;
+    }
+
+    /**
+     * Clears the statuses of several players at once, firing a single event.
+     *
+     * <p>Players without a status are left out. Instead of one
+     * {@link ClearStatusEvent} per player, a single {@link BulkStatusEvent} of
+     * type {@link BulkStatusEvent.Type#CLEAR} is fired. Listeners may cancel the
+     * whole operation or exclude single players, players added to the event by
+     * a listener are ignored. The tab entries of all cleared players are
+     * refreshed within the same coalesced refresh pass.
+     *
+     * @param players the players whose statuses are to be cleared. Must be non-{@code null}.
+     * @return the players whose status was cleared.
+     * @throws EventCancelledException if any event listener cancels the {@link BulkStatusEvent}.
+     * @see BulkStatusEvent
+     */
+    public @NotNull Set<Player> clearStatuses(@NotNull Collection<? extends Player> players) throws EventCancelledException {
+        if (!getServer().isPrimaryThread()) {
+            return awaitPrimaryThread(() -> clearStatuses(players));
+        }
+        Map<Player, String> statuses = new LinkedHashMap<>();
+        for (Player player : players) {
+            String status = peekStatus(player);
+            if (status != null) {
+                statuses.put(player, status);
+            }
+        }
+
+        BulkStatusEvent bulkStatusEvent = new BulkStatusEvent(BulkStatusEvent.Type.CLEAR, new LinkedHashMap<>(statuses));
+        callEvent(bulkStatusEvent);
+        if (bulkStatusEvent.isCancelled()) {
+            statuses.forEach((player, status) -> audit(player.getUniqueId(), AuditAction.CANCEL, status));
+            throw cancelled();
+        }
+
+        Set<Player> cleared = new LinkedHashSet<>();
+        statuses.forEach((player, status) -> {
+            if (bulkStatusEvent.getStatuses().containsKey(player)) { // not excluded by a listener
+                applyClear(player, status, AuditAction.CLEAR);
+                cleared.add(player);
+            }
+        });
+        return cleared;
+    }
+
+    /**
+     * Stores an already compiled status of a player after its event has passed.
+     *
+     * <p>The status is put into the {@link StatusCache}, handed to the
+     * {@link StatusStore} and, if enabled, published to the other servers,
+     * each along with its expiry. Lastly, the player tab is refreshed.
+     *
+     * @param player    the player whose status is changed. Must be non-{@code null}.
+     * @param status    the compiled status. Must be non-{@code null}.
+     * @param expiresAt the epoch millis at which the status expires, or {@code 0} if it does not expire.
+     * @return the canonical instance of the status.
+     */
+    private @NotNull String applyStatus(@NotNull Player player, @NotNull String status, long expiresAt) {
+        expiryWheel.cancel(player.getUniqueId());
+        metrics.increment(StatusMetrics.Counter.STATUS_SET);
+        status = statusCache.put(player.getUniqueId(), status);
+        storeStatus(player.getUniqueId(), status, expiresAt);
+        if (statusSync != null) {
+            statusSync.publish(player.getUniqueId(), status, expiresAt);
+        }
+        audit(player.getUniqueId(), AuditAction.SET, status);
+
+        refreshTab(player);
+        return status;
+    }
+
+    /**
+     * Hands a status to the {@link StatusStore} and schedules its expiry, if any.
+     *
+     * @param uuid      the unique ID of the player. Must be non-{@code null}.
+     * @param status    the status. Must be non-{@code null}.
+     * @param expiresAt the epoch millis at which the status expires, or {@code 0} if it does not expire.
+     */
+    private void storeStatus(@NotNull UUID uuid, @NotNull String status, long expiresAt) {
+        if (expiresAt == 0) {
+            statusStore.put(uuid, status);
+            return;
+        }
+        statusStore.put(uuid, status, expiresAt);
+        scheduleExpiry(uuid, expiresAt);
+    }
+
+    /**
+     * Removes the status of a player after its event has passed.
+     *
+     * @param player the player whose status is cleared. Must be non-{@code null}.
+     * @param status the status which is cleared.
+     * @param action the transition recorded in the {@link AuditLog}. Must be non-{@code null}.
+     * @see #applyStatus(Player, String, long)
+     */
+    private void applyClear(@NotNull Player player, @Nullable String status, @NotNull AuditAction action) {
+        expiryWheel.cancel(player.getUniqueId());
+        metrics.increment(StatusMetrics.Counter.STATUS_CLEARED);
+        statusCache.remove(player.getUniqueId());
+        statusStore.remove(player.getUniqueId());
+        if (statusSync != null) {
+            statusSync.publish(player.getUniqueId(), null, 0);
+        }
+        audit(player.getUniqueId(), action, status);
+        refreshTab(player);
+    }
+
+    /**
+     * Clears the status of a provided player from any thread.
+     *
+     * <p>This method hands the call to {@link #clearStatus(Player)} over to the
+     * main thread, so the {@link ClearStatusEvent} is fired there. If this method
+     * is called from the main thread, the status is cleared immediately.
+     *
+     * @param player the player whose status is to be cleared.
+     *               Must be non-{@code null}.
+     * @return a future which is completed once the status has been cleared, or completed
+     * exceptionally with an {@link EventCancelledException} if the event was cancelled.
+     * @see #clearStatus(Player)
+     */
+    public @NotNull CompletableFuture<Void> clearStatusAsync(@NotNull Player player) {
+        return onPrimaryThread(() -> {
+            clearStatus(player);
+            return null;
+        });
+    }
+
+    /**
+     * Runs the given action on the main thread and exposes its result as a future.
+     *
+     * <p>The action is run immediately if the calling thread is the main thread.
+     *
+     * @param action the action to run. Must be non-{@code null}.
+     * @param <T>    the type of the result.
+     * @return a future which is completed with the result of the action.
+     */
+    private <T> @NotNull CompletableFuture<T> onPrimaryThread(@NotNull Supplier<T> action) {
+        if (getServer().isPrimaryThread()) {
+            try {
+                return CompletableFuture.completedFuture(action.get());
+            } catch (RuntimeException runtimeException) {
+                return CompletableFuture.failedFuture(runtimeException);
+            }
+        }
+        return CompletableFuture.supplyAsync(action, runnable -> getServer().getScheduler().runTask(this, runnable));
+    }
+
+    /**
+     * Runs the given action on the main thread and waits for its result.
+     *
+     * <p>This is how the synchronous methods of this plug-in serve callers on
+     * other threads. Exceptions thrown by the action, such as an
+     * {@link EventCancelledException}, are rethrown on the calling thread.
+     *
+     * @param action the action to run. Must be non-{@code null}.
+     * @param <T>    the type of the result.
+     * @return the result of the action.
+     */
+    private <T> T awaitPrimaryThread(@NotNull Supplier<T> action) {
+        try {
+            return onPrimaryThread(action).join();
+        } catch (CompletionException completionException) {
+            if (completionException.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (completionException.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw completionException;
+        }
+    }
+
+    /**
+     * Checks the visible text of the given status against the blocked terms.
+     *
+     * @param compiledStatus the compiled status. Must be non-{@code null}.
+     * @return {@code true} if the status contains a blocked term.
+     */
+    private boolean isBlocked(@NotNull CompiledStatus compiledStatus) {
+        return statusFilter != null && statusFilter.check(compiledStatus.plain()) != null;
+    }
+
+    /**
+     * Passes the given event to its listeners and records the time this took.
+     *
+     * @param event the event to fire. Must be non-{@code null}.
+     */
+    private void callEvent(@NotNull Event event) {
+        long start = metrics.start();
+        getServer().getPluginManager().callEvent(event);
+        metrics.stop(StatusMetrics.Timer.EVENT_DISPATCH, start);
+    }
+
+    /**
+     * Records a status transition in the {@link AuditLog}, if it is enabled.
+     *
+     * @param uuid   the unique ID of the player. Must be non-{@code null}.
+     * @param action the kind of transition. Must be non-{@code null}.
+     * @param status the status affected by the transition, or {@code null} if it is not known.
+     */
+    private void audit(@NotNull UUID uuid, @NotNull AuditAction action, @Nullable String status) {
+        if (auditLog != null) {
+            auditLog.record(uuid, action, status);
         }
     }
 
+    /**
+     * Counts a cancelled status change and creates the exception reporting it.
+     *
+     * @return the exception to be thrown.
+     */
+    private @NotNull EventCancelledException cancelled() {
+        metrics.increment(StatusMetrics.Counter.CANCELLED);
+        return new EventCancelledException();
+    }
+
+    /**
+     * Renders the player list names of all dirty players and records the time this took.
+     *
+     * @see TabRefreshScheduler#flush()
+     */
+    private void flushTab() {
+        long start = metrics.start();
+        tabRefreshScheduler.flush();
+        metrics.stop(StatusMetrics.Timer.TAB_REFRESH, start);
+    }
+
+    /**
+     * Checks whether any listener is registered for the event of the given handler list.
+     *
+     * <p>Events without listeners are neither created nor fired, which saves the
+     * allocation and dispatch on every status change of servers not listening to them.
+     *
+     * @param handlerList the handler list of the event. Must be non-{@code null}.
+     * @return {@code true} if at least one listener is registered.
+     */
+    private static boolean hasListeners(@NotNull HandlerList handlerList) {
+        return handlerList.getRegisteredListeners().length > 0;
+    }
+
     /**
      * Refreshes the player tab for a specified player.
      *
-     * <p>This method retrieves the status of the player and concatenates it with
-     * the player's name. If the player does not have a status, only the player's
-     * name is used. This result is then set as the player list name of the
-     * specified player, thereby refreshing the display of the player's name
-     * in the game tab.
+     * <p>This method does not update the player tab immediately, instead the
+     * player is marked as dirty within the {@link TabRefreshScheduler}. Multiple
+     * refreshes of the same player within a tick are coalesced into one update,
+     * which is sent within one of the following ticks.
      *
      * @param player the player whose player tab is to be refreshed. Must be non-{@code null}.
      */
-    private void refreshTab(@NotNull Player player) {
-        player.setPlayerListName(getStatus(player).map(status -> status + player.getName()).orElse(player.getName()));
+    void refreshTab(@NotNull Player player) {
+        tabRefreshScheduler.markDirty(player);
     }
 }
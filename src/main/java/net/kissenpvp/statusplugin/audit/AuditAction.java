@@ -0,0 +1,48 @@
+/*
+ * Copyright (C) 2023 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+
+package net.kissenpvp.statusplugin.audit;
+
+/**
+ * The kinds of status transitions recorded by the {@link AuditLog}.
+ *
+ * @see AuditEntry
+ */
+public enum AuditAction {
+
+    /**
+     * The status of a player has been set or changed.
+     */
+    SET,
+
+    /**
+     * The status of a player has been cleared.
+     */
+    CLEAR,
+
+    /**
+     * A change of the status of a player has been cancelled by an event listener.
+     */
+    CANCEL,
+
+    /**
+     * A timed status has expired and was removed.
+     */
+    EXPIRE
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright (C) 2023 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+
+package net.kissenpvp.statusplugin.audit;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.UUID;
+
+/**
+ * A single status transition recorded by the {@link AuditLog}.
+ *
+ * @param uuid      the unique ID of the player whose status was affected.
+ * @param timestamp the time of the transition in milliseconds since the epoch.
+ * @param action    the kind of transition.
+ * @param status    the status which was set, cleared, kept by a cancellation or expired,
+ *                  or {@code null} if it was not known at the time, such as when the
+ *                  timed status of an offline player expires.
+ * @see AuditLog#getHistory(UUID, int, int)
+ */
+public record AuditEntry(@NotNull UUID uuid, long timestamp, @NotNull AuditAction action, @Nullable String status) {}
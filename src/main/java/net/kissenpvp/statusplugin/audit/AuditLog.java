@@ -0,0 +1,574 @@
+/*
+ * Copyright (C) 2023 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+
+package net.kissenpvp.statusplugin.audit;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Records the status transitions of all players and answers which statuses a
+ * player had in the past.
+ *
+ * <p>Every transition is kept in two places. For each online player, the
+ * latest transitions are held in an {@link AuditRing} of fixed size, whose
+ * arrays are allocated once and reused for the next player who joins. In
+ * addition, every transition is queued and appended to an append-only log
+ * file by a single background thread, so the main thread never waits on I/O.
+ *
+ * <p>Each record of the log is laid out as
+ * {@code [uuid msb][uuid lsb][previous][timestamp][action][length][utf-8 bytes][crc32][record length]},
+ * where {@code previous} is the end of the previous record of the same player,
+ * or {@code 0} if there is none. The end of the newest record of each player
+ * is kept in an index, so a page of the history of a player is read by
+ * following these back-pointers from their newest record, without touching the
+ * records of any other player. A page thus costs as many reads as it skips and
+ * returns, no matter how large the log has grown or how many players it covers.
+ * Pages covered by the ring of an online player are served from memory right
+ * away.
+ *
+ * <p>The index is written to {@code <log name>.index} next to the log when the
+ * log is closed, along with the length of the log it covers. When the log is
+ * opened, only the records appended after that length are read to bring the
+ * index up to date. If the index is missing or damaged, it is rebuilt from the
+ * whole log.
+ *
+ * <p>A crash in the middle of an append can only leave a torn record at the
+ * very end of the log, which is detected by its checksum and cut off when the
+ * log is opened on the next start-up.
+ *
+ * <p>The rings must only be used from the main thread, that is
+ * {@link #join(UUID)}, {@link #quit(UUID)}, {@link #record(UUID, AuditAction, String)}
+ * and {@link #getHistory(UUID, int, int)} must be called from there.
+ *
+ * @see AuditEntry
+ */
+public class AuditLog {
+
+    private static final int HEADER_SIZE = 4 * Long.BYTES + Byte.BYTES + Short.BYTES;
+    private static final int TRAILER_SIZE = 2 * Integer.BYTES;
+    private static final int NO_STATUS = 0xFFFF;
+    private static final int MAX_STATUS_BYTES = NO_STATUS - 1;
+    private static final int MAX_RECORD_SIZE = HEADER_SIZE + MAX_STATUS_BYTES + TRAILER_SIZE;
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int SCAN_WINDOW = 1 << 12;
+    private static final int INDEX_MAGIC = 0x41554458;
+    private static final int INDEX_VERSION = 1;
+    private static final int INDEX_HEADER_SIZE = 2 * Integer.BYTES + Long.BYTES + Integer.BYTES;
+    private static final int INDEX_ENTRY_SIZE = 3 * Long.BYTES;
+    private static final AuditAction[] ACTIONS = AuditAction.values();
+
+    private final Path file;
+    private final Path indexFile;
+    private final Logger logger;
+    private final int historySize;
+    private final Map<UUID, AuditRing> rings = new HashMap<>();
+    private final Map<UUID, Long> latest = new HashMap<>();
+    private final Map<UUID, Long> appended = new HashMap<>();
+    private final Deque<AuditRing> pool = new ArrayDeque<>();
+    private final Queue<AuditEntry> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    private final ExecutorService executor;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final CRC32 crc = new CRC32();
+    private FileChannel channel;
+    private long committed;
+
+    /**
+     * Constructor for creating a new {@code AuditLog}.
+     *
+     * <p>The log does not touch the file system until {@link #open()} is called.
+     * Its index is kept next to it, named like it with the extension {@code .index}.
+     *
+     * @param file        the path of the log file. Must be non-{@code null}.
+     * @param logger      the logger used to report I/O failures. Must be non-{@code null}.
+     * @param historySize the number of transitions held in memory per online player. Must be positive.
+     */
+    public AuditLog(@NotNull Path file, @NotNull Logger logger, int historySize) {
+        if (historySize < 1) {
+            throw new IllegalArgumentException("The history size must be positive.");
+        }
+        this.file = file;
+        String name = file.getFileName().toString();
+        this.indexFile = file.resolveSibling((name.lastIndexOf('.') > 0 ? name.substring(0, name.lastIndexOf('.')) : name) + ".index");
+        this.logger = logger;
+        this.historySize = historySize;
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "StatusPlugin-Audit");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Opens the log for appending, brings its index up to date and cuts off a
+     * torn record at its end, if present.
+     *
+     * @throws IOException if the log could not be opened or repaired.
+     */
+    public void open() throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long covered = readIndex();
+        if (covered < 0 || covered > channel.size()) {
+            latest.clear(); // the index does not belong to this log, rebuild it
+            covered = 0;
+        }
+        long valid = index(covered);
+        if (valid < channel.size()) {
+            logger.warning(String.format("Discarding %d bytes from a damaged record at the end of %s.", channel.size() - valid, file.getFileName()));
+            channel.truncate(valid);
+            channel.force(true);
+        }
+        channel.position(valid);
+        committed = valid;
+    }
+
+    /**
+     * Assigns a ring to a player who has joined, taking it from the pool if possible.
+     *
+     * @param uuid the unique ID of the player. Must be non-{@code null}.
+     */
+    public void join(@NotNull UUID uuid) {
+        rings.computeIfAbsent(uuid, ignored -> pool.isEmpty() ? new AuditRing(historySize) : pool.pop());
+    }
+
+    /**
+     * Returns the ring of a player who has left into the pool.
+     *
+     * <p>The transitions it held remain available from the log.
+     *
+     * @param uuid the unique ID of the player. Must be non-{@code null}.
+     */
+    public void quit(@NotNull UUID uuid) {
+        AuditRing ring = rings.remove(uuid);
+        if (ring != null) {
+            ring.clear();
+            pool.push(ring);
+        }
+    }
+
+    /**
+     * Records a status transition.
+     *
+     * <p>The transition is added to the ring of the player, if they are online,
+     * and queued to be appended to the log in the background.
+     *
+     * @param uuid   the unique ID of the player. Must be non-{@code null}.
+     * @param action the kind of transition. Must be non-{@code null}.
+     * @param status the status affected by the transition, or {@code null} if it is not known.
+     */
+    public void record(@NotNull UUID uuid, @NotNull AuditAction action, @Nullable String status) {
+        long timestamp = System.currentTimeMillis();
+        AuditRing ring = rings.get(uuid);
+        if (ring != null) {
+            ring.add(timestamp, action, status);
+        }
+
+        pending.add(new AuditEntry(uuid, timestamp, action, status));
+        if (drainScheduled.compareAndSet(false, true)) {
+            executor.execute(this::drainQuietly);
+        }
+    }
+
+    /**
+     * Retrieves a page of the transitions of a player, newest first.
+     *
+     * <p>If the page is covered by the ring of an online player, the returned
+     * future is already completed. Otherwise, the log is read backwards on the
+     * background thread, after all transitions recorded so far have been
+     * appended to it.
+     *
+     * @param uuid   the unique ID of the player. Must be non-{@code null}.
+     * @param offset the number of newer transitions to skip. Must not be negative.
+     * @param limit  the maximum number of transitions to return. Must not be negative.
+     * @return a future which is completed with the transitions, or completed
+     * exceptionally if the log could not be read.
+     * @throws IllegalArgumentException if the offset or the limit is negative.
+     */
+    public @NotNull CompletableFuture<List<AuditEntry>> getHistory(@NotNull UUID uuid, int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("The offset and the limit must not be negative.");
+        }
+        AuditRing ring = rings.get(uuid);
+        if (ring != null && limit <= ring.size() - offset) {
+            List<AuditEntry> entries = new ArrayList<>(limit);
+            for (int age = offset; age < offset + limit; age++) {
+                entries.add(ring.get(uuid, age));
+            }
+            return CompletableFuture.completedFuture(entries);
+        }
+
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                drain();
+                return scan(uuid, offset, limit);
+            } catch (IOException ioException) {
+                throw new UncheckedIOException(ioException);
+            }
+        }, executor);
+    }
+
+    /**
+     * Appends the remaining transitions to the log, closes it and writes its index.
+     */
+    public void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                logger.warning("The audit thread did not terminate in time.");
+            }
+        } catch (InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (channel == null) {
+            return;
+        }
+        try {
+            drain();
+            channel.force(false);
+            channel.close();
+            channel = null;
+        } catch (IOException ioException) {
+            logger.log(Level.SEVERE, "Could not append pending transitions to the audit log.", ioException);
+            return; // the index would not match the log
+        }
+
+        try {
+            writeIndex();
+        } catch (IOException ioException) {
+            logger.log(Level.WARNING, "Could not write the index of the audit log, it is rebuilt on the next start-up.", ioException);
+        }
+    }
+
+    /**
+     * Appends all queued transitions to the log.
+     *
+     * <p>The index only learns of the appended records once all of them have
+     * been written, so it never points behind the end of the log if writing
+     * fails half-way.
+     *
+     * <p>This method must only be called from the background thread, or once it has terminated.
+     *
+     * @throws IOException if the transitions could not be written.
+     */
+    private void drain() throws IOException {
+        drainScheduled.set(false); // transitions queued from now on schedule another drain
+        AuditEntry entry;
+        while ((entry = pending.poll()) != null) {
+            byte[] status = encode(entry.status());
+            int length = HEADER_SIZE + (status == null ? 0 : status.length) + TRAILER_SIZE;
+            if (buffer.remaining() < length) {
+                writeBuffer();
+            }
+
+            ByteBuffer target = length <= buffer.capacity() ? buffer : ByteBuffer.allocate(length);
+            int start = target.position();
+            long end = channel.position() + buffer.position() + length; // the buffer is empty if the record does not fit
+            Long previous = appended.put(entry.uuid(), end);
+            if (previous == null) {
+                previous = latest.getOrDefault(entry.uuid(), 0L);
+            }
+            target.putLong(entry.uuid().getMostSignificantBits())
+                    .putLong(entry.uuid().getLeastSignificantBits())
+                    .putLong(previous)
+                    .putLong(entry.timestamp())
+                    .put((byte) entry.action().ordinal())
+                    .putShort((short) (status == null ? NO_STATUS : status.length));
+            if (status != null) {
+                target.put(status);
+            }
+            crc.reset();
+            crc.update(target.array(), start, target.position() - start);
+            target.putInt((int) crc.getValue()).putInt(length);
+
+            if (target != buffer) {
+                target.flip();
+                write(target);
+            }
+        }
+        writeBuffer();
+        committed = channel.position();
+        latest.putAll(appended);
+        appended.clear();
+    }
+
+    private void drainQuietly() {
+        try {
+            drain();
+        } catch (IOException ioException) {
+            buffer.clear();
+            appended.clear();
+            logger.log(Level.SEVERE, "Could not append transitions to the audit log, they are lost.", ioException);
+            try {
+                channel.truncate(committed); // do not leave a torn record in front of later ones
+                channel.position(committed);
+            } catch (IOException truncateException) {
+                logger.log(Level.SEVERE, "Could not repair the audit log.", truncateException);
+            }
+        }
+    }
+
+    private void writeBuffer() throws IOException {
+        buffer.flip();
+        write(buffer);
+        buffer.clear();
+    }
+
+    private void write(@NotNull ByteBuffer source) throws IOException {
+        while (source.hasRemaining()) {
+            channel.write(source);
+        }
+    }
+
+    private static byte @Nullable [] encode(@Nullable String status) {
+        if (status == null) {
+            return null;
+        }
+        byte[] bytes = status.getBytes(StandardCharsets.UTF_8);
+        return bytes.length > MAX_STATUS_BYTES ? Arrays.copyOf(bytes, MAX_STATUS_BYTES) : bytes;
+    }
+
+    /**
+     * Follows the back-pointers from the newest record of a player and collects their transitions.
+     *
+     * @param uuid   the unique ID of the player. Must be non-{@code null}.
+     * @param offset the number of newer transitions to skip.
+     * @param limit  the maximum number of transitions to collect.
+     * @return the transitions, newest first.
+     * @throws IOException if the log could not be read.
+     */
+    private @NotNull List<AuditEntry> scan(@NotNull UUID uuid, int offset, int limit) throws IOException {
+        List<AuditEntry> entries = new ArrayList<>(Math.min(limit, 64));
+        ReverseReader reader = new ReverseReader(channel, SCAN_WINDOW);
+        long end = latest.getOrDefault(uuid, 0L);
+        int skipped = 0;
+        while (end > 0 && entries.size() < limit) {
+            ByteBuffer window = reader.read(end - Integer.BYTES, Integer.BYTES);
+            int length = window.getInt(window.position());
+            if (length < HEADER_SIZE + TRAILER_SIZE || length > Math.min(end, MAX_RECORD_SIZE)) {
+                logger.warning(String.format("The audit log is damaged %d bytes from its start, older transitions are not shown.", end));
+                break;
+            }
+
+            window = reader.read(end - length, length);
+            int start = window.position();
+            long previous = window.getLong(start + 2 * Long.BYTES);
+            if (!isValid(window, start, length) || window.getLong(start) != uuid.getMostSignificantBits() || window.getLong(start + Long.BYTES) != uuid.getLeastSignificantBits() || previous > end - length) {
+                logger.warning(String.format("The audit log is damaged %d bytes from its start, older transitions are not shown.", end - length));
+                break;
+            }
+            end = previous;
+            if (skipped < offset) {
+                skipped++;
+                continue;
+            }
+            entries.add(decode(uuid, window, start));
+        }
+        return entries;
+    }
+
+    /**
+     * Reads the log forwards from the given position and records the end of
+     * the newest record of each player in the index.
+     *
+     * @param from the position of the first record which is not indexed yet.
+     * @return the end of the last intact record of the log.
+     * @throws IOException if the log could not be read.
+     */
+    private long index(long from) throws IOException {
+        channel.position(from);
+        DataInputStream inputStream = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), BUFFER_SIZE));
+        byte[] header = new byte[HEADER_SIZE];
+        long valid = from;
+        try {
+            while (true) {
+                inputStream.readFully(header);
+                int statusLength = ((header[HEADER_SIZE - 2] & 0xFF) << 8) | (header[HEADER_SIZE - 1] & 0xFF);
+                int length = HEADER_SIZE + (statusLength == NO_STATUS ? 0 : statusLength) + TRAILER_SIZE;
+                byte[] record = Arrays.copyOf(header, length);
+                inputStream.readFully(record, HEADER_SIZE, length - HEADER_SIZE);
+                ByteBuffer wrapped = ByteBuffer.wrap(record);
+                if (!isValid(wrapped, 0, length)) {
+                    break;
+                }
+                valid += length;
+                latest.put(new UUID(wrapped.getLong(0), wrapped.getLong(Long.BYTES)), valid);
+            }
+        } catch (EOFException eofException) {
+            // the last record is incomplete
+        }
+        return valid; // the stream is not closed, as that would close the channel
+    }
+
+    /**
+     * Reads the index written when the log was closed last.
+     *
+     * @return the length of the log covered by the index, or {@code -1} if
+     * there is no index or it is damaged, in which case nothing has been read.
+     */
+    private long readIndex() {
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(indexFile);
+        } catch (NoSuchFileException noSuchFileException) {
+            return -1;
+        } catch (IOException ioException) {
+            logger.log(Level.WARNING, "Could not read the index of the audit log, it is rebuilt.", ioException);
+            return -1;
+        }
+
+        ByteBuffer index = ByteBuffer.wrap(bytes);
+        if (bytes.length < INDEX_HEADER_SIZE + Integer.BYTES || index.getInt() != INDEX_MAGIC || index.getInt() != INDEX_VERSION) {
+            logger.warning("The index of the audit log is damaged, it is rebuilt.");
+            return -1;
+        }
+        long covered = index.getLong();
+        int count = index.getInt();
+        crc.reset();
+        crc.update(bytes, 0, bytes.length - Integer.BYTES);
+        if (count < 0 || bytes.length != INDEX_HEADER_SIZE + (long) count * INDEX_ENTRY_SIZE + Integer.BYTES || index.getInt(bytes.length - Integer.BYTES) != (int) crc.getValue()) {
+            logger.warning("The index of the audit log is damaged, it is rebuilt.");
+            return -1;
+        }
+
+        for (int i = 0; i < count; i++) {
+            latest.put(new UUID(index.getLong(), index.getLong()), index.getLong());
+        }
+        return covered;
+    }
+
+    /**
+     * Writes the index into a temporary file first, which replaces the index once it is complete.
+     *
+     * <p>This method must only be called once the log has been closed.
+     *
+     * @throws IOException if the index could not be written.
+     */
+    private void writeIndex() throws IOException {
+        ByteBuffer index = ByteBuffer.allocate(INDEX_HEADER_SIZE + latest.size() * INDEX_ENTRY_SIZE + Integer.BYTES);
+        index.putInt(INDEX_MAGIC).putInt(INDEX_VERSION).putLong(committed).putInt(latest.size());
+        latest.forEach((uuid, end) -> index.putLong(uuid.getMostSignificantBits()).putLong(uuid.getLeastSignificantBits()).putLong(end));
+        crc.reset();
+        crc.update(index.array(), 0, index.position());
+        index.putInt((int) crc.getValue()).flip();
+
+        Path temporary = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+        try (FileChannel indexChannel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (index.hasRemaining()) {
+                indexChannel.write(index);
+            }
+            indexChannel.force(true);
+        }
+        try {
+            Files.move(temporary, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException atomicMoveNotSupportedException) {
+            Files.move(temporary, indexFile, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private boolean isValid(@NotNull ByteBuffer record, int start, int length) {
+        int statusLength = Short.toUnsignedInt(record.getShort(start + HEADER_SIZE - Short.BYTES));
+        int expected = HEADER_SIZE + (statusLength == NO_STATUS ? 0 : statusLength) + TRAILER_SIZE;
+        if (expected != length || record.getInt(start + length - Integer.BYTES) != length || record.get(start + 4 * Long.BYTES) >= ACTIONS.length) {
+            return false;
+        }
+
+        crc.reset();
+        crc.update(record.array(), record.arrayOffset() + start, length - TRAILER_SIZE);
+        return record.getInt(start + length - TRAILER_SIZE) == (int) crc.getValue();
+    }
+
+    private static @NotNull AuditEntry decode(@NotNull UUID uuid, @NotNull ByteBuffer record, int start) {
+        long timestamp = record.getLong(start + 3 * Long.BYTES);
+        AuditAction action = ACTIONS[record.get(start + 4 * Long.BYTES)];
+        int statusLength = Short.toUnsignedInt(record.getShort(start + HEADER_SIZE - Short.BYTES));
+        String status = statusLength == NO_STATUS ? null : new String(record.array(), record.arrayOffset() + start + HEADER_SIZE, statusLength, StandardCharsets.UTF_8);
+        return new AuditEntry(uuid, timestamp, action, status);
+    }
+
+    /**
+     * Reads a file backwards through a window which is moved towards its start.
+     */
+    private static final class ReverseReader {
+
+        private final FileChannel channel;
+        private ByteBuffer window;
+        private long start;
+        private long end;
+
+        private ReverseReader(@NotNull FileChannel channel, int capacity) {
+            this.channel = channel;
+            this.window = ByteBuffer.allocate(capacity);
+        }
+
+        /**
+         * Makes the given range of the file available within the window.
+         *
+         * <p>If the range is not within the window yet, the window is moved so
+         * that it ends with the range, so the bytes in front of it are read
+         * along with it.
+         *
+         * @param from   the position of the first byte of the range.
+         * @param length the length of the range.
+         * @return the window, positioned at the start of the range.
+         * @throws IOException if the file could not be read.
+         */
+        private @NotNull ByteBuffer read(long from, int length) throws IOException {
+            if (from < start || from + length > end) {
+                if (window.capacity() < length) {
+                    window = ByteBuffer.allocate(length);
+                }
+                end = from + length;
+                start = Math.max(0, end - window.capacity());
+                window.clear().limit((int) (end - start));
+                while (window.hasRemaining()) {
+                    if (channel.read(window, start + window.position()) < 0) {
+                        throw new EOFException("The audit log ends unexpectedly.");
+                    }
+                }
+            }
+            window.limit((int) (end - start)).position((int) (from - start));
+            return window;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2023 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+
+package net.kissenpvp.statusplugin.audit;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * A fixed-size ring buffer holding the latest status transitions of one player.
+ *
+ * <p>The entries are stored column-wise within arrays which are allocated
+ * once, so recording a transition does not allocate anything. Once the ring is
+ * full, each new transition overwrites the oldest one. Rings are pooled by the
+ * {@link AuditLog} and reused for the next player who joins.
+ *
+ * <p>This class is not thread safe and must only be used from the main thread.
+ */
+final class AuditRing {
+
+    private final long[] timestamps;
+    private final AuditAction[] actions;
+    private final String[] statuses;
+    private int next;
+    private int size;
+
+    /**
+     * Constructor for creating a new {@code AuditRing}.
+     *
+     * @param capacity the number of transitions this ring holds. Must be positive.
+     */
+    AuditRing(int capacity) {
+        this.timestamps = new long[capacity];
+        this.actions = new AuditAction[capacity];
+        this.statuses = new String[capacity];
+    }
+
+    /**
+     * Records a transition, overwriting the oldest one if this ring is full.
+     *
+     * @param timestamp the time of the transition in milliseconds since the epoch.
+     * @param action    the kind of transition. Must be non-{@code null}.
+     * @param status    the status affected by the transition.
+     */
+    void add(long timestamp, @NotNull AuditAction action, @Nullable String status) {
+        timestamps[next] = timestamp;
+        actions[next] = action;
+        statuses[next] = status;
+        next = (next + 1) % timestamps.length;
+        size = Math.min(size + 1, timestamps.length);
+    }
+
+    /**
+     * Retrieves a recorded transition by its age.
+     *
+     * @param uuid the unique ID of the player owning this ring. Must be non-{@code null}.
+     * @param age  the age of the transition, {@code 0} being the latest one. Must be less than {@link #size()}.
+     * @return the transition.
+     */
+    @NotNull AuditEntry get(@NotNull UUID uuid, int age) {
+        int index = Math.floorMod(next - 1 - age, timestamps.length);
+        return new AuditEntry(uuid, timestamps[index], actions[index], statuses[index]);
+    }
+
+    /**
+     * @return the number of transitions held by this ring.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Drops all transitions, so this ring can be reused for another player.
+     */
+    void clear() {
+        Arrays.fill(actions, null);
+        Arrays.fill(statuses, null);
+        next = 0;
+        size = 0;
+    }
+}
@@ -0,0 +1,31 @@
+/*
+ * Copyright (C) 2023 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+package net.kissenpvp.statusplugin.cache;
+
+/**
+ * An immutable snapshot of the counters of a {@link StatusCache}.
+ *
+ * @param hits      the number of lookups which were answered from memory.
+ * @param misses    the number of lookups which had to read from the status store.
+ * @param evictions the number of statuses of offline players which were dropped from memory.
+ * @param online    the number of online players who currently have a status.
+ * @param offline   the number of offline players whose status is still kept in memory.
+ * @see StatusCache#getStats()
+ */
+public record CacheStats(long hits, long misses, long evictions, int online, int offline) {}
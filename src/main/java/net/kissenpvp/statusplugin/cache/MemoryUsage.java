@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2023 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+package net.kissenpvp.statusplugin.cache;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * An estimation of the memory retained by the statuses held by the plug-in.
+ *
+ * <p>The byte counts are estimations based on the layout of a typical 64-bit
+ * JVM with compressed references and compact strings. They include the map
+ * entries, keys and values, but not the backing tables of the maps.
+ *
+ * @param onlineEntries  the number of statuses of online players held in memory.
+ * @param offlineEntries the number of statuses of offline players held in memory.
+ * @param cacheBytes     the estimated number of bytes retained by the {@link StatusCache}.
+ * @param storeBytes     the estimated number of bytes retained by the status store.
+ * @see StatusCache#estimateMemory()
+ */
+public record MemoryUsage(int onlineEntries, int offlineEntries, long cacheBytes, long storeBytes) {
+
+    /**
+     * The estimated size of a {@link java.util.UUID}, consisting of an object header and two longs.
+     */
+    public static final int UUID_BYTES = 32;
+
+    /**
+     * The estimated size of an entry of a {@link java.util.HashMap} or
+     * {@link java.util.concurrent.ConcurrentHashMap}.
+     */
+    public static final int MAP_ENTRY_BYTES = 32;
+
+    /**
+     * The estimated size of an entry of a {@link java.util.LinkedHashMap}.
+     */
+    public static final int LINKED_MAP_ENTRY_BYTES = 40;
+
+    /**
+     * The estimated size of a boxed {@link Long}.
+     */
+    public static final int LONG_BYTES = 16;
+
+    /**
+     * Estimates the memory retained by the given string.
+     *
+     * <p>The estimation consists of the string object itself and its backing
+     * array, which stores one byte per character if all characters are Latin-1
+     * and two bytes per character otherwise.
+     *
+     * @param string the string to estimate. Must be non-{@code null}.
+     * @return the estimated number of bytes retained by the string.
+     */
+    public static long estimate(@NotNull String string) {
+        int bytesPerChar = 1;
+        for (int i = 0; i < string.length(); i++) {
+            if (string.charAt(i) > 0xFF) {
+                bytesPerChar = 2;
+                break;
+            }
+        }
+        return 24 + align(16 + (long) string.length() * bytesPerChar);
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    /**
+     * Sums up the number of statuses held in memory.
+     *
+     * @return the number of online and offline entries combined.
+     */
+    public int entries() {
+        return onlineEntries + offlineEntries;
+    }
+
+    /**
+     * Sums up the estimated number of retained bytes.
+     *
+     * @return the estimated number of bytes retained by the cache and the store combined.
+     */
+    public long totalBytes() {
+        return cacheBytes + storeBytes;
+    }
+}
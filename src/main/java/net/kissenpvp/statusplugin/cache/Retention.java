@@ -0,0 +1,56 @@
+/*
+ * Copyright (C) 2023 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+package net.kissenpvp.statusplugin.cache;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Defines what happens to the status of a player when they leave the server.
+ *
+ * <p>The retention is configured through {@code cache.retention}.
+ *
+ * @see StatusCache#release(java.util.UUID)
+ */
+public enum Retention {
+
+    /**
+     * The status is kept in the status store and restored when the player joins again.
+     */
+    STORE,
+
+    /**
+     * The status is discarded when the player leaves the server.
+     */
+    NONE;
+
+    /**
+     * Resolves the retention with the given name, ignoring case.
+     *
+     * @param name the name as written in the configuration. Must be non-{@code null}.
+     * @return the matching retention, or {@link #STORE} if there is none.
+     */
+    public static @NotNull Retention fromName(@NotNull String name) {
+        for (Retention retention : values()) {
+            if (retention.name().equalsIgnoreCase(name)) {
+                return retention;
+            }
+        }
+        return STORE;
+    }
+}
@@ -0,0 +1,388 @@
+/*
+ * Copyright (C) 2023 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+package net.kissenpvp.statusplugin.cache;
+
+import net.kissenpvp.statusplugin.store.StatusStore;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Holds the statuses of the players which are currently relevant to the server.
+ *
+ * <p>The cache is split into two parts. The online part contains the statuses of
+ * all players who are currently online and is what {@link #get(UUID)} reads from.
+ * It is backed by a {@link ConcurrentHashMap}, so it can be read from any thread
+ * without locking or allocating, and it never performs I/O. The offline
+ * part contains the statuses of players who are about to join, as they are
+ * loaded from the {@link StatusStore} while the player is logging in, as well
+ * as the statuses of players who recently left the server, so a quick reconnect
+ * does not require another read.
+ *
+ * <p>Statuses loaded for a player who is logging in are pinned until the player
+ * has joined, so neither the size limit of the offline part nor a burst of other
+ * logins can evict them in between. A pin is dropped after {@value #PIN_SECONDS}
+ * seconds, as the login may have been denied by another plug-in. Should the
+ * status of a joining player not be held in memory nonetheless, the player
+ * joins without a status, which is loaded asynchronously and applied afterwards
+ * through {@link #complete(UUID, String)}.
+ *
+ * <p>The offline part is bounded both by its size and by the time an entry may
+ * remain in it. Whenever one of these limits is exceeded, the oldest entries are
+ * evicted. As every write is handed to the {@link StatusStore} as well, evicted
+ * entries can always be loaded again.
+ *
+ * <p>Whether a status is restored when its player joins again depends on the
+ * configured {@link Retention}.
+ *
+ * <p>Every status held by either part is interned through a {@link StatusInterner},
+ * so players sharing the same status also share the same string instance.
+ *
+ * @see StatusStore
+ * @see StatusInterner
+ * @see CacheStats
+ * @see Retention
+ */
+public class StatusCache {
+
+    private static final String NONE = new String(); // compared by identity, marks a player without status
+    private static final int OFFLINE_BYTES = 24;
+    private static final long PIN_SECONDS = 60;
+
+    private final Map<UUID, String> online = new ConcurrentHashMap<>();
+    private final LinkedHashMap<UUID, Offline> offline = new LinkedHashMap<>();
+    private final LinkedHashMap<UUID, Offline> pinned = new LinkedHashMap<>(); // guarded by offline
+    private final Set<UUID> loading = ConcurrentHashMap.newKeySet();
+    private final StatusStore statusStore;
+    private final Retention retention;
+    private final int maxOffline;
+    private final long offlineExpiryNanos;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final StatusInterner interner = new StatusInterner();
+
+    /**
+     * Constructor for creating a new {@code StatusCache}.
+     *
+     * @param statusStore          the store statuses are loaded from on a miss. Must be non-{@code null}.
+     * @param retention            what happens to the status of a player who leaves. Must be non-{@code null}.
+     * @param maxOffline           the maximum number of offline players whose status is kept in memory.
+     * @param offlineExpirySeconds the time in seconds the status of an offline player is kept in memory.
+     */
+    public StatusCache(@NotNull StatusStore statusStore, @NotNull Retention retention, int maxOffline, long offlineExpirySeconds) {
+        this.statusStore = statusStore;
+        this.retention = retention;
+        this.maxOffline = maxOffline;
+        this.offlineExpiryNanos = TimeUnit.SECONDS.toNanos(offlineExpirySeconds);
+    }
+
+    /**
+     * Retrieves the status of an online player.
+     *
+     * <p>This method may be called from any thread.
+     *
+     * @param uuid the unique ID of the player. Must be non-{@code null}.
+     * @return the status of the player, or {@code null} if the player has none.
+     */
+    public @Nullable String get(@NotNull UUID uuid) {
+        return online.get(uuid);
+    }
+
+    /**
+     * Sets the status of an online player.
+     *
+     * @param uuid   the unique ID of the player. Must be non-{@code null}.
+     * @param status the new status of the player. Must be non-{@code null}.
+     * @return the canonical instance of the status, which is now held by this cache.
+     */
+    public @NotNull String put(@NotNull UUID uuid, @NotNull String status) {
+        loading.remove(uuid); // a pending load must not overwrite this status
+        String canonical = interner.intern(status);
+        release(online.put(uuid, canonical));
+        return canonical;
+    }
+
+    /**
+     * Removes the status of an online player.
+     *
+     * @param uuid the unique ID of the player. Must be non-{@code null}.
+     */
+    public void remove(@NotNull UUID uuid) {
+        loading.remove(uuid);
+        release(online.remove(uuid));
+    }
+
+    /**
+     * Makes sure the status of a player who is logging in is held in memory
+     * and pins it until the player has joined.
+     *
+     * <p>This method reads from the {@link StatusStore} unless the status is
+     * still cached from a previous session, and must therefore only be called
+     * from asynchronous threads.
+     *
+     * @param uuid the unique ID of the player. Must be non-{@code null}.
+     * @throws IOException if the status could not be loaded from the store.
+     */
+    public void preload(@NotNull UUID uuid) throws IOException {
+        synchronized (offline) {
+            if (pinned.containsKey(uuid)) {
+                hits.increment();
+                return;
+            }
+            Offline cached = offline.remove(uuid);
+            if (cached != null && !isExpired(cached, System.nanoTime())) {
+                hits.increment();
+                pinned.put(uuid, new Offline(cached.status(), System.nanoTime()));
+                return;
+            }
+            if (cached != null) {
+                evict(cached);
+            }
+        }
+
+        misses.increment();
+        String loaded = statusStore.load(uuid);
+        String status = loaded == null ? NONE : interner.intern(loaded);
+        synchronized (offline) {
+            Offline newer = offline.remove(uuid); // released by a quitting session in the meantime
+            if (newer != null) {
+                release(status);
+                status = newer.status();
+            }
+            Offline previous = pinned.put(uuid, new Offline(status, System.nanoTime()));
+            if (previous != null) {
+                release(previous.status());
+            }
+        }
+    }
+
+    /**
+     * Moves the status of a player who has joined into the online part of this cache.
+     *
+     * <p>Usually the status has been pinned by {@link #preload(UUID)} already.
+     * If it is not held in memory, for instance because its pin timed out or the
+     * player was already online when the plug-in was enabled, this method never
+     * reads the {@link StatusStore}. The player is then activated without a
+     * status, and the caller is expected to read it through {@link #load(UUID)}
+     * on an asynchronous thread and hand it to {@link #complete(UUID, String)}.
+     *
+     * @param uuid the unique ID of the player. Must be non-{@code null}.
+     * @return whether the status was held in memory, or {@code false} if it has to be loaded.
+     */
+    public boolean activate(@NotNull UUID uuid) {
+        Offline cached;
+        synchronized (offline) {
+            cached = pinned.remove(uuid);
+            if (cached == null) {
+                cached = offline.remove(uuid);
+            }
+        }
+
+        if (cached == null) {
+            misses.increment();
+            loading.add(uuid);
+            return false;
+        }
+        if (cached.status() != NONE) {
+            release(online.put(uuid, cached.status())); // the reference is handed over from the offline part
+        }
+        return true;
+    }
+
+    /**
+     * Reads the status of a player from the {@link StatusStore}.
+     *
+     * <p>This method performs I/O and must therefore only be called from asynchronous threads.
+     *
+     * @param uuid the unique ID of the player. Must be non-{@code null}.
+     * @return the stored status of the player, or {@code null} if the player has none.
+     * @throws IOException if the status could not be read.
+     */
+    public @Nullable String load(@NotNull UUID uuid) throws IOException {
+        return statusStore.load(uuid);
+    }
+
+    /**
+     * Applies a status loaded for a player who has been activated without one.
+     *
+     * <p>The status is discarded if the player has left in the meantime or their
+     * status has been set or removed since {@link #activate(UUID)}, as it is
+     * outdated then.
+     *
+     * @param uuid   the unique ID of the player. Must be non-{@code null}.
+     * @param loaded the status returned by {@link #load(UUID)}, or {@code null} if the player has none.
+     * @return whether the player now has the loaded status.
+     */
+    public boolean complete(@NotNull UUID uuid, @Nullable String loaded) {
+        if (!loading.remove(uuid) || loaded == null) {
+            return false;
+        }
+        release(online.put(uuid, interner.intern(loaded)));
+        return true;
+    }
+
+    /**
+     * Moves the status of a player who has left into the offline part of this cache.
+     *
+     * <p>If the {@link Retention} is {@link Retention#NONE}, the status is
+     * removed from the {@link StatusStore} instead, without any event being fired.
+     *
+     * @param uuid the unique ID of the player. Must be non-{@code null}.
+     */
+    public void release(@NotNull UUID uuid) {
+        boolean unknown = loading.remove(uuid);
+        String status = online.remove(uuid);
+        if (retention == Retention.NONE && status != null) {
+            statusStore.remove(uuid);
+            release(status);
+            status = null;
+        }
+        synchronized (offline) {
+            Offline previous = offline.remove(uuid); // re-insert at the end
+            if (previous != null) {
+                release(previous.status());
+            }
+            if (status != null || !unknown) { // the stored status of a player who left while it was loading is unknown
+                offline.put(uuid, new Offline(status == null ? NONE : status, System.nanoTime()));
+                trim();
+            }
+        }
+    }
+
+    /**
+     * Drops the cached status of an offline player, so it is read from the
+     * {@link StatusStore} again when the player logs in.
+     *
+     * <p>This is used when the status of an offline player has been changed
+     * in the store directly. This method may be called from any thread.
+     *
+     * @param uuid the unique ID of the player. Must be non-{@code null}.
+     */
+    public void invalidate(@NotNull UUID uuid) {
+        synchronized (offline) {
+            Offline entry = offline.remove(uuid);
+            if (entry != null) {
+                release(entry.status());
+            }
+            entry = pinned.remove(uuid);
+            if (entry != null) {
+                release(entry.status());
+            }
+        }
+    }
+
+    /**
+     * Evicts all offline entries which have exceeded their expiry time, as
+     * well as the pins of players who have not joined in time.
+     *
+     * <p>This method may be called from any thread.
+     */
+    public void evictExpired() {
+        long now = System.nanoTime();
+        synchronized (offline) {
+            evictOlderThan(offline, now - offlineExpiryNanos);
+            evictOlderThan(pinned, now - TimeUnit.SECONDS.toNanos(PIN_SECONDS));
+        }
+    }
+
+    /**
+     * Creates a snapshot of the counters of this cache.
+     *
+     * @return the current statistics of this cache.
+     */
+    public @NotNull CacheStats getStats() {
+        synchronized (offline) {
+            return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), online.size(), offline.size() + pinned.size());
+        }
+    }
+
+    /**
+     * Creates a snapshot of the interner sharing the statuses held by this cache.
+     *
+     * @return the number of distinct statuses, their references and the estimated savings.
+     */
+    public @NotNull InternStats getInternStats() {
+        return interner.getStats();
+    }
+
+    /**
+     * Estimates the memory retained by this cache and its {@link StatusStore}.
+     *
+     * <p>As statuses are interned, each distinct status is only counted once.
+     *
+     * @return the estimated memory usage.
+     * @see MemoryUsage
+     */
+    public @NotNull MemoryUsage estimateMemory() {
+        int onlineEntries = online.size();
+        int offlineEntries;
+        synchronized (offline) {
+            offlineEntries = offline.size() + pinned.size();
+        }
+
+        long bytes = (long) onlineEntries * (MemoryUsage.MAP_ENTRY_BYTES + MemoryUsage.UUID_BYTES)
+                + (long) offlineEntries * (MemoryUsage.LINKED_MAP_ENTRY_BYTES + MemoryUsage.UUID_BYTES + OFFLINE_BYTES)
+                + interner.estimateRetainedBytes();
+        return new MemoryUsage(onlineEntries, offlineEntries, bytes, statusStore.estimateRetainedBytes());
+    }
+
+    private void trim() {
+        Iterator<Offline> iterator = offline.values().iterator();
+        while (offline.size() > maxOffline && iterator.hasNext()) {
+            Offline entry = iterator.next();
+            iterator.remove();
+            evict(entry);
+        }
+    }
+
+    private void evictOlderThan(@NotNull LinkedHashMap<UUID, Offline> entries, long threshold) {
+        Iterator<Offline> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            Offline entry = iterator.next();
+            if (entry.since() - threshold >= 0) {
+                break; // entries are ordered by insertion
+            }
+            iterator.remove();
+            evict(entry);
+        }
+    }
+
+    private void evict(@NotNull Offline entry) {
+        release(entry.status());
+        evictions.increment();
+    }
+
+    private void release(@Nullable String status) {
+        if (status != null && status != NONE) {
+            interner.release(status);
+        }
+    }
+
+    private boolean isExpired(@NotNull Offline entry, long now) {
+        return now - entry.since() > offlineExpiryNanos;
+    }
+
+    private record Offline(@NotNull String status, long since) {}
+}
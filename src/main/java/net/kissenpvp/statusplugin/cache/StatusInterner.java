@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2023 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+package net.kissenpvp.statusplugin.cache;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Maps equal statuses onto one shared, canonical instance.
+ *
+ * <p>Most players share a small set of statuses, yet every command invocation
+ * creates a new string. The interner keeps one canonical instance per distinct
+ * status along with the number of references to it. {@link #intern(String)}
+ * returns the canonical instance and adds a reference, {@link #release(String)}
+ * removes one again. Once a status is no longer referenced, it is dropped, so
+ * unlike {@link String#intern()} the interner never retains unused statuses.
+ *
+ * <p>This class is thread-safe.
+ *
+ * @see StatusCache
+ */
+public class StatusInterner {
+
+    private static final int CANONICAL_BYTES = 24;
+
+    private final Map<String, Canonical> statuses = new ConcurrentHashMap<>();
+    private final LongAdder retainedBytes = new LongAdder();
+
+    /**
+     * Returns the canonical instance of the given status and adds a reference to it.
+     *
+     * @param status the status to intern. Must be non-{@code null}.
+     * @return the canonical instance equal to the given status.
+     */
+    public @NotNull String intern(@NotNull String status) {
+        return statuses.compute(status, (key, canonical) -> {
+            if (canonical == null) {
+                retainedBytes.add(estimate(key));
+                return new Canonical(key, 1);
+            }
+            canonical.references++;
+            return canonical;
+        }).status;
+    }
+
+    /**
+     * Removes a reference from the given status, dropping it once it is no longer referenced.
+     *
+     * @param status the status which was previously interned. Must be non-{@code null}.
+     */
+    public void release(@NotNull String status) {
+        statuses.computeIfPresent(status, (key, canonical) -> {
+            if (--canonical.references > 0) {
+                return canonical;
+            }
+            retainedBytes.add(-estimate(key));
+            return null;
+        });
+    }
+
+    /**
+     * Creates a snapshot of the state of this interner.
+     *
+     * @return the number of distinct statuses, their references and the estimated savings.
+     */
+    public @NotNull InternStats getStats() {
+        int distinct = 0;
+        long references = 0;
+        long savedBytes = 0;
+        for (Canonical canonical : statuses.values()) {
+            int count = canonical.references;
+            distinct++;
+            references += count;
+            savedBytes += (count - 1) * MemoryUsage.estimate(canonical.status);
+        }
+        return new InternStats(distinct, references, savedBytes);
+    }
+
+    /**
+     * Estimates the memory retained by the canonical instances and their bookkeeping.
+     *
+     * <p>The estimate is maintained whenever a status is added or dropped, so
+     * this method neither iterates the statuses nor blocks.
+     *
+     * @return the estimated number of retained bytes.
+     * @see MemoryUsage
+     */
+    public long estimateRetainedBytes() {
+        return retainedBytes.sum();
+    }
+
+    private static long estimate(@NotNull String status) {
+        return MemoryUsage.MAP_ENTRY_BYTES + CANONICAL_BYTES + MemoryUsage.estimate(status);
+    }
+
+    private static final class Canonical {
+
+        private final String status;
+        private volatile int references; // only modified within compute
+
+        private Canonical(@NotNull String status, int references) {
+            this.status = status;
+            this.references = references;
+        }
+    }
+}
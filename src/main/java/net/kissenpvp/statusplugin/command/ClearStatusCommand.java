@@ -20,6 +20,7 @@ package net.kissenpvp.statusplugin.command;
 
 import net.kissenpvp.statusplugin.EventCancelledException;
 import net.kissenpvp.statusplugin.StatusPlugin;
+import net.kissenpvp.statusplugin.metrics.StatusMetrics;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
@@ -39,10 +40,18 @@ import org.jetbrains.annotations.NotNull;
  * then performs the actions of status clearance using the {@code StatusPlugin} and
  * subsequently interacts with the player to convey the result of the operation.
  *
+ * <p>The command passes the {@link CommandPipeline}, so it is committed in
+ * order with the {@code status} commands the player issued before.
+ *
+ * <p>Each invocation consumes a token of the player's rate limit, unless the
+ * player has the {@code statusplugin.ratelimit.bypass} permission.
+ *
  * @see CommandExecutor
  */
 public class ClearStatusCommand implements CommandExecutor {
 
+    private static final MessageTemplate STATUS_CLEARED = MessageTemplate.of("§7Your status §f{} §7has been removed.");
+
     @Override
     public boolean onCommand(@NotNull CommandSender sender, @NotNull Command command, @NotNull String label, @NotNull String[] args) {
         if (!(sender instanceof Player player)) {
@@ -50,17 +59,30 @@ public class ClearStatusCommand implements CommandExecutor {
             return true;
         }
 
+        StatusPlugin plugin = StatusPlugin.getInstance();
+        plugin.getMetrics().increment(StatusMetrics.Counter.COMMAND);
+        if (!player.hasPermission("statusplugin.ratelimit.bypass") && !plugin.getRateLimiter().tryAcquire(player.getUniqueId())) {
+            player.sendMessage("§cYou are changing your status too quickly.");
+            return true;
+        }
 
-        StatusPlugin.getInstance().getStatus(player).ifPresentOrElse(status -> {
-            try
-            {
-                StatusPlugin.getInstance().clearStatus(player);
-                player.sendMessage(String.format("§7Your status §f%s §7has been removed.", status.strip()));
-            }catch (EventCancelledException eventCancelledException)
-            {
+        CommandPipeline commandPipeline = plugin.getCommandPipeline();
+        commandPipeline.submit(player, () -> null, ignored -> {
+            String status = plugin.peekStatus(player);
+            if (status != null) {
+                plugin.clearStatus(player);
+                return STATUS_CLEARED.render(status.strip());
+            }
+            return "§7You have no status selected at the moment.";
+        }, (message, throwable) -> {
+            if (throwable instanceof EventCancelledException) {
                 player.sendMessage("§cNothing has been changed.");
+            } else if (throwable != null) {
+                commandPipeline.reportFailure(player, throwable);
+            } else {
+                player.sendMessage(message);
             }
-        }, () -> player.sendMessage("§7You have no status selected at the moment."));
+        });
         return true;
     }
 }
@@ -0,0 +1,160 @@
+/*
+ * Copyright (C) 2023 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+package net.kissenpvp.statusplugin.command;
+
+import net.kissenpvp.statusplugin.metrics.StatusMetrics;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+
+/**
+ * Executes status commands in stages, keeping as much work as possible off the main thread.
+ *
+ * <p>Each command passes three stages:
+ * <ol>
+ *     <li>{@code prepare} runs on a worker thread. It parses the arguments and
+ *     validates and compiles the input, which may all be done without the
+ *     Bukkit API.</li>
+ *     <li>{@code commit} runs on the main thread once the preparation has
+ *     finished. It fires the events and changes the state. It is skipped if
+ *     the player has left in the meantime.</li>
+ *     <li>{@code reply} runs on the main thread right after the commit, with
+ *     either its result or the failure of any of the previous stages. It
+ *     hands failures it does not expect to {@link #reportFailure(Player, Throwable)}.</li>
+ * </ol>
+ *
+ * <p>Commands of the same player are committed in the order in which they
+ * were issued, even if a later one finishes its preparation first. Commands
+ * of different players do not wait for each other.
+ *
+ * <p>The time spent on the main thread by the commit and reply stages is
+ * recorded as {@link StatusMetrics.Timer#COMMAND}.
+ *
+ * @see MessageTemplate
+ */
+public class CommandPipeline implements AutoCloseable {
+
+    private static final CompletableFuture<Void> DONE = CompletableFuture.completedFuture(null);
+
+    private final Plugin plugin;
+    private final StatusMetrics metrics;
+    private final ExecutorService workers;
+    private final Executor mainThread;
+    private final Map<UUID, CompletableFuture<Void>> pending = new HashMap<>(); // only accessed from the main thread
+
+    /**
+     * Constructor for creating a new {@code CommandPipeline}.
+     *
+     * @param plugin  the plug-in owning the commands. Must be non-{@code null}.
+     * @param metrics the metrics recording the time spent on the main thread. Must be non-{@code null}.
+     * @param threads the number of worker threads.
+     */
+    public CommandPipeline(@NotNull Plugin plugin, @NotNull StatusMetrics metrics, int threads) {
+        this.plugin = plugin;
+        this.metrics = metrics;
+        AtomicInteger counter = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+            Thread thread = new Thread(runnable, "StatusPlugin-Command-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.mainThread = runnable -> plugin.getServer().getScheduler().runTask(plugin, runnable);
+    }
+
+    /**
+     * Submits a command of the given player.
+     *
+     * <p>This method must be called from the main thread.
+     *
+     * @param player  the player who issued the command. Must be non-{@code null}.
+     * @param prepare the stage run on a worker thread. Must be non-{@code null}.
+     * @param commit  the stage run on the main thread with the result of the preparation. Must be non-{@code null}.
+     * @param reply   the stage run on the main thread with the result of the commit, or the failure of any stage.
+     *                Must be non-{@code null}.
+     * @param <T>     the type of the prepared input.
+     * @param <R>     the type of the result of the commit.
+     */
+    public <T, R> void submit(@NotNull Player player, @NotNull Supplier<T> prepare, @NotNull Function<T, R> commit, @NotNull BiConsumer<@Nullable R, @Nullable Throwable> reply) {
+        UUID uuid = player.getUniqueId();
+        CompletableFuture<T> prepared = CompletableFuture.supplyAsync(prepare, workers);
+        CompletableFuture<T> ordered = pending.getOrDefault(uuid, DONE).thenCompose(previous -> prepared);
+        CompletableFuture<Void> done = ordered.handleAsync((input, throwable) -> {
+            if (!player.isOnline()) {
+                return null;
+            }
+
+            long start = metrics.start();
+            try {
+                R result = null;
+                Throwable failure = throwable instanceof CompletionException ? throwable.getCause() : throwable;
+                if (failure == null) {
+                    try {
+                        result = commit.apply(input);
+                    } catch (RuntimeException runtimeException) {
+                        failure = runtimeException;
+                    }
+                }
+                try {
+                    reply.accept(result, failure);
+                } catch (RuntimeException runtimeException) { // the reply is not run a second time
+                    reportFailure(player, runtimeException);
+                }
+            } finally {
+                metrics.stop(StatusMetrics.Timer.COMMAND, start);
+            }
+            return null;
+        }, mainThread);
+
+        pending.put(uuid, done);
+        done.whenComplete((result, throwable) -> pending.remove(uuid, done));
+    }
+
+    /**
+     * Reports a failure of a command which its reply does not expect.
+     *
+     * <p>The failure is logged and the player is told that the command has
+     * failed. This method must be called from the main thread.
+     *
+     * @param player    the player who issued the command. Must be non-{@code null}.
+     * @param throwable the unexpected failure. Must be non-{@code null}.
+     */
+    public void reportFailure(@NotNull Player player, @NotNull Throwable throwable) {
+        plugin.getLogger().log(Level.SEVERE, String.format("Could not execute a status command of %s.", player.getName()), throwable);
+        player.sendMessage("§cAn error occurred while executing this command.");
+    }
+
+    /**
+     * Stops the worker threads. Commands which are still being prepared are dropped.
+     */
+    @Override
+    public void close() {
+        workers.shutdownNow();
+    }
+}
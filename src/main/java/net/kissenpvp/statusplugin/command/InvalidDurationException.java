@@ -0,0 +1,41 @@
+/*
+ * Copyright (C) 2023 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+package net.kissenpvp.statusplugin.command;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * An exception indicating that the duration given to the {@code status} command is invalid.
+ *
+ * <p>It is thrown while the arguments are parsed, so the reply can tell an
+ * invalid duration apart from any other {@link IllegalArgumentException}.
+ *
+ * @see StatusCommand
+ */
+class InvalidDurationException extends RuntimeException {
+
+    /**
+     * Constructor for creating a new {@code InvalidDurationException}.
+     *
+     * @param cause the failure of parsing the duration, whose message is shown to the player. Must be non-{@code null}.
+     */
+    InvalidDurationException(@NotNull IllegalArgumentException cause) {
+        super(cause.getMessage(), cause);
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2023 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+package net.kissenpvp.statusplugin.command;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A chat message with placeholders, which is split into its constant parts once.
+ *
+ * <p>Placeholders are written as {@code {}} and are replaced by the given
+ * arguments in order. Unlike {@link String#format(String, Object...)}, the
+ * pattern is not parsed again for every message, rendering only concatenates
+ * the constant parts and the arguments into a buffer of the expected size.
+ *
+ * <p>Instances are immutable and thus thread-safe, so they are kept in constants.
+ */
+public final class MessageTemplate {
+
+    private static final String PLACEHOLDER = "{}";
+
+    private final String[] parts;
+    private final int length;
+
+    private MessageTemplate(@NotNull String[] parts) {
+        this.parts = parts;
+        int length = 0;
+        for (String part : parts) {
+            length += part.length();
+        }
+        this.length = length;
+    }
+
+    /**
+     * Splits the given pattern into its constant parts.
+     *
+     * @param pattern the message with {@code {}} as placeholders. Must be non-{@code null}.
+     * @return the template.
+     */
+    public static @NotNull MessageTemplate of(@NotNull String pattern) {
+        List<String> parts = new ArrayList<>();
+        int start = 0;
+        int placeholder;
+        while ((placeholder = pattern.indexOf(PLACEHOLDER, start)) >= 0) {
+            parts.add(pattern.substring(start, placeholder));
+            start = placeholder + PLACEHOLDER.length();
+        }
+        parts.add(pattern.substring(start));
+        return new MessageTemplate(parts.toArray(String[]::new));
+    }
+
+    /**
+     * Renders this template with the given arguments.
+     *
+     * @param arguments the replacements of the placeholders, in order. Missing arguments are left empty.
+     * @return the rendered message.
+     */
+    public @NotNull String render(@NotNull String... arguments) {
+        int capacity = length;
+        for (String argument : arguments) {
+            capacity += argument.length();
+        }
+
+        StringBuilder builder = new StringBuilder(capacity).append(parts[0]);
+        for (int i = 1; i < parts.length; i++) {
+            if (i - 1 < arguments.length) {
+                builder.append(arguments[i - 1]);
+            }
+            builder.append(parts[i]);
+        }
+        return builder.toString();
+    }
+}
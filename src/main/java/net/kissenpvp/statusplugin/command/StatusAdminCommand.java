@@ -0,0 +1,383 @@
+/*
+ * Copyright (C) 2023 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+package net.kissenpvp.statusplugin.command;
+
+import net.kissenpvp.statusplugin.EventCancelledException;
+import net.kissenpvp.statusplugin.StatusPlugin;
+import net.kissenpvp.statusplugin.audit.AuditAction;
+import net.kissenpvp.statusplugin.audit.AuditEntry;
+import net.kissenpvp.statusplugin.cache.CacheStats;
+import net.kissenpvp.statusplugin.cache.InternStats;
+import net.kissenpvp.statusplugin.cache.MemoryUsage;
+import net.kissenpvp.statusplugin.expiry.ExpiryStats;
+import net.kissenpvp.statusplugin.filter.FilterStats;
+import net.kissenpvp.statusplugin.metrics.LatencyHistogram;
+import net.kissenpvp.statusplugin.metrics.StatusMetrics;
+import net.kissenpvp.statusplugin.sync.SyncStats;
+import net.kissenpvp.statusplugin.tab.TabStats;
+import org.bukkit.Bukkit;
+import org.bukkit.OfflinePlayer;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandExecutor;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.CompletionException;
+import java.util.regex.Pattern;
+
+/**
+ * Class representing the command executor for the administrative status commands.
+ *
+ * <p>This class implements the {@link CommandExecutor} interface and dispatches
+ * the sub command given as first argument. Access to this command is guarded
+ * by the {@code statusplugin.admin} permission declared in the plugin description.
+ *
+ * <p>Supported sub commands are:
+ * <ul>
+ *     <li>{@code bulkset <players|*> <status...>} - sets the status of all given
+ *     players, separated by commas, or of all online players at once.</li>
+ *     <li>{@code bulkclear <players|*>} - clears the statuses of all given players at once.</li>
+ *     <li>{@code export [name]} - writes the statuses of all players into the snapshot
+ *     {@code snapshots/<name>.snapshot} in the data folder, named after the current time if omitted.</li>
+ *     <li>{@code import <name>} - reads the statuses of a snapshot written by {@code export}
+ *     into the status store.</li>
+ *     <li>{@code expiry} - reports how many timed statuses are pending and how many have expired.</li>
+ *     <li>{@code history <player> [page]} - lists the status transitions of a player,
+ *     newest first, ten per page. Older pages are read from the audit log asynchronously.</li>
+ *     <li>{@code filter [reload]} - reports how many statuses were checked and
+ *     blocked by the status filter, or reloads its blocked terms asynchronously.</li>
+ *     <li>{@code memory} - reports the number of statuses held in memory and
+ *     the estimated number of bytes they retain, along with the cache counters.</li>
+ *     <li>{@code stats} - reports the number of distinct statuses and the memory
+ *     saved by sharing them between players, as well as the number of commands
+ *     rejected by the rate limit. If metrics are enabled, the number of set, cleared,
+ *     expired and cancelled statuses and the latencies of event dispatch, tab
+ *     refreshes and commands are reported as well.</li>
+ *     <li>{@code sync} - reports how many changes were exchanged with other servers.</li>
+ *     <li>{@code tab} - reports how many tab refreshes were requested, coalesced, skipped and sent.</li>
+ * </ul>
+ *
+ * @see CommandExecutor
+ */
+public class StatusAdminCommand implements CommandExecutor {
+
+    private static final DateTimeFormatter SNAPSHOT_NAME = DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm-ss");
+    private static final DateTimeFormatter HISTORY_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(ZoneId.systemDefault());
+    private static final int HISTORY_PAGE_SIZE = 10;
+    private static final Pattern VALID_NAME = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+
+    @Override
+    public boolean onCommand(@NotNull CommandSender sender, @NotNull Command command, @NotNull String label, @NotNull String[] args) {
+        if (args.length == 0) {
+            return false;
+        }
+
+        switch (args[0].toLowerCase()) {
+            case "bulkset" -> {
+                if (args.length < 3) {
+                    return false;
+                }
+                bulkSet(sender, resolvePlayers(args[1]), String.join(" ", Arrays.copyOfRange(args, 2, args.length)));
+            }
+            case "bulkclear" -> {
+                if (args.length < 2) {
+                    return false;
+                }
+                bulkClear(sender, resolvePlayers(args[1]));
+            }
+            case "export" -> exportStatuses(sender, args.length > 1 ? args[1] : SNAPSHOT_NAME.format(LocalDateTime.now()));
+            case "import" -> {
+                if (args.length < 2) {
+                    return false;
+                }
+                importStatuses(sender, args[1]);
+            }
+            case "expiry" -> sendExpiry(sender);
+            case "filter" -> {
+                if (args.length > 1 && args[1].equalsIgnoreCase("reload")) {
+                    reloadFilter(sender);
+                } else {
+                    sendFilter(sender);
+                }
+            }
+            case "history" -> {
+                if (args.length < 2) {
+                    return false;
+                }
+                int page;
+                try {
+                    page = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+                } catch (NumberFormatException numberFormatException) {
+                    return false;
+                }
+                sendHistory(sender, args[1], Math.max(1, page));
+            }
+            case "memory" -> sendMemory(sender);
+            case "stats" -> sendStats(sender);
+            case "sync" -> sendSync(sender);
+            case "tab" -> sendTab(sender);
+            default -> {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void bulkSet(@NotNull CommandSender sender, @NotNull Collection<Player> players, @NotNull String status) {
+        Map<Player, String> statuses = new LinkedHashMap<>();
+        players.forEach(player -> statuses.put(player, status));
+        try {
+            int changed = StatusPlugin.getInstance().setStatuses(statuses).size();
+            sender.sendMessage(String.format("§7The status of §f%d §7players has been set.", changed));
+        } catch (EventCancelledException eventCancelledException) {
+            sender.sendMessage("§cThe statuses were not changed.");
+        }
+    }
+
+    private void bulkClear(@NotNull CommandSender sender, @NotNull Collection<Player> players) {
+        try {
+            int cleared = StatusPlugin.getInstance().clearStatuses(players).size();
+            sender.sendMessage(String.format("§7The status of §f%d §7players has been removed.", cleared));
+        } catch (EventCancelledException eventCancelledException) {
+            sender.sendMessage("§cNothing has been changed.");
+        }
+    }
+
+    private @NotNull Collection<Player> resolvePlayers(@NotNull String names) {
+        if (names.equals("*")) {
+            return new ArrayList<>(Bukkit.getOnlinePlayers());
+        }
+
+        Set<Player> players = new LinkedHashSet<>();
+        for (String name : names.split(",")) {
+            Player player = Bukkit.getPlayerExact(name);
+            if (player != null) {
+                players.add(player);
+            }
+        }
+        return players;
+    }
+
+    private void exportStatuses(@NotNull CommandSender sender, @NotNull String name) {
+        Path file = resolveSnapshot(sender, name);
+        if (file == null) {
+            return;
+        }
+
+        StatusPlugin plugin = StatusPlugin.getInstance();
+        long start = System.nanoTime();
+        plugin.exportStatuses(file).whenComplete((count, throwable) -> plugin.getServer().getScheduler().runTask(plugin, () -> {
+            if (throwable != null) {
+                sender.sendMessage(String.format("§cThe statuses could not be exported: %s", describe(throwable)));
+                return;
+            }
+            sender.sendMessage(String.format("§7Exported §f%d §7statuses to §f%s §7in §f%d ms§7.", count, name, (System.nanoTime() - start) / 1_000_000));
+        }));
+    }
+
+    private void importStatuses(@NotNull CommandSender sender, @NotNull String name) {
+        Path file = resolveSnapshot(sender, name);
+        if (file == null) {
+            return;
+        }
+        if (!Files.isRegularFile(file)) {
+            sender.sendMessage(String.format("§cThere is no snapshot named %s.", name));
+            return;
+        }
+
+        StatusPlugin plugin = StatusPlugin.getInstance();
+        long start = System.nanoTime();
+        plugin.importStatuses(file).whenComplete((count, throwable) -> plugin.getServer().getScheduler().runTask(plugin, () -> {
+            if (throwable != null) {
+                sender.sendMessage(String.format("§cThe statuses could not be imported: %s", describe(throwable)));
+                return;
+            }
+            sender.sendMessage(String.format("§7Imported §f%d §7statuses from §f%s §7in §f%d ms§7.", count, name, (System.nanoTime() - start) / 1_000_000));
+        }));
+    }
+
+    private @Nullable Path resolveSnapshot(@NotNull CommandSender sender, @NotNull String name) {
+        if (!VALID_NAME.matcher(name).matches()) {
+            sender.sendMessage("§cSnapshot names may only contain letters, digits, '-' and '_'.");
+            return null;
+        }
+        return StatusPlugin.getInstance().getDataFolder().toPath().resolve("snapshots").resolve(name + ".snapshot");
+    }
+
+    private static @NotNull String describe(@NotNull Throwable throwable) {
+        while (throwable.getCause() != null && (throwable instanceof CompletionException || throwable instanceof UncheckedIOException)) {
+            throwable = throwable.getCause();
+        }
+        return throwable.getMessage() == null ? throwable.getClass().getSimpleName() : throwable.getMessage();
+    }
+
+    private void sendExpiry(@NotNull CommandSender sender) {
+        ExpiryStats expiryStats = StatusPlugin.getInstance().getExpiryStats();
+        sender.sendMessage(String.format("§7Expiry: §f%d §7pending, §f%d §7scheduled, §f%d §7expired, §f%d §7cancelled, §f%d §7cascaded", expiryStats.pending(), expiryStats.scheduled(), expiryStats.expired(), expiryStats.cancelled(), expiryStats.cascaded()));
+    }
+
+    private void reloadFilter(@NotNull CommandSender sender) {
+        StatusPlugin plugin = StatusPlugin.getInstance();
+        plugin.reloadFilter().whenComplete((terms, throwable) -> plugin.getServer().getScheduler().runTask(plugin, () -> {
+            if (throwable != null) {
+                sender.sendMessage(String.format("§cThe blocked terms could not be reloaded: %s", throwable.getCause() == null ? throwable.getMessage() : throwable.getCause().getMessage()));
+                return;
+            }
+            sender.sendMessage(String.format("§7Reloaded §f%d §7blocked terms.", terms));
+        }));
+    }
+
+    private void sendFilter(@NotNull CommandSender sender) {
+        FilterStats filterStats = StatusPlugin.getInstance().getFilterStats();
+        if (filterStats == null) {
+            sender.sendMessage("§7The status filter is disabled.");
+            return;
+        }
+        sender.sendMessage(String.format("§7Filter: §f%d §7terms in §f%d §7states, §f%d §7checked, §f%d §7blocked", filterStats.terms(), filterStats.states(), filterStats.checked(), filterStats.blocked()));
+    }
+
+    private void sendHistory(@NotNull CommandSender sender, @NotNull String name, int page) {
+        StatusPlugin plugin = StatusPlugin.getInstance();
+        if (!plugin.isAuditEnabled()) {
+            sender.sendMessage("§7The audit log is disabled.");
+            return;
+        }
+
+        Player online = Bukkit.getPlayerExact(name);
+        if (online != null) {
+            sendHistory(sender, online, name, page);
+            return;
+        }
+        try {
+            sendHistory(sender, Bukkit.getOfflinePlayer(UUID.fromString(name)), name, page);
+            return;
+        } catch (IllegalArgumentException illegalArgumentException) {
+            // not a unique ID, look the name up
+        }
+
+        // looking up the name and whether it has played reads from disk, or even asks Mojang
+        plugin.getServer().getScheduler().runTaskAsynchronously(plugin, () -> {
+            OfflinePlayer player = lookUp(name);
+            plugin.getServer().getScheduler().runTask(plugin, () -> {
+                if (player == null) {
+                    sender.sendMessage(String.format("§c%s has never played on this server.", name));
+                    return;
+                }
+                sendHistory(sender, player, name, page);
+            });
+        });
+    }
+
+    private void sendHistory(@NotNull CommandSender sender, @NotNull OfflinePlayer player, @NotNull String name, int page) {
+        StatusPlugin plugin = StatusPlugin.getInstance();
+        String displayName = player.getName() == null ? name : player.getName();
+        int offset = (int) Math.min((long) (page - 1) * HISTORY_PAGE_SIZE, Integer.MAX_VALUE);
+        plugin.getStatusHistory(player.getUniqueId(), offset, HISTORY_PAGE_SIZE + 1).whenComplete((entries, throwable) -> plugin.getServer().getScheduler().runTask(plugin, () -> {
+            if (throwable != null) {
+                sender.sendMessage(String.format("§cThe history could not be read: %s", describe(throwable)));
+                return;
+            }
+            if (entries.isEmpty()) {
+                sender.sendMessage(page == 1 ? String.format("§7No status changes of §f%s §7have been recorded.", displayName) : String.format("§7There is no page §f%d§7.", page));
+                return;
+            }
+
+            sender.sendMessage(String.format("§7Status history of §f%s §7(page §f%d§7):", displayName, page));
+            for (int index = 0; index < Math.min(entries.size(), HISTORY_PAGE_SIZE); index++) {
+                AuditEntry entry = entries.get(index);
+                sender.sendMessage(String.format("§8%s %s §f%s", HISTORY_TIME.format(Instant.ofEpochMilli(entry.timestamp())), describe(entry.action()), entry.status() == null ? "§8unknown" : entry.status()));
+            }
+            if (entries.size() > HISTORY_PAGE_SIZE) {
+                sender.sendMessage(String.format("§7More with §f/statusadmin history %s %d§7.", displayName, page + 1));
+            }
+        }));
+    }
+
+    /**
+     * Looks up an offline player by name.
+     *
+     * <p>This method blocks and must only be called from asynchronous threads.
+     *
+     * @param name the name of the player. Must be non-{@code null}.
+     * @return the player, or {@code null} if they have never played on this server.
+     */
+    @SuppressWarnings("deprecation") // looking up by name is what the command is for
+    private static @Nullable OfflinePlayer lookUp(@NotNull String name) {
+        OfflinePlayer offlinePlayer = Bukkit.getOfflinePlayer(name);
+        return offlinePlayer.isOnline() || offlinePlayer.hasPlayedBefore() ? offlinePlayer : null;
+    }
+
+    private static @NotNull String describe(@NotNull AuditAction action) {
+        return switch (action) {
+            case SET -> "§aset";
+            case CLEAR -> "§eclear";
+            case CANCEL -> "§ccancel";
+            case EXPIRE -> "§6expire";
+        };
+    }
+
+    private void sendMemory(@NotNull CommandSender sender) {
+        MemoryUsage memoryUsage = StatusPlugin.getInstance().getMemoryUsage();
+        CacheStats cacheStats = StatusPlugin.getInstance().getCacheStats();
+        sender.sendMessage(String.format("§7Entries: §f%d §7(§f%d §7online, §f%d §7offline)", memoryUsage.entries(), memoryUsage.onlineEntries(), memoryUsage.offlineEntries()));
+        sender.sendMessage(String.format("§7Retained: §f%.1f KiB §7(§f%.1f KiB §7cache, §f%.1f KiB §7store)", memoryUsage.totalBytes() / 1024d, memoryUsage.cacheBytes() / 1024d, memoryUsage.storeBytes() / 1024d));
+        sender.sendMessage(String.format("§7Cache: §f%d §7hits, §f%d §7misses, §f%d §7evictions", cacheStats.hits(), cacheStats.misses(), cacheStats.evictions()));
+    }
+
+    private void sendStats(@NotNull CommandSender sender) {
+        InternStats internStats = StatusPlugin.getInstance().getInternStats();
+        sender.sendMessage(String.format("§7Statuses: §f%d §7distinct, §f%d §7in use, §f%.1f KiB §7saved", internStats.distinct(), internStats.references(), internStats.savedBytes() / 1024d));
+        sender.sendMessage(String.format("§7Rate limit: §f%d §7rejected", StatusPlugin.getInstance().getRateLimiter().getRejected()));
+
+        StatusMetrics metrics = StatusPlugin.getInstance().getMetrics();
+        if (!metrics.isEnabled()) {
+            sender.sendMessage("§7Metrics are disabled.");
+            return;
+        }
+        sender.sendMessage(String.format("§7Operations: §f%d §7set, §f%d §7cleared, §f%d §7expired, §f%d §7cancelled, §f%d §7commands", metrics.get(StatusMetrics.Counter.STATUS_SET), metrics.get(StatusMetrics.Counter.STATUS_CLEARED), metrics.get(StatusMetrics.Counter.STATUS_EXPIRED), metrics.get(StatusMetrics.Counter.CANCELLED), metrics.get(StatusMetrics.Counter.COMMAND)));
+        for (StatusMetrics.Timer timer : StatusMetrics.Timer.values()) {
+            LatencyHistogram histogram = metrics.get(timer);
+            sender.sendMessage(String.format("§7%s: §f%d §7calls, p50 §f%.1f µs§7, p99 §f%.1f µs§7, max §f%.1f µs", timer.getName(), histogram.getCount(), histogram.getValueAtQuantile(0.5) / 1e3, histogram.getValueAtQuantile(0.99) / 1e3, histogram.getMax() / 1e3));
+        }
+    }
+
+    private void sendSync(@NotNull CommandSender sender) {
+        SyncStats syncStats = StatusPlugin.getInstance().getSyncStats();
+        if (syncStats == null) {
+            sender.sendMessage("§7Synchronisation is disabled.");
+            return;
+        }
+        sender.sendMessage(String.format("§7Sync: §f%d §7published in §f%d §7batches, §f%d §7applied, §f%d §7stale", syncStats.published(), syncStats.batches(), syncStats.applied(), syncStats.stale()));
+    }
+
+    private void sendTab(@NotNull CommandSender sender) {
+        TabStats tabStats = StatusPlugin.getInstance().getTabStats();
+        sender.sendMessage(String.format("§7Tab refreshes: §f%d §7requested, §f%d §7coalesced, §f%d §7skipped, §f%d §7sent, §f%d §7pending", tabStats.requested(), tabStats.coalesced(), tabStats.skipped(), tabStats.sent(), tabStats.pending()));
+    }
+}
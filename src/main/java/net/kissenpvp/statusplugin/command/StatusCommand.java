@@ -20,11 +20,18 @@ package net.kissenpvp.statusplugin.command;
 
 import net.kissenpvp.statusplugin.EventCancelledException;
 import net.kissenpvp.statusplugin.StatusPlugin;
+import net.kissenpvp.statusplugin.expiry.Durations;
+import net.kissenpvp.statusplugin.format.CompiledStatus;
+import net.kissenpvp.statusplugin.metrics.StatusMetrics;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.time.Duration;
+import java.util.Arrays;
 
 /**
  * Class representing the command executor for handling status commands in the game.
@@ -40,10 +47,24 @@ import org.jetbrains.annotations.NotNull;
  * amongst others. The actual command handling procedure will depend on the
  * implementation in the {@code onCommand()} method.
  *
+ * <p>A status followed by {@code --for <duration>}, such as {@code --for 30m},
+ * expires on its own once the duration has passed.
+ *
+ * <p>The arguments are parsed and the status is compiled and filtered on a
+ * worker thread of the {@link CommandPipeline}, only the change itself and
+ * the reply happen on the main thread.
+ *
+ * <p>Each invocation consumes a token of the player's rate limit, unless the
+ * player has the {@code statusplugin.ratelimit.bypass} permission.
+ *
  * @see CommandExecutor
  */
 public class StatusCommand implements CommandExecutor {
 
+    private static final MessageTemplate STATUS_SET = MessageTemplate.of("§7Your status has been set to §f{}.");
+    private static final MessageTemplate STATUS_SET_FOR = MessageTemplate.of("§7Your status has been set to §f{}§7for §f{}§7.");
+    private static final MessageTemplate INVALID_DURATION = MessageTemplate.of("§c{} Use for example §f30m §cor §f1h30m§c.");
+
     @Override
     public boolean onCommand(@NotNull CommandSender sender, @NotNull Command command, @NotNull String label, @NotNull String[] args) {
 
@@ -52,11 +73,62 @@ public class StatusCommand implements CommandExecutor {
             return true;
         }
 
-        try {
-            player.sendMessage(String.format("§7Your status has been set to §f%s.", StatusPlugin.getInstance().setStatus(player, String.join(" ", args))));
-        } catch (EventCancelledException eventCancelledException) {
-            player.sendMessage("§cThe status was not changed.");
+        StatusPlugin plugin = StatusPlugin.getInstance();
+        plugin.getMetrics().increment(StatusMetrics.Counter.COMMAND);
+        if (!player.hasPermission("statusplugin.ratelimit.bypass") && !plugin.getRateLimiter().tryAcquire(player.getUniqueId())) {
+            player.sendMessage("§cYou are changing your status too quickly.");
+            return true;
         }
+
+        CommandPipeline commandPipeline = plugin.getCommandPipeline();
+        commandPipeline.submit(player, () -> parse(plugin, args), input -> {
+            if (input.duration() == null) {
+                return STATUS_SET.render(plugin.setStatus(player, input.status()));
+            }
+            return STATUS_SET_FOR.render(plugin.setStatus(player, input.status(), input.duration()), Durations.format(input.duration()));
+        }, (message, throwable) -> {
+            if (throwable instanceof InvalidDurationException invalidDurationException) {
+                player.sendMessage(INVALID_DURATION.render(invalidDurationException.getMessage()));
+            } else if (throwable instanceof EventCancelledException) {
+                player.sendMessage("§cThe status was not changed.");
+            } else if (throwable != null) {
+                commandPipeline.reportFailure(player, throwable);
+            } else {
+                player.sendMessage(message);
+            }
+        });
         return true;
     }
+
+    /**
+     * Parses the arguments of the command and compiles the status.
+     *
+     * <p>This runs on a worker thread of the {@link CommandPipeline}.
+     *
+     * @param plugin the plug-in compiling the status. Must be non-{@code null}.
+     * @param args   the arguments of the command. Must be non-{@code null}.
+     * @return the compiled status and its duration.
+     * @throws InvalidDurationException if the duration is invalid.
+     * @throws EventCancelledException  if the status has no visible characters or contains a blocked term.
+     */
+    private static @NotNull Input parse(@NotNull StatusPlugin plugin, @NotNull String[] args) {
+        if (args.length > 2 && args[args.length - 2].equalsIgnoreCase("--for")) {
+            Duration duration;
+            try {
+                duration = Durations.parse(args[args.length - 1]);
+            } catch (IllegalArgumentException illegalArgumentException) {
+                throw new InvalidDurationException(illegalArgumentException);
+            }
+            return new Input(plugin.compileStatus(String.join(" ", Arrays.copyOf(args, args.length - 2))), duration);
+        }
+        return new Input(plugin.compileStatus(String.join(" ", args)), null);
+    }
+
+    /**
+     * The parsed arguments of the command.
+     *
+     * @param status   the compiled status.
+     * @param duration the time after which the status expires, or {@code null} if it does not.
+     */
+    private record Input(@NotNull CompiledStatus status, @Nullable Duration duration) {}
 }
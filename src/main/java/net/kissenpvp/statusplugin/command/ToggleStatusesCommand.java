@@ -0,0 +1,63 @@
+/*
+ * Copyright (C) 2023 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+package net.kissenpvp.statusplugin.command;
+
+import net.kissenpvp.statusplugin.StatusPlugin;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandExecutor;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Class that orchestrates the execution of the `togglestatuses` command within the game.
+ *
+ * <p>This class implements {@link CommandExecutor} interface, and hence overrides
+ * the {@code onCommand()} method which is called whenever the applicable command
+ * (in this case, 'togglestatuses') is invoked in the game.
+ *
+ * <p>In the context of the game, 'togglestatuses' command is used by a player to
+ * hide or show the statuses of other players in their own player tab. Other
+ * viewers are not affected. As this requires the player tab to be rendered per
+ * viewer, the command is only available when the packet tab renderer is configured.
+ *
+ * @see CommandExecutor
+ * @see StatusPlugin#setStatusesVisible(Player, boolean)
+ */
+public class ToggleStatusesCommand implements CommandExecutor {
+
+    @Override
+    public boolean onCommand(@NotNull CommandSender sender, @NotNull Command command, @NotNull String label, @NotNull String[] args) {
+        if (!(sender instanceof Player player)) {
+            sender.sendMessage("§cOnly players can execute this command.");
+            return true;
+        }
+
+        StatusPlugin plugin = StatusPlugin.getInstance();
+        if (!plugin.isPerViewerRendering()) {
+            player.sendMessage("§cStatuses cannot be hidden on this server.");
+            return true;
+        }
+
+        boolean visible = !plugin.areStatusesVisible(player);
+        plugin.setStatusesVisible(player, visible);
+        player.sendMessage(visible ? "§7Statuses are now §fshown§7." : "§7Statuses are now §fhidden§7.");
+        return true;
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2023 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+package net.kissenpvp.statusplugin.event;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.bukkit.entity.Player;
+import org.bukkit.event.Cancellable;
+import org.bukkit.event.Event;
+import org.bukkit.event.HandlerList;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Map;
+
+/**
+ * Represents an event in the game indicating that the statuses of several
+ * players are changed at once.
+ *
+ * <p>The `BulkStatusEvent` class extends {@link Event} and implements
+ * {@link Cancellable}. It is fired once for a whole bulk operation instead of
+ * one {@link SetStatusEvent} or {@link ClearStatusEvent} per player. Cancelling
+ * the event cancels the whole operation, while single players can be filtered
+ * out by removing them through {@link #exclude(Player)}.
+ * <p>
+ * The statuses map relates each affected player to their new status if the
+ * {@link Type} is {@link Type#SET}, or to the status which is about to be
+ * cleared if the type is {@link Type#CLEAR}. For {@link Type#SET}, listeners
+ * may replace the new status of a player within the map. Players added to the
+ * map are ignored, only the players the operation was started with are affected.
+ * <p>
+ * This event class also maintains a static {@code HandlerList} which holds all
+ * the handlers registered for this event.
+ *
+ * @see Event
+ * @see Cancellable
+ * @see SetStatusEvent
+ * @see ClearStatusEvent
+ */
+@Getter
+@Setter
+public class BulkStatusEvent extends Event implements Cancellable {
+
+    private static final HandlerList handlers = new HandlerList();
+    private final Type type;
+    private final Map<Player, String> statuses;
+    private boolean cancelled;
+
+    /**
+     * Constructor for creating a new {@code BulkStatusEvent}.
+     *
+     * @param type     whether the statuses are set or cleared. Must be non-{@code null}.
+     * @param statuses a mutable map relating each affected player to their status.
+     *                 Must be non-{@code null}.
+     */
+    public BulkStatusEvent(@NotNull Type type, @NotNull Map<Player, String> statuses) {
+        this.type = type;
+        this.statuses = statuses;
+        this.cancelled = false;
+    }
+
+    /**
+     * Removes the given player from this bulk operation, leaving their status untouched.
+     *
+     * @param player the player to exclude. Must be non-{@code null}.
+     */
+    public void exclude(@NotNull Player player) {
+        statuses.remove(player);
+    }
+
+    @SuppressWarnings("unused") // Bukkit...
+    @NotNull
+    public static HandlerList getHandlerList() {
+        return handlers;
+    }
+
+    @NotNull
+    @Override
+    public HandlerList getHandlers() {
+        return handlers;
+    }
+
+    /**
+     * The kind of a bulk operation.
+     */
+    public enum Type {
+
+        /**
+         * The statuses of the players are set.
+         */
+        SET,
+
+        /**
+         * The statuses of the players are cleared.
+         */
+        CLEAR
+    }
+}
@@ -34,6 +34,12 @@ import org.jetbrains.annotations.NotNull;
  * event listeners within the game. This event contains the player entity
  * associated with the status change and the new status itself.
  * <p>
+ * Listeners may replace the status through {@link #setStatus(String)}. The
+ * replacement is compiled again like the input of a player, so it may use
+ * colour codes and is cut to the configured length. Setting a status without
+ * any visible character, or {@code null}, has the same effect as cancelling
+ * the event.
+ * <p>
  * The class is enriched with Lombok's {@link lombok.Getter} and
  * {@link lombok.Setter} annotations providing field-level getters and
  * setters automatically.
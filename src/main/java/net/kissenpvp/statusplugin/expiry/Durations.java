@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2023 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+package net.kissenpvp.statusplugin.expiry;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.time.Duration;
+
+/**
+ * Utility class for parsing and formatting the short durations used within commands.
+ *
+ * <p>A duration consists of one or more amounts, each followed by one of the
+ * units {@code d}, {@code h}, {@code m} or {@code s}, such as {@code 30m} or
+ * {@code 1h30m}.
+ */
+public final class Durations {
+
+    private Durations() {}
+
+    /**
+     * Parses the given short duration.
+     *
+     * @param input the duration to parse, such as {@code 1h30m}. Must be non-{@code null}.
+     * @return the parsed duration.
+     * @throws IllegalArgumentException if the input is no valid duration or not positive.
+     */
+    public static @NotNull Duration parse(@NotNull String input) {
+        Duration duration = Duration.ZERO;
+        long amount = -1;
+        for (int i = 0; i < input.length(); i++) {
+            char character = Character.toLowerCase(input.charAt(i));
+            if (character >= '0' && character <= '9') {
+                amount = Math.max(amount, 0);
+                if (amount > (Long.MAX_VALUE - 9) / 10) {
+                    throw new IllegalArgumentException(String.format("The duration '%s' is too long.", input));
+                }
+                amount = amount * 10 + character - '0';
+                continue;
+            }
+
+            if (amount < 0) {
+                throw new IllegalArgumentException(String.format("The duration '%s' is invalid.", input));
+            }
+            try {
+                duration = duration.plus(switch (character) {
+                    case 'd' -> Duration.ofDays(amount);
+                    case 'h' -> Duration.ofHours(amount);
+                    case 'm' -> Duration.ofMinutes(amount);
+                    case 's' -> Duration.ofSeconds(amount);
+                    default -> throw new IllegalArgumentException(String.format("The duration '%s' is invalid.", input));
+                });
+            } catch (ArithmeticException arithmeticException) {
+                throw new IllegalArgumentException(String.format("The duration '%s' is too long.", input), arithmeticException);
+            }
+            amount = -1;
+        }
+
+        if (amount >= 0 || duration.isZero()) {
+            throw new IllegalArgumentException(String.format("The duration '%s' is invalid.", input));
+        }
+        return duration;
+    }
+
+    /**
+     * Formats the given duration in the short form accepted by {@link #parse(String)}.
+     *
+     * <p>Fractions of a second are left out, units without amount are skipped.
+     *
+     * @param duration the duration to format. Must be non-{@code null}.
+     * @return the formatted duration, such as {@code 1h30m}.
+     */
+    public static @NotNull String format(@NotNull Duration duration) {
+        StringBuilder builder = new StringBuilder();
+        append(builder, duration.toDays(), 'd');
+        append(builder, duration.toHoursPart(), 'h');
+        append(builder, duration.toMinutesPart(), 'm');
+        append(builder, duration.toSecondsPart(), 's');
+        return builder.isEmpty() ? "0s" : builder.toString();
+    }
+
+    private static void append(@NotNull StringBuilder builder, long amount, char unit) {
+        if (amount > 0) {
+            builder.append(amount).append(unit);
+        }
+    }
+}
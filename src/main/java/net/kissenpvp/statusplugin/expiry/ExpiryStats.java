@@ -0,0 +1,31 @@
+/*
+ * Copyright (C) 2023 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+package net.kissenpvp.statusplugin.expiry;
+
+/**
+ * An immutable snapshot of the counters of an {@link ExpiryWheel}.
+ *
+ * @param scheduled the number of deadlines which have been scheduled, including replaced ones.
+ * @param cancelled the number of deadlines which have been cancelled before they passed.
+ * @param expired   the number of deadlines which have passed.
+ * @param cascaded  the number of times a deadline was moved down to a lower level of the wheel.
+ * @param pending   the number of deadlines currently waiting to pass.
+ * @see ExpiryWheel#getStats()
+ */
+public record ExpiryStats(long scheduled, long cancelled, long expired, long cascaded, int pending) {}
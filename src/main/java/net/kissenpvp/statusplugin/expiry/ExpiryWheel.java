@@ -0,0 +1,257 @@
+/*
+ * Copyright (C) 2023 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+package net.kissenpvp.statusplugin.expiry;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * A hierarchical timing wheel which expires the statuses of players.
+ *
+ * <p>Instead of scheduling a task per timed status, all deadlines are kept
+ * within a single wheel of {@value #LEVELS} levels with {@value #SLOTS} slots
+ * each. The slots of the lowest level span one wheel tick each, the slots of
+ * every higher level span a whole revolution of the level below. Each deadline
+ * is put into the slot of the lowest level able to hold it. Whenever a lower
+ * level completes a revolution, the next slot of the level above is cascaded
+ * down, so each deadline moves at most {@value #LEVELS} times before it is due.
+ *
+ * <p>{@link #advance()} is called once per server tick. It catches up with the
+ * wall clock, so deadlines are met even if the server lags, and only processes
+ * the slots which are due. Scheduling, rescheduling and cancelling a deadline
+ * run in constant time.
+ *
+ * <p>Deadlines beyond the range of the highest level are parked in its last
+ * slot and put back into place once that slot is cascaded.
+ *
+ * <p>This class is not thread safe and must only be used from the main thread.
+ *
+ * @see ExpiryStats
+ */
+public class ExpiryWheel {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int LEVELS = 4;
+    private static final long MAX_DELTA = (1L << SLOT_BITS * LEVELS) - 1;
+
+    private final long tickNanos;
+    private final Consumer<UUID> expiryHandler;
+    private final Entry[][] wheel = new Entry[LEVELS][SLOTS];
+    private final Map<UUID, Entry> entries = new HashMap<>();
+    private final List<Entry> due = new ArrayList<>();
+    private final long origin = System.nanoTime();
+    private long currentTick;
+
+    private long scheduled, cancelled, expired, cascaded;
+
+    /**
+     * Constructor for creating a new {@code ExpiryWheel}.
+     *
+     * @param tick          the duration of a single wheel tick, which is the resolution of all deadlines.
+     *                      Must be positive.
+     * @param expiryHandler the handler which is called with the unique ID of each player whose deadline has passed.
+     *                      Must be non-{@code null}.
+     */
+    public ExpiryWheel(@NotNull Duration tick, @NotNull Consumer<UUID> expiryHandler) {
+        this.tickNanos = tick.toNanos();
+        this.expiryHandler = expiryHandler;
+        for (Entry[] level : wheel) {
+            for (int slot = 0; slot < SLOTS; slot++) {
+                level[slot] = new Entry(null, 0);
+            }
+        }
+    }
+
+    /**
+     * Schedules the expiry of the player with the given unique ID.
+     *
+     * <p>A deadline which is already pending for the player is replaced. The
+     * deadline is rounded up to the next wheel tick.
+     *
+     * @param uuid     the unique ID of the player. Must be non-{@code null}.
+     * @param duration the time after which the handler is called. Must be positive.
+     * @throws IllegalArgumentException if the duration is not positive.
+     */
+    public void schedule(@NotNull UUID uuid, @NotNull Duration duration) {
+        if (duration.isNegative() || duration.isZero()) {
+            throw new IllegalArgumentException("The duration must be positive.");
+        }
+
+        long nanos = duration.getSeconds() > Long.MAX_VALUE / 1_000_000_000L ? Long.MAX_VALUE : duration.toNanos();
+        long ticks = Math.max(1, (nanos - 1) / tickNanos + 1);
+        Entry previous = entries.remove(uuid);
+        if (previous != null) {
+            previous.unlink();
+        }
+
+        Entry entry = new Entry(uuid, elapsedTicks() + ticks);
+        entries.put(uuid, entry);
+        place(entry);
+        scheduled++;
+    }
+
+    /**
+     * Cancels the pending deadline of the player with the given unique ID.
+     *
+     * @param uuid the unique ID of the player. Must be non-{@code null}.
+     * @return {@code true} if a deadline was pending.
+     */
+    public boolean cancel(@NotNull UUID uuid) {
+        Entry entry = entries.remove(uuid);
+        if (entry == null) {
+            return false;
+        }
+
+        entry.unlink();
+        cancelled++;
+        return true;
+    }
+
+    /**
+     * Collects the unique IDs of all players whose deadline is pending.
+     *
+     * @return a copy of the unique IDs, which may be handed to other threads.
+     */
+    public @NotNull Set<UUID> getPending() {
+        return new HashSet<>(entries.keySet());
+    }
+
+    /**
+     * Determines the time left until the deadline of the player with the given unique ID.
+     *
+     * @param uuid the unique ID of the player. Must be non-{@code null}.
+     * @return the remaining time, or {@code null} if no deadline is pending.
+     */
+    public @Nullable Duration getRemaining(@NotNull UUID uuid) {
+        Entry entry = entries.get(uuid);
+        return entry == null ? null : Duration.ofNanos(Math.max(0, entry.deadline * tickNanos - (System.nanoTime() - origin)));
+    }
+
+    /**
+     * Advances the wheel to the current time and calls the handler for every deadline which has passed.
+     *
+     * <p>Deadlines which are rescheduled or cancelled by the handler of another
+     * deadline passing within the same tick are honoured.
+     */
+    public void advance() {
+        long target = elapsedTicks();
+        while (currentTick < target) {
+            currentTick++;
+            for (int level = LEVELS - 1; level > 0; level--) {
+                if ((currentTick & (1L << SLOT_BITS * level) - 1) == 0) {
+                    cascade(wheel[level][index(currentTick, level)]);
+                }
+            }
+            expire(wheel[0][index(currentTick, 0)]);
+        }
+    }
+
+    /**
+     * Creates a snapshot of the counters of this wheel.
+     *
+     * @return the current statistics of this wheel.
+     */
+    public @NotNull ExpiryStats getStats() {
+        return new ExpiryStats(scheduled, cancelled, expired, cascaded, entries.size());
+    }
+
+    private void cascade(@NotNull Entry head) {
+        Entry entry = head.next;
+        head.next = head.previous = head;
+        while (entry != head) {
+            Entry next = entry.next;
+            place(entry);
+            cascaded++;
+            entry = next;
+        }
+    }
+
+    private void expire(@NotNull Entry head) {
+        for (Entry entry = head.next; entry != head; entry = entry.next) {
+            due.add(entry);
+            entries.remove(entry.uuid);
+        }
+        head.next = head.previous = head;
+
+        try {
+            for (Entry entry : due) {
+                if (!entries.containsKey(entry.uuid)) { // not rescheduled by a previous handler
+                    expired++;
+                    expiryHandler.accept(entry.uuid);
+                }
+            }
+        } finally {
+            due.clear();
+        }
+    }
+
+    private void place(@NotNull Entry entry) {
+        long delta = entry.deadline - currentTick;
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= 1L << SLOT_BITS * (level + 1)) {
+            level++;
+        }
+
+        long deadline = Math.min(entry.deadline, currentTick + MAX_DELTA);
+        entry.linkBefore(wheel[level][index(deadline, level)]);
+    }
+
+    private static int index(long tick, int level) {
+        return (int) (tick >>> SLOT_BITS * level) & SLOTS - 1;
+    }
+
+    private long elapsedTicks() {
+        return (System.nanoTime() - origin) / tickNanos;
+    }
+
+    /**
+     * A deadline within the wheel, linked into the list of its slot.
+     *
+     * <p>The head of each slot is an entry without unique ID which links to itself if the slot is empty.
+     */
+    private static final class Entry {
+
+        private final UUID uuid;
+        private final long deadline;
+        private Entry previous = this, next = this;
+
+        private Entry(@Nullable UUID uuid, long deadline) {
+            this.uuid = uuid;
+            this.deadline = deadline;
+        }
+
+        private void linkBefore(@NotNull Entry head) {
+            previous = head.previous;
+            next = head;
+            head.previous.next = this;
+            head.previous = this;
+        }
+
+        private void unlink() {
+            previous.next = next;
+            next.previous = previous;
+            previous = next = this;
+        }
+    }
+}
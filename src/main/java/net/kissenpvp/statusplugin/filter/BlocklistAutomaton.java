@@ -0,0 +1,364 @@
+/*
+ * Copyright (C) 2023 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+package net.kissenpvp.statusplugin.filter;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.text.Normalizer;
+import java.util.*;
+
+/**
+ * An Aho–Corasick automaton matching a status against all blocked terms at once.
+ *
+ * <p>All terms are compiled into a single deterministic automaton, in which
+ * the failure links are already resolved into the transition table. Matching
+ * therefore reads each character of a status exactly once and performs a
+ * single table lookup per character, no matter how many terms are blocked.
+ *
+ * <p>Both the terms and the matched text are normalised the same way:
+ * <ul>
+ *     <li>accents are removed, so {@code é} matches {@code e},</li>
+ *     <li>letters are lower cased,</li>
+ *     <li>common leetspeak substitutions, such as {@code 4} for {@code a} or
+ *     {@code $} for {@code s}, are replaced by the letter they stand for, and</li>
+ *     <li>all characters which are neither letters nor digits are skipped, so
+ *     separating the letters of a term does not evade the filter.</li>
+ * </ul>
+ * Terms containing digits, such as {@code 88}, are exempt from the leetspeak
+ * substitutions. They are compiled into a second automaton, which matches
+ * them literally against the text, so they do not block ordinary words.
+ * Colour codes are not part of the matched text, as the filter is applied to
+ * the visible text of a compiled status.
+ *
+ * <p>A term only matches whole words by default, so a short term does not
+ * block the longer words containing it, such as {@code ass} within
+ * {@code Class}. A match counts as a whole word if the characters right
+ * before and after it are neither letters nor digits. As separators within a
+ * match are skipped, separating the letters of a term still does not evade
+ * the filter. A term starting with {@code *} also matches at the end of a
+ * longer word, a term ending with {@code *} also at its beginning, and a term
+ * enclosed in {@code *} anywhere within a word.
+ *
+ * <p>Instances are immutable and thus thread-safe.
+ *
+ * @see StatusFilter
+ */
+public final class BlocklistAutomaton {
+
+    /**
+     * An automaton without any term, which never matches.
+     */
+    public static final BlocklistAutomaton EMPTY = compile(List.of());
+
+    private static final String LEET_FROM = "01345789@$!|+";
+    private static final String LEET_TO = "oieastbgasilt";
+    private static final char WILDCARD = '*';
+    private static final int START_BOUNDARY = 1;
+    private static final int END_BOUNDARY = 2;
+
+    private final char[] alphabet;
+    private final int[] symbols;
+    private final int[] transitions;
+    private final int[] matches;
+    private final int[] dictionary;
+    private final int[] outputs;
+    private final int[] boundaries;
+    private final int[] depths;
+    private final String[] terms;
+    private final boolean leet;
+    private final BlocklistAutomaton literal;
+
+    private BlocklistAutomaton(char @NotNull [] alphabet, int @NotNull [] transitions, int @NotNull [] matches, int @NotNull [] dictionary,
+                               int @NotNull [] outputs, int @NotNull [] boundaries, int @NotNull [] depths, @NotNull String[] terms,
+                               boolean leet, @Nullable BlocklistAutomaton literal) {
+        this.alphabet = alphabet;
+        this.symbols = new int[128];
+        Arrays.fill(symbols, -1);
+        for (int symbol = 0; symbol < alphabet.length; symbol++) {
+            if (alphabet[symbol] < 128) {
+                symbols[alphabet[symbol]] = symbol;
+            }
+        }
+        this.transitions = transitions;
+        this.matches = matches;
+        this.dictionary = dictionary;
+        this.outputs = outputs;
+        this.boundaries = boundaries;
+        this.depths = depths;
+        this.terms = terms;
+        this.leet = leet;
+        this.literal = literal;
+    }
+
+    /**
+     * Compiles the given terms into an automaton.
+     *
+     * <p>Terms which are empty after normalisation are ignored. If several
+     * terms are equal after normalisation, the first one is reported, but
+     * matches within words are allowed if any of them allows them.
+     *
+     * @param terms the blocked terms. Must be non-{@code null}.
+     * @return the compiled automaton.
+     */
+    public static @NotNull BlocklistAutomaton compile(@NotNull Collection<String> terms) {
+        List<String> folded = new ArrayList<>(terms.size());
+        List<String> literal = new ArrayList<>();
+        for (String term : terms) {
+            if (normalise(term, false).chars().anyMatch(Character::isDigit)) {
+                literal.add(term);
+            } else {
+                folded.add(term);
+            }
+        }
+        return compile(folded, true, literal.isEmpty() ? null : compile(literal, false, null));
+    }
+
+    /**
+     * Compiles the given terms into a single automaton, which matches them with or without leetspeak substitutions.
+     */
+    private static @NotNull BlocklistAutomaton compile(@NotNull List<String> terms, boolean leet, @Nullable BlocklistAutomaton literal) {
+        List<String> normalised = new ArrayList<>(terms.size());
+        List<String> sources = new ArrayList<>(terms.size());
+        List<Integer> termBoundaries = new ArrayList<>(terms.size());
+        TreeSet<Character> characters = new TreeSet<>();
+        for (String term : terms) {
+            String text = normalise(term, leet);
+            if (!text.isEmpty()) {
+                String source = term.strip();
+                normalised.add(text);
+                sources.add(source);
+                termBoundaries.add((source.charAt(0) == WILDCARD ? 0 : START_BOUNDARY) | (source.charAt(source.length() - 1) == WILDCARD ? 0 : END_BOUNDARY));
+                text.chars().forEach(character -> characters.add((char) character));
+            }
+        }
+
+        char[] alphabet = new char[characters.size()];
+        int index = 0;
+        for (char character : characters) {
+            alphabet[index++] = character;
+        }
+        int width = Math.max(1, alphabet.length);
+
+        // build the trie, state 0 is the root
+        List<int[]> trie = new ArrayList<>();
+        List<Integer> trieOutputs = new ArrayList<>();
+        List<Integer> trieBoundaries = new ArrayList<>();
+        List<Integer> trieDepths = new ArrayList<>();
+        trie.add(newRow(width));
+        trieOutputs.add(-1);
+        trieBoundaries.add(0);
+        trieDepths.add(0);
+        for (int term = 0; term < normalised.size(); term++) {
+            int state = 0;
+            for (char character : normalised.get(term).toCharArray()) {
+                int symbol = Arrays.binarySearch(alphabet, character);
+                if (trie.get(state)[symbol] < 0) {
+                    trie.get(state)[symbol] = trie.size();
+                    trie.add(newRow(width));
+                    trieOutputs.add(-1);
+                    trieBoundaries.add(0);
+                    trieDepths.add(trieDepths.get(state) + 1);
+                }
+                state = trie.get(state)[symbol];
+            }
+            if (trieOutputs.get(state) < 0) {
+                trieOutputs.set(state, term);
+                trieBoundaries.set(state, termBoundaries.get(term));
+            } else { // an equal term, the looser boundaries win
+                trieBoundaries.set(state, trieBoundaries.get(state) & termBoundaries.get(term));
+            }
+        }
+
+        // resolve the failure links breadth first into a complete transition table
+        int states = trie.size();
+        int[] transitions = new int[states * width];
+        int[] outputs = new int[states];
+        int[] boundaries = new int[states];
+        int[] depths = new int[states];
+        for (int state = 0; state < states; state++) {
+            outputs[state] = trieOutputs.get(state);
+            boundaries[state] = trieBoundaries.get(state);
+            depths[state] = trieDepths.get(state);
+        }
+        int[] matches = new int[states];
+        int[] dictionary = new int[states];
+        int[] failure = new int[states];
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (int symbol = 0; symbol < width; symbol++) {
+            int next = trie.get(0)[symbol];
+            transitions[symbol] = Math.max(next, 0);
+            if (next > 0) {
+                queue.add(next);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            // the root never has an output, so 0 marks the end of the chain of outputs
+            dictionary[state] = outputs[failure[state]] >= 0 ? failure[state] : dictionary[failure[state]];
+            matches[state] = outputs[state] >= 0 ? state : dictionary[state];
+            for (int symbol = 0; symbol < width; symbol++) {
+                int next = trie.get(state)[symbol];
+                int fallback = transitions[failure[state] * width + symbol];
+                if (next < 0) {
+                    transitions[state * width + symbol] = fallback;
+                    continue;
+                }
+                failure[next] = fallback;
+                transitions[state * width + symbol] = next;
+                queue.add(next);
+            }
+        }
+        return new BlocklistAutomaton(alphabet, transitions, matches, dictionary, outputs, boundaries, depths, sources.toArray(String[]::new), leet, literal);
+    }
+
+    /**
+     * Finds the first blocked term contained in the given text.
+     *
+     * @param text the text to check, without colour codes. Must be non-{@code null}.
+     * @return the blocked term as it was given, or {@code null} if the text contains none.
+     */
+    public @Nullable String find(@NotNull String text) {
+        if (terms.length == 0 && literal == null) {
+            return null;
+        }
+
+        String decomposed = decompose(text);
+        String term = scan(decomposed);
+        return term == null && literal != null ? literal.scan(decomposed) : term;
+    }
+
+    private @Nullable String scan(@NotNull String decomposed) {
+        if (terms.length == 0) {
+            return null;
+        }
+
+        int width = alphabet.length;
+        int state = 0;
+        for (int i = 0; i < decomposed.length(); i++) {
+            char character = fold(decomposed.charAt(i), leet);
+            if (!Character.isLetterOrDigit(character)) {
+                continue; // separators do not interrupt a term
+            }
+
+            int symbol = symbol(character);
+            state = symbol < 0 ? 0 : transitions[state * width + symbol];
+            for (int match = matches[state]; match != 0; match = dictionary[match]) {
+                if (isBounded(decomposed, i, match)) {
+                    return terms[outputs[match]];
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Checks whether the term of the given state ending at the given index meets its word boundaries.
+     *
+     * <p>The start of the match is only searched for if the term requires a
+     * boundary there, which does not allocate and happens rarely.
+     */
+    private boolean isBounded(@NotNull String text, int end, int state) {
+        if ((boundaries[state] & END_BOUNDARY) != 0 && end + 1 < text.length() && isWordCharacter(text.charAt(end + 1), leet)) {
+            return false;
+        }
+        if ((boundaries[state] & START_BOUNDARY) == 0) {
+            return true;
+        }
+
+        int start = end;
+        for (int matched = 1; matched < depths[state]; ) {
+            if (isWordCharacter(text.charAt(--start), leet)) {
+                matched++;
+            }
+        }
+        return start == 0 || !isWordCharacter(text.charAt(start - 1), leet);
+    }
+
+    /**
+     * @return the number of blocked terms.
+     */
+    public int getTerms() {
+        return terms.length + (literal == null ? 0 : literal.getTerms());
+    }
+
+    /**
+     * @return the number of states of the automaton, including those matching terms literally.
+     */
+    public int getStates() {
+        return matches.length + (literal == null ? 0 : literal.getStates());
+    }
+
+    private int symbol(char character) {
+        if (character < 128) {
+            return symbols[character];
+        }
+        int symbol = Arrays.binarySearch(alphabet, character);
+        return symbol < 0 ? -1 : symbol;
+    }
+
+    private static int @NotNull [] newRow(int width) {
+        int[] row = new int[width];
+        Arrays.fill(row, -1);
+        return row;
+    }
+
+    private static @NotNull String normalise(@NotNull String term, boolean leet) {
+        String decomposed = decompose(term.strip());
+        StringBuilder builder = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char character = fold(decomposed.charAt(i), leet);
+            if (Character.isLetterOrDigit(character)) {
+                builder.append(character);
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Removes accents from the given text. Pure ASCII text is returned as it is.
+     */
+    private static @NotNull String decompose(@NotNull String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) >= 128) {
+                String decomposed = Normalizer.normalize(text, Normalizer.Form.NFKD);
+                StringBuilder builder = new StringBuilder(decomposed.length());
+                for (int j = 0; j < decomposed.length(); j++) {
+                    if (Character.getType(decomposed.charAt(j)) != Character.NON_SPACING_MARK) {
+                        builder.append(decomposed.charAt(j));
+                    }
+                }
+                return builder.toString();
+            }
+        }
+        return text;
+    }
+
+    private static boolean isWordCharacter(char character, boolean leet) {
+        return Character.isLetterOrDigit(fold(character, leet));
+    }
+
+    /**
+     * Lower cases the given character and, if requested, replaces leetspeak substitutions by the letter they stand for.
+     */
+    private static char fold(char character, boolean leet) {
+        int substitution = leet ? LEET_FROM.indexOf(character) : -1;
+        return substitution >= 0 ? LEET_TO.charAt(substitution) : Character.toLowerCase(character);
+    }
+}
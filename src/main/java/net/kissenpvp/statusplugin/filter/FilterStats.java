@@ -0,0 +1,30 @@
+/*
+ * Copyright (C) 2023 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+package net.kissenpvp.statusplugin.filter;
+
+/**
+ * An immutable snapshot of the counters of a {@link StatusFilter}.
+ *
+ * @param terms   the number of blocked terms.
+ * @param states  the number of states of the compiled automaton.
+ * @param checked the number of statuses which have been checked.
+ * @param blocked the number of statuses which have been rejected.
+ * @see StatusFilter#getStats()
+ */
+public record FilterStats(int terms, int states, long checked, long blocked) {}
@@ -0,0 +1,145 @@
+/*
+ * Copyright (C) 2023 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+package net.kissenpvp.statusplugin.filter;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Rejects statuses containing blocked terms, such as slurs or advertising.
+ *
+ * <p>The blocked terms are read from a plain text file with one term per
+ * line. Empty lines and lines starting with {@code #} are ignored. Terms only
+ * match whole words, unless they start or end with the wildcard {@code *},
+ * see {@link BlocklistAutomaton} for details. All terms
+ * are compiled into a single {@link BlocklistAutomaton}, so checking a status
+ * costs the same no matter how many terms are blocked.
+ *
+ * <p>When the file is reloaded, the new automaton is compiled on the given
+ * executor and swapped in once it is complete. Until then, statuses are
+ * checked against the previous one. The automaton is published through a
+ * volatile field, so checks on any thread see the new one as soon as it has
+ * been swapped in. This class is thread-safe.
+ *
+ * @see BlocklistAutomaton
+ * @see FilterStats
+ */
+public class StatusFilter {
+
+    private final Path file;
+    private final LongAdder checked = new LongAdder();
+    private final LongAdder blocked = new LongAdder();
+    private volatile BlocklistAutomaton automaton = BlocklistAutomaton.EMPTY;
+
+    /**
+     * Constructor for creating a new {@code StatusFilter}.
+     *
+     * <p>The filter does not block anything until the file has been loaded.
+     *
+     * @param file the file containing the blocked terms. Must be non-{@code null}.
+     */
+    public StatusFilter(@NotNull Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Reads the blocked terms and replaces the automaton.
+     *
+     * <p>If the file does not exist, it is created with a short explanation,
+     * and nothing is blocked. This method blocks while the file is read and
+     * the automaton is compiled, so it must be called off the main thread, as
+     * {@link #reload(Executor)} does. The only exception is the initial load
+     * while the plug-in is enabling, before any player may join.
+     *
+     * @return the number of blocked terms.
+     * @throws IOException if the file could not be read or created.
+     */
+    public int load() throws IOException {
+        if (Files.notExists(file)) {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            Files.writeString(file, """
+                    # One blocked term per line. Colour codes, accents, leetspeak and separators are ignored.
+                    # Terms match whole words only: start a term with * to also match the end of a word,
+                    # end it with * to also match the start of a word, or do both to match anywhere.
+                    """, StandardCharsets.UTF_8);
+        }
+
+        List<String> terms = new ArrayList<>();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            if (!line.isBlank() && !line.strip().startsWith("#")) {
+                terms.add(line);
+            }
+        }
+
+        BlocklistAutomaton compiled = BlocklistAutomaton.compile(terms);
+        automaton = compiled;
+        return compiled.getTerms();
+    }
+
+    /**
+     * Reads the blocked terms and compiles the new automaton on the given executor.
+     *
+     * @param executor the executor to compile on, usually an asynchronous one. Must be non-{@code null}.
+     * @return a future which is completed with the number of blocked terms once the new automaton is in use.
+     */
+    public @NotNull CompletableFuture<Integer> reload(@NotNull Executor executor) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return load();
+            } catch (IOException ioException) {
+                throw new IllegalStateException("Could not read the blocked terms.", ioException);
+            }
+        }, executor);
+    }
+
+    /**
+     * Checks the given text for blocked terms.
+     *
+     * @param text the visible text of a status, without colour codes. Must be non-{@code null}.
+     * @return the blocked term which was found, or {@code null} if the text may be used.
+     */
+    public @Nullable String check(@NotNull String text) {
+        checked.increment();
+        String term = automaton.find(text);
+        if (term != null) {
+            blocked.increment();
+        }
+        return term;
+    }
+
+    /**
+     * Creates a snapshot of the counters of this filter.
+     *
+     * @return the current statistics of this filter.
+     */
+    public @NotNull FilterStats getStats() {
+        BlocklistAutomaton current = automaton;
+        return new FilterStats(current.getTerms(), current.getStates(), checked.sum(), blocked.sum());
+    }
+}
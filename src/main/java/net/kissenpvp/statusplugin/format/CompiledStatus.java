@@ -0,0 +1,46 @@
+/*
+ * Copyright (C) 2023 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+package net.kissenpvp.statusplugin.format;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * The immutable, compiled form of a status as entered by a player.
+ *
+ * <p>Instances are created by the {@link StatusFormatter} once per distinct
+ * input and shared by all players using the same status.
+ *
+ * @param source        the status as it was entered. Must be non-{@code null}.
+ * @param rendered      the status with all colour codes translated into section sign codes and a
+ *                      trailing space, ready to be put in front of a player's name. Must be non-{@code null}.
+ * @param plain         the visible text of the status without any colour codes. Must be non-{@code null}.
+ * @param visibleLength the number of visible characters of the status.
+ * @see StatusFormatter#compile(String)
+ */
+public record CompiledStatus(@NotNull String source, @NotNull String rendered, @NotNull String plain, int visibleLength) {
+
+    /**
+     * Checks whether this status contains any visible character.
+     *
+     * @return {@code true} if the status only consists of colour codes and white space.
+     */
+    public boolean isBlank() {
+        return plain.isBlank();
+    }
+}
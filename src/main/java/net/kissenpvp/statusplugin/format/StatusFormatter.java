@@ -0,0 +1,235 @@
+/*
+ * Copyright (C) 2023 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+package net.kissenpvp.statusplugin.format;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * Translates statuses entered by players into their displayable form.
+ *
+ * <p>The formatter supports the following syntax:
+ * <ul>
+ *     <li>legacy colour and formatting codes, such as {@code &c} or {@code &l},</li>
+ *     <li>hex colours in the form of {@code &#RRGGBB},</li>
+ *     <li>gradients in the form of {@code <gradient:#RRGGBB:#RRGGBB>text</gradient>}
+ *     with two or more colour stops, in which legacy formatting codes are kept.</li>
+ * </ul>
+ * Ampersands which do not start a valid code are kept as they are. Codes which
+ * already use the section sign, such as those of a status compiled before, are
+ * kept as well, so compiling a rendered status yields the same status again. The length
+ * limit only counts visible characters, so colour codes do not take up any of
+ * it. Characters exceeding the limit are cut off.
+ *
+ * <p>Each distinct input is parsed only once. The resulting {@link CompiledStatus}
+ * is cached by its content, so popular statuses shared by many players reuse
+ * the same compiled form, including the very same rendered string instance.
+ * The cache is bounded and evicts the least recently used entries. This class
+ * is thread-safe.
+ *
+ * @see CompiledStatus
+ */
+public class StatusFormatter {
+
+    private static final String LEGACY_CODES = "0123456789abcdefklmnor";
+    private static final String FORMAT_CODES = "klmno";
+    private static final String SECTION_CODES = LEGACY_CODES + "x";
+    private static final String GRADIENT_OPEN = "<gradient:";
+    private static final String GRADIENT_CLOSE = "</gradient>";
+
+    private final int maxLength;
+    private final Map<String, CompiledStatus> cache;
+
+    /**
+     * Constructor for creating a new {@code StatusFormatter}.
+     *
+     * @param maxLength the maximum number of visible characters of a status.
+     * @param cacheSize the maximum number of compiled statuses which are cached.
+     */
+    public StatusFormatter(int maxLength, int cacheSize) {
+        this.maxLength = maxLength;
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CompiledStatus> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    /**
+     * Compiles the given status, or returns its cached compiled form.
+     *
+     * @param status the status as entered by a player. Must be non-{@code null}.
+     * @return the compiled status.
+     */
+    public @NotNull CompiledStatus compile(@NotNull String status) {
+        CompiledStatus compiled = cache.get(status);
+        if (compiled == null) {
+            compiled = parse(status);
+            cache.put(status, compiled);
+        }
+        return compiled;
+    }
+
+    private @NotNull CompiledStatus parse(@NotNull String source) {
+        String input = source.strip();
+        StringBuilder rendered = new StringBuilder(input.length() + 16);
+        StringBuilder plain = new StringBuilder(input.length());
+
+        int i = 0;
+        while (i < input.length()) {
+            if (input.startsWith(GRADIENT_OPEN, i)) {
+                int tagEnd = input.indexOf('>', i);
+                int close = tagEnd < 0 ? -1 : input.indexOf(GRADIENT_CLOSE, tagEnd);
+                int[] stops = tagEnd < 0 ? null : parseStops(input.substring(i + GRADIENT_OPEN.length(), tagEnd));
+                if (close >= 0 && stops != null) {
+                    appendGradient(rendered, plain, stops, input.substring(tagEnd + 1, close));
+                    i = close + GRADIENT_CLOSE.length();
+                    continue;
+                }
+            }
+
+            char character = input.charAt(i);
+            if (character == '&' && isHexCode(input, i)) {
+                appendHex(rendered, Integer.parseInt(input.substring(i + 2, i + 8), 16));
+                i += 8;
+                continue;
+            }
+            if (character == '&' && i + 1 < input.length() && LEGACY_CODES.indexOf(Character.toLowerCase(input.charAt(i + 1))) >= 0) {
+                rendered.append('§').append(Character.toLowerCase(input.charAt(i + 1)));
+                i += 2;
+                continue;
+            }
+            if (character == '§' && i + 1 < input.length() && SECTION_CODES.indexOf(Character.toLowerCase(input.charAt(i + 1))) >= 0) {
+                rendered.append('§').append(Character.toLowerCase(input.charAt(i + 1)));
+                i += 2;
+                continue;
+            }
+
+            if (plain.length() < maxLength) {
+                rendered.append(character);
+                plain.append(character);
+            }
+            i++;
+        }
+
+        String visible = plain.toString().strip();
+        return new CompiledStatus(source, rendered.toString().strip() + " ", visible, visible.length());
+    }
+
+    /**
+     * Appends the given text, coloured by a gradient through the given colour stops.
+     *
+     * <p>Legacy formatting codes within the text are kept and repeated after
+     * each colour, as a colour code resets them. Colour codes within the text
+     * are ignored. White space is appended without colour.
+     */
+    private void appendGradient(@NotNull StringBuilder rendered, @NotNull StringBuilder plain, int @NotNull [] stops, @NotNull String text) {
+        List<Character> characters = new ArrayList<>();
+        List<String> formats = new ArrayList<>();
+        StringBuilder format = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char character = text.charAt(i);
+            if (character == '&' && i + 1 < text.length()) {
+                char code = Character.toLowerCase(text.charAt(i + 1));
+                if (FORMAT_CODES.indexOf(code) >= 0) {
+                    format.append('§').append(code);
+                    i++;
+                    continue;
+                }
+                if (code == 'r') {
+                    format.setLength(0);
+                    i++;
+                    continue;
+                }
+                if (LEGACY_CODES.indexOf(code) >= 0) {
+                    i++;
+                    continue;
+                }
+            }
+
+            if (plain.length() + characters.size() < maxLength) {
+                characters.add(character);
+                formats.add(format.toString());
+            }
+        }
+
+        for (int i = 0; i < characters.size(); i++) {
+            char character = characters.get(i);
+            if (!Character.isWhitespace(character)) {
+                appendHex(rendered, interpolate(stops, characters.size() == 1 ? 0 : (double) i / (characters.size() - 1)));
+                rendered.append(formats.get(i));
+            }
+            rendered.append(character);
+            plain.append(character);
+        }
+    }
+
+    private static int interpolate(int @NotNull [] stops, double progress) {
+        double position = progress * (stops.length - 1);
+        int index = Math.min((int) position, stops.length - 2);
+        double local = position - index;
+        int from = stops[index];
+        int to = stops[index + 1];
+
+        int red = (int) Math.round(((from >> 16) & 0xFF) + (((to >> 16) & 0xFF) - ((from >> 16) & 0xFF)) * local);
+        int green = (int) Math.round(((from >> 8) & 0xFF) + (((to >> 8) & 0xFF) - ((from >> 8) & 0xFF)) * local);
+        int blue = (int) Math.round((from & 0xFF) + ((to & 0xFF) - (from & 0xFF)) * local);
+        return (red << 16) | (green << 8) | blue;
+    }
+
+    private static void appendHex(@NotNull StringBuilder rendered, int rgb) {
+        rendered.append("§x");
+        for (int shift = 20; shift >= 0; shift -= 4) {
+            rendered.append('§').append(Character.forDigit((rgb >> shift) & 0xF, 16));
+        }
+    }
+
+    private static int @Nullable [] parseStops(@NotNull String stops) {
+        String[] colours = stops.split(":");
+        if (colours.length < 2) {
+            return null;
+        }
+
+        int[] parsed = new int[colours.length];
+        for (int i = 0; i < colours.length; i++) {
+            String colour = colours[i];
+            if (colour.length() != 7 || colour.charAt(0) != '#' || !isHex(colour, 1, 7)) {
+                return null;
+            }
+            parsed[i] = Integer.parseInt(colour.substring(1), 16);
+        }
+        return parsed;
+    }
+
+    private static boolean isHexCode(@NotNull String input, int index) {
+        return index + 8 <= input.length() && input.charAt(index + 1) == '#' && isHex(input, index + 2, index + 8);
+    }
+
+    private static boolean isHex(@NotNull String input, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (Character.digit(input.charAt(i), 16) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
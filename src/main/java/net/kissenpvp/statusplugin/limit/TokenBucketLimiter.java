@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2023 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+package net.kissenpvp.statusplugin.limit;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Limits how often each player may perform an action, using one token bucket per player.
+ *
+ * <p>Every bucket holds up to {@code capacity} tokens and regains tokens at a
+ * constant rate. Each permitted action consumes one token, an action is
+ * rejected if no token is left. This allows short bursts while capping the
+ * sustained rate of each player.
+ *
+ * <p>Once a player's bucket exists, {@link #tryAcquire(UUID)} does not
+ * allocate. Buckets which have been refilled completely carry no state and are
+ * removed by {@link #evictIdle()}. This class is thread-safe.
+ */
+public class TokenBucketLimiter {
+
+    private final double capacity;
+    private final double tokensPerNano;
+    private final Map<UUID, Bucket> buckets = new ConcurrentHashMap<>();
+    private final Function<UUID, Bucket> bucketFactory;
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * Constructor for creating a new {@code TokenBucketLimiter}.
+     *
+     * @param capacity        the maximum number of actions a player may perform in a burst.
+     * @param refillPerSecond the number of actions a player regains per second.
+     */
+    public TokenBucketLimiter(int capacity, double refillPerSecond) {
+        this.capacity = Math.max(1, capacity);
+        this.tokensPerNano = refillPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.bucketFactory = uuid -> new Bucket(this.capacity, System.nanoTime());
+    }
+
+    /**
+     * Tries to consume a token of the player with the given unique ID.
+     *
+     * @param uuid the unique ID of the player. Must be non-{@code null}.
+     * @return {@code true} if the action is permitted, {@code false} if it has to be rejected.
+     */
+    public boolean tryAcquire(@NotNull UUID uuid) {
+        Bucket bucket = buckets.get(uuid);
+        if (bucket == null) {
+            bucket = buckets.computeIfAbsent(uuid, bucketFactory);
+        }
+
+        if (bucket.tryAcquire(System.nanoTime())) {
+            return true;
+        }
+        rejected.increment();
+        return false;
+    }
+
+    /**
+     * Removes all buckets which have been refilled completely.
+     */
+    public void evictIdle() {
+        long now = System.nanoTime();
+        buckets.values().removeIf(bucket -> bucket.isFull(now));
+    }
+
+    /**
+     * Returns the number of actions which have been rejected.
+     *
+     * @return the number of rejected actions.
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    private final class Bucket {
+
+        private double tokens;
+        private long lastRefill;
+
+        private Bucket(double tokens, long lastRefill) {
+            this.tokens = tokens;
+            this.lastRefill = lastRefill;
+        }
+
+        private synchronized boolean tryAcquire(long now) {
+            refill(now);
+            if (tokens < 1) {
+                return false;
+            }
+            tokens--;
+            return true;
+        }
+
+        private synchronized boolean isFull(long now) {
+            refill(now);
+            return tokens >= capacity;
+        }
+
+        private void refill(long now) {
+            tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+            lastRefill = now;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright (C) 2023 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+package net.kissenpvp.statusplugin.metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+
+/**
+ * Exports {@link StatusMetrics} in the Prometheus text exposition format.
+ *
+ * <p>Counters are exported with the {@code _total} suffix, latencies as
+ * summaries in seconds with the quantiles {@code 0.5}, {@code 0.9},
+ * {@code 0.99} and {@code 0.999}, and all names carry the
+ * {@value #PREFIX} prefix.
+ *
+ * <p>The metrics may be written into a file, which is replaced atomically so
+ * a node exporter never reads a partial file, or served through an HTTP
+ * endpoint at {@code /metrics}. Both run off the main thread.
+ *
+ * @see StatusMetrics
+ */
+public class PrometheusExporter implements AutoCloseable {
+
+    private static final String PREFIX = "statusplugin_";
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private final StatusMetrics metrics;
+    private HttpServer httpServer;
+
+    /**
+     * Constructor for creating a new {@code PrometheusExporter}.
+     *
+     * @param metrics the metrics to export. Must be non-{@code null}.
+     */
+    public PrometheusExporter(@NotNull StatusMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Renders all metrics in the Prometheus text exposition format.
+     *
+     * @return the rendered metrics.
+     */
+    public @NotNull String scrape() {
+        StringBuilder builder = new StringBuilder(4096);
+        for (StatusMetrics.Counter counter : StatusMetrics.Counter.values()) {
+            appendCounter(builder, counter.getName(), counter.getHelp(), metrics.get(counter));
+        }
+        for (StatusMetrics.Timer timer : StatusMetrics.Timer.values()) {
+            appendSummary(builder, timer.getName() + "_seconds", timer.getHelp(), metrics.get(timer));
+        }
+        for (StatusMetrics.Sample sample : metrics.getSamples()) {
+            if (sample.counter()) {
+                appendCounter(builder, sample.name(), sample.help(), sample.supplier().getAsLong());
+                continue;
+            }
+            appendHeader(builder, sample.name(), sample.help(), "gauge");
+            builder.append(PREFIX).append(sample.name()).append(' ').append(sample.supplier().getAsLong()).append('\n');
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Writes all metrics into the given file.
+     *
+     * <p>The metrics are written into a temporary file first, which then
+     * replaces the given file. This method blocks and must not be called from
+     * the main thread.
+     *
+     * @param file the file to write. Must be non-{@code null}.
+     * @throws IOException if the file could not be written.
+     */
+    public void writeTo(@NotNull Path file) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.writeString(temporary, scrape(), StandardCharsets.UTF_8);
+        try {
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException atomicMoveNotSupportedException) {
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Serves the metrics at {@code /metrics} on the given address.
+     *
+     * <p>Requests are handled on the dispatcher thread of the HTTP server.
+     *
+     * @param address the address to bind to. Must be non-{@code null}.
+     * @throws IOException if the address could not be bound.
+     */
+    public void serve(@NotNull InetSocketAddress address) throws IOException {
+        httpServer = HttpServer.create(address, 0);
+        httpServer.createContext("/metrics", this::handle);
+        httpServer.start();
+    }
+
+    @Override
+    public void close() {
+        if (httpServer != null) {
+            httpServer.stop(0);
+            httpServer = null;
+        }
+    }
+
+    private void handle(@NotNull HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!exchange.getRequestMethod().equals("GET")) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+
+            byte[] body = scrape().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream outputStream = exchange.getResponseBody()) {
+                outputStream.write(body);
+            }
+        }
+    }
+
+    private static void appendCounter(@NotNull StringBuilder builder, @NotNull String name, @NotNull String help, long value) {
+        appendHeader(builder, name + "_total", help, "counter");
+        builder.append(PREFIX).append(name).append("_total ").append(value).append('\n');
+    }
+
+    private static void appendSummary(@NotNull StringBuilder builder, @NotNull String name, @NotNull String help, @NotNull LatencyHistogram histogram) {
+        appendHeader(builder, name, help, "summary");
+        for (double quantile : QUANTILES) {
+            builder.append(PREFIX).append(name).append("{quantile=\"").append(quantile).append("\"} ")
+                    .append(seconds(histogram.getValueAtQuantile(quantile))).append('\n');
+        }
+        builder.append(PREFIX).append(name).append("_sum ").append(seconds(histogram.getSum())).append('\n');
+        builder.append(PREFIX).append(name).append("_count ").append(histogram.getCount()).append('\n');
+    }
+
+    private static void appendHeader(@NotNull StringBuilder builder, @NotNull String name, @NotNull String help, @NotNull String type) {
+        builder.append("# HELP ").append(PREFIX).append(name).append(' ').append(help).append('\n');
+        builder.append("# TYPE ").append(PREFIX).append(name).append(' ').append(type).append('\n');
+    }
+
+    private static @NotNull String seconds(long nanos) {
+        return String.format(Locale.ROOT, "%.9f", nanos / 1e9);
+    }
+}
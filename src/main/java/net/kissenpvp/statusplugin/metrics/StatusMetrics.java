@@ -0,0 +1,258 @@
+/*
+ * Copyright (C) 2023 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+package net.kissenpvp.statusplugin.metrics;
+
+import lombok.Getter;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Collects the operational metrics of this plug-in.
+ *
+ * <p>Operations are counted through striped {@link LongAdder}s, so threads
+ * incrementing the same counter do not contend. Latencies are recorded into
+ * {@link LatencyHistogram}s. Values owned by other components, such as the
+ * number of statuses held in memory, are registered as {@link Sample}s and
+ * read only when the metrics are exported. Several samples derived from one
+ * expensive reading share it through {@link #perScrape(Supplier)}, so it is
+ * taken once per export rather than once per sample.
+ *
+ * <p>If the metrics are disabled, {@link #start()} does not read the clock and
+ * all recording methods return right away, so instrumented code costs no more
+ * than a field read and a branch.
+ *
+ * <p>This class is thread-safe.
+ *
+ * @see PrometheusExporter
+ */
+public class StatusMetrics {
+
+    @Getter
+    private final boolean enabled;
+    private final LongAdder[] counters = new LongAdder[Counter.values().length];
+    private final LatencyHistogram[] timers = new LatencyHistogram[Timer.values().length];
+    private final List<Sample> samples = new ArrayList<>();
+    private final AtomicLong scrapes = new AtomicLong();
+
+    /**
+     * Constructor for creating a new {@code StatusMetrics}.
+     *
+     * @param enabled whether operations are counted and timed at all.
+     */
+    public StatusMetrics(boolean enabled) {
+        this.enabled = enabled;
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] = new LongAdder();
+        }
+        for (int i = 0; i < timers.length; i++) {
+            timers[i] = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * Counts a single occurrence of the given operation.
+     *
+     * @param counter the operation which occurred. Must be non-{@code null}.
+     */
+    public void increment(@NotNull Counter counter) {
+        if (enabled) {
+            counters[counter.ordinal()].increment();
+        }
+    }
+
+    /**
+     * Starts timing an operation.
+     *
+     * @return the start time to be passed to {@link #stop(Timer, long)}, or {@code 0} if the metrics are disabled.
+     */
+    public long start() {
+        return enabled ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * Records the latency of an operation started through {@link #start()}.
+     *
+     * @param timer the operation which has completed. Must be non-{@code null}.
+     * @param start the value returned by {@link #start()}.
+     */
+    public void stop(@NotNull Timer timer, long start) {
+        if (enabled) {
+            timers[timer.ordinal()].record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Registers a value owned by another component, which is read when the metrics are exported.
+     *
+     * <p>The supplier may be called from any thread and must therefore be thread-safe.
+     *
+     * @param name     the name of the value, without prefix. Must be non-{@code null}.
+     * @param help     a description of the value. Must be non-{@code null}.
+     * @param counter  {@code true} if the value only ever increases, {@code false} if it is a gauge.
+     * @param supplier the supplier reading the value. Must be non-{@code null}.
+     */
+    public synchronized void register(@NotNull String name, @NotNull String help, boolean counter, @NotNull LongSupplier supplier) {
+        samples.add(new Sample(name, help, counter, supplier));
+    }
+
+    /**
+     * Wraps a reading so that it is taken at most once per export.
+     *
+     * <p>The returned supplier calls {@code source} the first time it is read
+     * after {@link #getSamples()} and returns the same value until the next
+     * call of {@link #getSamples()}. Samples registered with suppliers derived
+     * from it therefore report consistent values from a single reading.
+     *
+     * @param source the reading to share. Must be non-{@code null} and thread-safe.
+     * @param <T>    the type of the reading.
+     * @return a supplier returning the reading of the current export.
+     */
+    public <T> @NotNull Supplier<T> perScrape(@NotNull Supplier<T> source) {
+        return new Supplier<>() {
+            private long scrape = -1;
+            private T value;
+
+            @Override
+            public synchronized T get() {
+                long current = scrapes.get();
+                if (scrape != current) {
+                    value = source.get();
+                    scrape = current;
+                }
+                return value;
+            }
+        };
+    }
+
+    /**
+     * @param counter the operation. Must be non-{@code null}.
+     * @return the number of occurrences of the operation.
+     */
+    public long get(@NotNull Counter counter) {
+        return counters[counter.ordinal()].sum();
+    }
+
+    /**
+     * @param timer the operation. Must be non-{@code null}.
+     * @return the histogram of latencies of the operation.
+     */
+    public @NotNull LatencyHistogram get(@NotNull Timer timer) {
+        return timers[timer.ordinal()];
+    }
+
+    /**
+     * Returns the registered values for an export.
+     *
+     * <p>Each call starts a new export, so readings shared through
+     * {@link #perScrape(Supplier)} are taken again.
+     *
+     * @return the values registered through {@link #register(String, String, boolean, LongSupplier)}.
+     */
+    public synchronized @NotNull List<Sample> getSamples() {
+        scrapes.incrementAndGet();
+        return Collections.unmodifiableList(new ArrayList<>(samples));
+    }
+
+    /**
+     * The operations which are counted.
+     */
+    @Getter
+    public enum Counter {
+
+        /**
+         * A status has been set, either by a player, in bulk or through the API.
+         */
+        STATUS_SET("status_set", "Statuses which have been set."),
+
+        /**
+         * A status has been cleared.
+         */
+        STATUS_CLEARED("status_cleared", "Statuses which have been cleared."),
+
+        /**
+         * A timed status has expired.
+         */
+        STATUS_EXPIRED("status_expired", "Timed statuses which have expired."),
+
+        /**
+         * A status change has been cancelled by a listener or rejected as blank.
+         */
+        CANCELLED("status_cancelled", "Status changes which have been cancelled or rejected."),
+
+        /**
+         * A player has executed {@code /status} or {@code /cstatus}.
+         */
+        COMMAND("command", "Status commands which have been executed by players.");
+
+        private final String name;
+        private final String help;
+
+        Counter(@NotNull String name, @NotNull String help) {
+            this.name = name;
+            this.help = help;
+        }
+    }
+
+    /**
+     * The operations which are timed.
+     */
+    @Getter
+    public enum Timer {
+
+        /**
+         * The dispatch of a status event to its listeners.
+         */
+        EVENT_DISPATCH("event_dispatch", "Dispatch of status events to their listeners."),
+
+        /**
+         * The rendering of all dirty player list names within a tick.
+         */
+        TAB_REFRESH("tab_refresh", "Rendering of the dirty player list names within a tick."),
+
+        /**
+         * The work of {@code /status} or {@code /cstatus} on the main thread, which commits the change and replies.
+         */
+        COMMAND("command", "Main thread execution of status commands.");
+
+        private final String name;
+        private final String help;
+
+        Timer(@NotNull String name, @NotNull String help) {
+            this.name = name;
+            this.help = help;
+        }
+    }
+
+    /**
+     * A value owned by another component.
+     *
+     * @param name     the name of the value, without prefix.
+     * @param help     a description of the value.
+     * @param counter  {@code true} if the value only ever increases.
+     * @param supplier the supplier reading the value.
+     */
+    public record Sample(@NotNull String name, @NotNull String help, boolean counter, @NotNull LongSupplier supplier) {}
+}
@@ -0,0 +1,626 @@
+/*
+ * Copyright (C) 2023 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+package net.kissenpvp.statusplugin.store;
+
+import net.kissenpvp.statusplugin.cache.MemoryUsage;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.ObjLongConsumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * A write-behind {@link StatusStore} backed by an append-only journal file.
+ *
+ * <p>Writes handed to this store are only recorded in a map of dirty entries,
+ * in which repeated writes for the same player collapse into the latest one.
+ * A single background thread periodically drains this map and appends one
+ * record per entry to the journal, followed by a call to
+ * {@link FileChannel#force(boolean)}. A status is therefore durable once the
+ * flush covering it has returned, while the main thread never waits on I/O.
+ *
+ * <p>Each record is laid out as {@code [crc32][op][uuid msb][uuid lsb][length][utf-8 bytes]},
+ * where the checksum covers everything following it. A crash in the middle of
+ * a flush can thus only leave a torn record at the very end of the journal,
+ * which is detected and cut off when the journal is opened on the next start-up.
+ * Every record in front of it, and thereby every completed flush, survives.
+ * Timed statuses are written as records of their own operation, whose payload
+ * starts with the absolute expiry in milliseconds since the epoch.
+ *
+ * <p>The statuses themselves are not kept in memory. When the journal is opened
+ * it is read sequentially through a fixed window, which only builds an index
+ * relating each player to the position of their latest record, along with the
+ * expiries of the timed statuses. {@link #load(UUID)} then reads that single
+ * record from disk.
+ *
+ * <p>As the journal keeps growing with every write, it is compacted
+ * periodically: the live records are copied into a temporary file which
+ * atomically replaces the journal once it has been forced to disk. Should the
+ * process die during compaction, the original journal stays untouched.
+ *
+ * <p>Writes and flushes are rejected with an {@link IllegalStateException}
+ * unless the store is open, so they are never collected without being persisted.
+ *
+ * @see StatusStore
+ */
+public class JournalStatusStore implements StatusStore {
+
+    private static final byte OP_PUT = 1;
+    private static final byte OP_REMOVE = 2;
+    private static final byte OP_PUT_TIMED = 3;
+    private static final int CHECKSUM_SIZE = Integer.BYTES;
+    private static final int HEADER_SIZE = Byte.BYTES + 2 * Long.BYTES + Integer.BYTES;
+    private static final Pending TOMBSTONE = new Pending(null, 0);
+    private static final int PENDING_BYTES = 24;
+    private static final int EXPIRY_BYTES = MemoryUsage.MAP_ENTRY_BYTES + MemoryUsage.UUID_BYTES + MemoryUsage.LONG_BYTES;
+    private static final int SCAN_WINDOW = 1 << 20;
+
+    private final Path journal;
+    private final Path compactionFile;
+    private final Logger logger;
+    private final Map<UUID, Pending> dirty = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService executor;
+    private final long flushIntervalMillis;
+    private final long compactIntervalMillis;
+    private final LongAdder dirtyBytes = new LongAdder();
+    private volatile int indexed;
+    private volatile int timed;
+    private Map<UUID, Long> index = new HashMap<>();
+    private final Map<UUID, Long> expiries = new HashMap<>();
+    private volatile boolean open;
+    private FileChannel channel;
+    private long end;
+    private long appendedSinceCompaction;
+
+    /**
+     * Constructor for creating a new {@code JournalStatusStore}.
+     *
+     * <p>The store does not touch the file system until {@link #open()} is called.
+     *
+     * @param journal               the path of the journal file. Must be non-{@code null}.
+     * @param logger                the logger used to report I/O failures. Must be non-{@code null}.
+     * @param flushIntervalMillis   the delay between two flushes of the dirty entries in milliseconds.
+     * @param compactIntervalMillis the delay between two compactions of the journal in milliseconds.
+     */
+    public JournalStatusStore(@NotNull Path journal, @NotNull Logger logger, long flushIntervalMillis, long compactIntervalMillis) {
+        this.journal = journal;
+        this.compactionFile = journal.resolveSibling(journal.getFileName() + ".compact");
+        this.logger = logger;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.compactIntervalMillis = compactIntervalMillis;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "StatusPlugin-Journal");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Reads the journal sequentially to build the index, repairs a torn
+     * tail if present and starts the background flush and compaction tasks.
+     *
+     * @throws IOException if the journal could not be read or opened for writing.
+     */
+    @Override
+    public synchronized void open() throws IOException {
+        Files.createDirectories(journal.toAbsolutePath().getParent());
+        Files.deleteIfExists(compactionFile); // leftover of an interrupted compaction
+
+        channel = FileChannel.open(journal, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        end = replay(channel, index, expiries);
+        if (end < channel.size()) {
+            logger.warning(String.format("Discarding %d bytes of a torn record at the end of %s.", channel.size() - end, journal.getFileName()));
+            channel.truncate(end);
+            channel.force(true);
+        }
+        indexed = index.size();
+        timed = expiries.size();
+        open = true;
+
+        executor.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+        executor.scheduleWithFixedDelay(this::compactQuietly, compactIntervalMillis, compactIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized @Nullable String load(@NotNull UUID uuid) throws IOException {
+        Pending pending = dirty.get(uuid);
+        if (pending != null) {
+            return pending.status();
+        }
+
+        Long offset = index.get(uuid);
+        if (offset == null || channel == null) {
+            return null;
+        }
+        ByteBuffer record = readRecord(channel, offset);
+        return StandardCharsets.UTF_8.decode(record.position(payloadOffset(record.get(CHECKSUM_SIZE)))).toString();
+    }
+
+    @Override
+    public void put(@NotNull UUID uuid, @NotNull String status) {
+        mark(uuid, new Pending(status, 0));
+    }
+
+    @Override
+    public void put(@NotNull UUID uuid, @NotNull String status, long expiresAt) {
+        mark(uuid, new Pending(status, expiresAt));
+    }
+
+    @Override
+    public void remove(@NotNull UUID uuid) {
+        mark(uuid, TOMBSTONE);
+    }
+
+    private void mark(@NotNull UUID uuid, @NotNull Pending pending) {
+        checkOpen();
+        dirtyBytes.add(estimate(pending) - estimate(dirty.put(uuid, pending)));
+    }
+
+    /**
+     * Appends all dirty entries to the journal and forces them to disk.
+     *
+     * <p>Entries are removed from the dirty map one by one, so a write issued
+     * concurrently is either part of this flush or stays dirty for the next one.
+     * Should the write fail, the drained entries are put back unless they have
+     * been overwritten in the meantime, and the journal is cut back to its last
+     * complete record. As records are always written at that position rather
+     * than at the position of the channel, a failing truncation merely leaves
+     * bytes which the next flush overwrites. It is therefore only attached to
+     * the original failure as a suppressed exception.
+     *
+     * @throws IOException           if the journal could not be written.
+     * @throws IllegalStateException if the store is not open.
+     */
+    public synchronized void flush() throws IOException {
+        checkOpen();
+        if (dirty.isEmpty()) {
+            return;
+        }
+
+        long position = end;
+        Map<UUID, Pending> drained = new HashMap<>();
+        Map<UUID, Long> offsets = new HashMap<>();
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        for (UUID uuid : dirty.keySet()) {
+            Pending pending = dirty.remove(uuid);
+            if (pending != null) {
+                dirtyBytes.add(-estimate(pending));
+                drained.put(uuid, pending);
+                offsets.put(uuid, position + buffer.size());
+                buffer.writeBytes(encode(uuid, pending));
+            }
+        }
+
+        try {
+            write(channel, ByteBuffer.wrap(buffer.toByteArray()), position);
+            channel.force(false);
+        } catch (IOException | RuntimeException writeException) {
+            drained.forEach((uuid, pending) -> {
+                if (dirty.putIfAbsent(uuid, pending) == null) {
+                    dirtyBytes.add(estimate(pending));
+                }
+            });
+            try {
+                channel.truncate(position);
+            } catch (IOException truncateException) {
+                writeException.addSuppressed(truncateException);
+            }
+            throw writeException;
+        }
+        end = position + buffer.size();
+
+        drained.forEach((uuid, pending) -> {
+            if (pending.expiresAt() > 0) {
+                expiries.put(uuid, pending.expiresAt());
+            } else {
+                expiries.remove(uuid);
+            }
+            if (pending == TOMBSTONE) {
+                index.remove(uuid);
+                return;
+            }
+            index.put(uuid, offsets.get(uuid));
+        });
+        indexed = index.size();
+        timed = expiries.size();
+        appendedSinceCompaction += drained.size();
+    }
+
+    /**
+     * Rewrites the journal so that it only contains the latest record of each player who has a status.
+     *
+     * <p>The journal is closed while the compacted file replaces it, and opened
+     * again whether or not the replacement succeeded. The index only switches
+     * to the positions within the compacted file once it has become the journal.
+     * Should the journal not open again, the store is closed, so further writes
+     * are rejected rather than collected without ever being persisted.
+     *
+     * @throws IOException if the journal could not be rewritten.
+     */
+    public synchronized void compact() throws IOException {
+        flush();
+        if (appendedSinceCompaction == 0) {
+            return;
+        }
+
+        Map<UUID, Long> compactedIndex = new HashMap<>(index.size());
+        try (FileChannel compacted = FileChannel.open(compactionFile, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            long position = 0;
+            for (Map.Entry<UUID, Long> entry : index.entrySet()) {
+                ByteBuffer record = readRecord(channel, entry.getValue());
+                compactedIndex.put(entry.getKey(), position);
+                write(compacted, record, position);
+                position += record.limit();
+            }
+            compacted.force(true);
+        }
+
+        channel.close();
+        try {
+            Files.move(compactionFile, journal, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException moveException) {
+            reopen(moveException);
+            throw moveException;
+        }
+        reopen(null);
+        index = compactedIndex;
+        indexed = index.size();
+        end = channel.size();
+        appendedSinceCompaction = 0;
+    }
+
+    /**
+     * Opens the journal again after it has been closed for compaction.
+     *
+     * <p>If the journal cannot be opened, the store is closed and the failure
+     * is either thrown or, if the compaction has already failed, attached to
+     * that failure as a suppressed exception.
+     *
+     * @param failure the failure of the compaction, or {@code null} if the compacted file has replaced the journal.
+     * @throws IOException if the journal could not be opened and the compaction has not failed.
+     */
+    private void reopen(@Nullable Exception failure) throws IOException {
+        try {
+            channel = FileChannel.open(journal, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        } catch (IOException reopenException) {
+            channel = null;
+            open = false;
+            logger.severe(String.format("Could not reopen %s after compaction, %d pending statuses are lost.", journal.getFileName(), dirty.size()));
+            if (failure == null) {
+                throw reopenException;
+            }
+            failure.addSuppressed(reopenException);
+        }
+    }
+
+    /**
+     * Streams the latest status of each player by reading the journal sequentially.
+     *
+     * <p>Pending writes are flushed first. The journal is then read from the
+     * beginning through a window of {@value #SCAN_WINDOW} bytes, and only the
+     * records the index points to are passed on, so outdated records and
+     * removals are skipped without any lookup on disk. As this method holds
+     * the lock of this store, loads of logging in players wait until it returns.
+     *
+     * @param action the action receiving the unique ID of each player and their status. Must be non-{@code null}.
+     * @throws IOException if the journal could not be read.
+     */
+    @Override
+    public synchronized void forEach(@NotNull BiConsumer<UUID, String> action) throws IOException {
+        flush();
+        ByteBuffer window = ByteBuffer.allocate(SCAN_WINDOW).flip();
+        long base = 0;
+        long position = 0;
+        while (position < end) {
+            if (window.limit() - (position - base) < CHECKSUM_SIZE + HEADER_SIZE) {
+                window = fill(channel, window, (int) (position - base), position, CHECKSUM_SIZE + HEADER_SIZE);
+                base = position;
+            }
+            int offset = (int) (position - base);
+            int size = CHECKSUM_SIZE + HEADER_SIZE + window.getInt(offset + CHECKSUM_SIZE + HEADER_SIZE - Integer.BYTES);
+            if (window.limit() - offset < size) {
+                window = fill(channel, window, offset, position, size);
+                base = position;
+                offset = 0;
+            }
+
+            UUID uuid = new UUID(window.getLong(offset + CHECKSUM_SIZE + Byte.BYTES), window.getLong(offset + CHECKSUM_SIZE + Byte.BYTES + Long.BYTES));
+            Long latest = index.get(uuid);
+            if (latest != null && latest == position) { // only puts are indexed
+                int payload = payloadOffset(window.get(offset + CHECKSUM_SIZE));
+                action.accept(uuid, new String(window.array(), offset + payload, size - payload, StandardCharsets.UTF_8));
+            }
+            position += size;
+        }
+    }
+
+    /**
+     * Passes the expiry of every timed status to the given action.
+     *
+     * <p>Pending writes are flushed first, the expiries themselves are held in memory.
+     *
+     * @param action the action receiving the unique ID of each player and the expiry of their status.
+     *               Must be non-{@code null}.
+     * @throws IOException if the pending writes could not be flushed.
+     */
+    @Override
+    public synchronized void forEachExpiry(@NotNull ObjLongConsumer<UUID> action) throws IOException {
+        flush();
+        expiries.forEach(action::accept);
+    }
+
+    /**
+     * Estimates the memory retained by the index, the expiries and the dirty entries.
+     *
+     * <p>The estimate is maintained on every write and flush, so this method
+     * does not take the lock of this store and never waits for a flush or a
+     * compaction. It may therefore lag slightly behind concurrent writes.
+     *
+     * @return the estimated number of retained bytes.
+     */
+    @Override
+    public long estimateRetainedBytes() {
+        return (long) indexed * (MemoryUsage.MAP_ENTRY_BYTES + MemoryUsage.UUID_BYTES + MemoryUsage.LONG_BYTES)
+                + (long) timed * EXPIRY_BYTES + dirtyBytes.sum();
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                logger.warning("The journal thread did not terminate in time.");
+            }
+        } catch (InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+        }
+
+        synchronized (this) {
+            try {
+                if (open) {
+                    flush();
+                }
+                if (channel != null) {
+                    channel.close();
+                    channel = null;
+                }
+            } catch (IOException ioException) {
+                logger.log(Level.SEVERE, "Could not persist pending statuses.", ioException);
+            } finally {
+                open = false;
+            }
+        }
+    }
+
+    private void checkOpen() {
+        if (!open) {
+            throw new IllegalStateException("The status journal is not open.");
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (IOException ioException) {
+            logger.log(Level.SEVERE, "Could not flush the status journal, retrying with the next flush.", ioException);
+        }
+    }
+
+    private void compactQuietly() {
+        try {
+            compact();
+        } catch (IOException ioException) {
+            logger.log(Level.SEVERE, "Could not compact the status journal.", ioException);
+        }
+    }
+
+    /**
+     * Replays every valid record of the given journal into the given index.
+     *
+     * <p>The journal is read from the beginning through a window of
+     * {@value #SCAN_WINDOW} bytes, so its size is not bound by the size of an
+     * array. Replaying stops at the first record which is incomplete, claims to
+     * be longer than the rest of the journal, or whose checksum does not match.
+     *
+     * @param channel  the channel of the journal. Must be non-{@code null}.
+     * @param index    the map receiving the position of the latest record of each player. Must be non-{@code null}.
+     * @param expiries the map receiving the expiry of each timed status. Must be non-{@code null}.
+     * @return the position directly behind the last valid record.
+     * @throws IOException if the journal could not be read.
+     */
+    private static long replay(@NotNull FileChannel channel, @NotNull Map<UUID, Long> index, @NotNull Map<UUID, Long> expiries) throws IOException {
+        long size = channel.size();
+        ByteBuffer window = ByteBuffer.allocate(SCAN_WINDOW).flip();
+        CRC32 crc32 = new CRC32();
+        long base = 0;
+        long position = 0;
+        while (size - position >= CHECKSUM_SIZE + HEADER_SIZE) {
+            if (window.limit() - (position - base) < CHECKSUM_SIZE + HEADER_SIZE) {
+                window = fill(channel, window, (int) (position - base), position, CHECKSUM_SIZE + HEADER_SIZE);
+                base = position;
+            }
+            int offset = (int) (position - base);
+            int length = window.getInt(offset + CHECKSUM_SIZE + HEADER_SIZE - Integer.BYTES);
+            if (length < 0 || length > size - position - CHECKSUM_SIZE - HEADER_SIZE) {
+                return position;
+            }
+
+            int recordSize = CHECKSUM_SIZE + HEADER_SIZE + length;
+            if (window.limit() - offset < recordSize) {
+                window = fill(channel, window, offset, position, recordSize);
+                base = position;
+                offset = 0;
+            }
+
+            crc32.reset();
+            crc32.update(window.array(), offset + CHECKSUM_SIZE, recordSize - CHECKSUM_SIZE);
+            if ((int) crc32.getValue() != window.getInt(offset)) {
+                return position;
+            }
+
+            UUID uuid = new UUID(window.getLong(offset + CHECKSUM_SIZE + Byte.BYTES), window.getLong(offset + CHECKSUM_SIZE + Byte.BYTES + Long.BYTES));
+            switch (window.get(offset + CHECKSUM_SIZE)) {
+                case OP_PUT -> {
+                    index.put(uuid, position);
+                    expiries.remove(uuid);
+                }
+                case OP_PUT_TIMED -> {
+                    if (length < Long.BYTES) {
+                        return position;
+                    }
+                    index.put(uuid, position);
+                    expiries.put(uuid, window.getLong(offset + CHECKSUM_SIZE + HEADER_SIZE));
+                }
+                case OP_REMOVE -> {
+                    index.remove(uuid);
+                    expiries.remove(uuid);
+                }
+                default -> {
+                    return position;
+                }
+            }
+            position += recordSize;
+        }
+        return position;
+    }
+
+    /**
+     * Reads the complete record starting at the given position of the journal.
+     *
+     * @param channel  the channel of the journal. Must be non-{@code null}.
+     * @param position the position of the record, as stored in the index.
+     * @return a buffer containing the whole record, positioned at its start.
+     * @throws IOException if the record could not be read.
+     */
+    private static @NotNull ByteBuffer readRecord(@NotNull FileChannel channel, long position) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(CHECKSUM_SIZE + HEADER_SIZE);
+        read(channel, header, position);
+        ByteBuffer record = ByteBuffer.allocate(header.capacity() + header.getInt(header.capacity() - Integer.BYTES));
+        record.put(header.flip());
+        read(channel, record, position);
+        return record.flip();
+    }
+
+    private static long estimate(@Nullable Pending pending) {
+        if (pending == null) {
+            return 0;
+        }
+        long bytes = MemoryUsage.MAP_ENTRY_BYTES + MemoryUsage.UUID_BYTES + PENDING_BYTES;
+        return pending.status() == null ? bytes : bytes + MemoryUsage.estimate(pending.status());
+    }
+
+    /**
+     * Determines where the status starts within a record of the given operation.
+     *
+     * @param op the operation of the record.
+     * @return the offset of the status from the start of the record.
+     */
+    private static int payloadOffset(byte op) {
+        return CHECKSUM_SIZE + HEADER_SIZE + (op == OP_PUT_TIMED ? Long.BYTES : 0);
+    }
+
+    private static byte @NotNull [] encode(@NotNull UUID uuid, @NotNull Pending pending) {
+        byte op = pending.status() == null ? OP_REMOVE : pending.expiresAt() > 0 ? OP_PUT_TIMED : OP_PUT;
+        byte[] status = pending.status() == null ? new byte[0] : pending.status().getBytes(StandardCharsets.UTF_8);
+        int length = status.length + (op == OP_PUT_TIMED ? Long.BYTES : 0);
+        ByteBuffer record = ByteBuffer.allocate(CHECKSUM_SIZE + HEADER_SIZE + length);
+        record.position(CHECKSUM_SIZE);
+        record.put(op);
+        record.putLong(uuid.getMostSignificantBits());
+        record.putLong(uuid.getLeastSignificantBits());
+        record.putInt(length);
+        if (op == OP_PUT_TIMED) {
+            record.putLong(pending.expiresAt());
+        }
+        record.put(status);
+
+        CRC32 crc32 = new CRC32();
+        crc32.update(record.array(), CHECKSUM_SIZE, record.capacity() - CHECKSUM_SIZE);
+        record.putInt(0, (int) crc32.getValue());
+        return record.array();
+    }
+
+    /**
+     * Moves the unread part of the given window to its start and fills the rest from the journal.
+     *
+     * @param channel  the channel of the journal. Must be non-{@code null}.
+     * @param window   the window, flipped for reading. Must be non-{@code null}.
+     * @param offset   the offset within the window of the first byte which has not been read yet.
+     * @param position the position within the journal of that byte.
+     * @param required the number of bytes which must be available afterwards.
+     * @return the filled window, which is a larger one if the given one cannot hold the required bytes.
+     * @throws IOException if the journal could not be read or ends too early.
+     */
+    private static @NotNull ByteBuffer fill(@NotNull FileChannel channel, @NotNull ByteBuffer window, int offset, long position, int required) throws IOException {
+        window.position(offset).compact();
+        if (window.capacity() < required) {
+            window = ByteBuffer.allocate(required).put(window.flip());
+        }
+
+        while (window.position() < required) {
+            if (channel.read(window, position + window.position()) < 0) {
+                throw new IOException("Unexpected end of the status journal.");
+            }
+        }
+        while (window.hasRemaining() && channel.read(window, position + window.position()) > 0) {
+            // read ahead as far as the window allows
+        }
+        return window.flip();
+    }
+
+    private static void read(@NotNull FileChannel channel, @NotNull ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of the status journal.");
+            }
+        }
+    }
+
+    private static void write(@NotNull FileChannel channel, @NotNull ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+    }
+
+    /**
+     * A write which has not been flushed yet.
+     *
+     * @param status    the new status, or {@code null} if the status is removed.
+     * @param expiresAt the time at which the status expires in milliseconds since the epoch, or {@code 0} if it does not.
+     */
+    private record Pending(@Nullable String status, long expiresAt) {}
+}
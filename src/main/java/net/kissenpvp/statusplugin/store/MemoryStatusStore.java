@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2023 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+package net.kissenpvp.statusplugin.store;
+
+import net.kissenpvp.statusplugin.cache.MemoryUsage;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * A {@link StatusStore} which does not persist anything.
+ *
+ * <p>Statuses handled by this store are kept in a map and only live as long as
+ * the plug-in is enabled, which reflects the original behaviour of the plug-in.
+ * It can be selected by setting {@code store.type} to {@code memory} in the
+ * configuration.
+ *
+ * @see StatusStore
+ */
+public class MemoryStatusStore implements StatusStore {
+
+    private static final int EXPIRY_BYTES = MemoryUsage.MAP_ENTRY_BYTES + MemoryUsage.UUID_BYTES + MemoryUsage.LONG_BYTES;
+
+    private final Map<UUID, String> statuses = new ConcurrentHashMap<>();
+    private final Map<UUID, Long> expiries = new ConcurrentHashMap<>();
+    private final LongAdder retainedBytes = new LongAdder();
+
+    @Override
+    public void open() {}
+
+    @Override
+    public @Nullable String load(@NotNull UUID uuid) {
+        return statuses.get(uuid);
+    }
+
+    @Override
+    public void put(@NotNull UUID uuid, @NotNull String status) {
+        retainedBytes.add(estimate(status) - estimate(statuses.put(uuid, status)));
+        removeExpiry(uuid);
+    }
+
+    @Override
+    public void put(@NotNull UUID uuid, @NotNull String status, long expiresAt) {
+        retainedBytes.add(estimate(status) - estimate(statuses.put(uuid, status)));
+        if (expiries.put(uuid, expiresAt) == null) {
+            retainedBytes.add(EXPIRY_BYTES);
+        }
+    }
+
+    @Override
+    public void remove(@NotNull UUID uuid) {
+        retainedBytes.add(-estimate(statuses.remove(uuid)));
+        removeExpiry(uuid);
+    }
+
+    @Override
+    public void forEach(@NotNull BiConsumer<UUID, String> action) {
+        statuses.forEach(action);
+    }
+
+    @Override
+    public void forEachExpiry(@NotNull ObjLongConsumer<UUID> action) {
+        expiries.forEach(action::accept);
+    }
+
+    @Override
+    public long estimateRetainedBytes() {
+        return retainedBytes.sum();
+    }
+
+    @Override
+    public void close() {
+        statuses.keySet().forEach(this::remove);
+    }
+
+    private void removeExpiry(@NotNull UUID uuid) {
+        if (expiries.remove(uuid) != null) {
+            retainedBytes.add(-EXPIRY_BYTES);
+        }
+    }
+
+    private static long estimate(@Nullable String status) {
+        return status == null ? 0 : MemoryUsage.MAP_ENTRY_BYTES + MemoryUsage.UUID_BYTES + MemoryUsage.estimate(status);
+    }
+}
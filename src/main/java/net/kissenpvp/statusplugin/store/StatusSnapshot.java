@@ -0,0 +1,222 @@
+/*
+ * Copyright (C) 2023 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+package net.kissenpvp.statusplugin.store;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+import java.util.zip.CRC32;
+
+/**
+ * Writes and reads compact binary snapshots of all statuses.
+ *
+ * <p>A snapshot consists of a header, the entries and a trailer:
+ * <pre>
+ * int   magic    "STSN"
+ * int   version  1
+ * long  count    the number of entries
+ * entry * count  long most significant bits of the UUID,
+ *                long least significant bits of the UUID,
+ *                unsigned short length, UTF-8 bytes of the status
+ * int   checksum CRC32 of all entries
+ * </pre>
+ *
+ * <p>Snapshots are written and read through a {@link FileChannel} with a
+ * buffer of {@value #BUFFER_SIZE} bytes, without any intermediate collection
+ * of entries. A snapshot is written into a temporary file first, which
+ * replaces the target once it is complete. Before a snapshot is read, its
+ * count and checksum are verified in a first pass, so a damaged snapshot is
+ * rejected before a single entry has been handed over.
+ *
+ * <p>All methods block and must only be called from asynchronous threads.
+ */
+public final class StatusSnapshot {
+
+    private static final int MAGIC = 0x5354534E;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 2 * Integer.BYTES + Long.BYTES;
+    private static final int ENTRY_HEADER_SIZE = 2 * Long.BYTES + Short.BYTES;
+    private static final int MAX_STATUS_BYTES = 0xFFFF;
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private StatusSnapshot() {}
+
+    /**
+     * Writes all statuses of the given store into a snapshot.
+     *
+     * @param file        the snapshot to write, which is replaced if it exists. Must be non-{@code null}.
+     * @param statusStore the store whose statuses are written. Must be non-{@code null}.
+     * @return the number of written entries.
+     * @throws IOException if the snapshot could not be written or the store could not be read.
+     */
+    public static long write(@NotNull Path file, @NotNull StatusStore statusStore) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        long[] count = {0};
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            buffer.putInt(MAGIC).putInt(VERSION).putLong(0); // the count is patched in once it is known
+            CRC32 crc32 = new CRC32();
+            try {
+                statusStore.forEach((uuid, status) -> {
+                    byte[] payload = status.getBytes(StandardCharsets.UTF_8);
+                    if (payload.length > MAX_STATUS_BYTES) {
+                        return; // cannot be represented, statuses are far shorter anyway
+                    }
+                    try {
+                        if (buffer.remaining() < ENTRY_HEADER_SIZE + payload.length) {
+                            drain(channel, buffer);
+                        }
+                        int start = buffer.position();
+                        buffer.putLong(uuid.getMostSignificantBits()).putLong(uuid.getLeastSignificantBits()).putShort((short) payload.length).put(payload);
+                        crc32.update(buffer.array(), start, buffer.position() - start);
+                        count[0]++;
+                    } catch (IOException ioException) {
+                        throw new UncheckedIOException(ioException);
+                    }
+                });
+            } catch (UncheckedIOException uncheckedIOException) {
+                throw uncheckedIOException.getCause();
+            }
+
+            if (buffer.remaining() < Integer.BYTES) {
+                drain(channel, buffer);
+            }
+            buffer.putInt((int) crc32.getValue());
+            drain(channel, buffer);
+            channel.write(ByteBuffer.allocate(Long.BYTES).putLong(0, count[0]), 2 * Integer.BYTES);
+            channel.force(true);
+        }
+
+        try {
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException atomicMoveNotSupportedException) {
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return count[0];
+    }
+
+    /**
+     * Verifies the given snapshot and passes each of its entries to the given consumer.
+     *
+     * @param file     the snapshot to read. Must be non-{@code null}.
+     * @param consumer the consumer receiving the unique ID of each player and their status. Must be non-{@code null}.
+     * @return the number of read entries.
+     * @throws IOException if the snapshot could not be read, is no snapshot or is damaged.
+     */
+    public static long read(@NotNull Path file, @NotNull BiConsumer<UUID, String> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long count = scan(channel, null);
+            scan(channel, consumer);
+            return count;
+        }
+    }
+
+    /**
+     * Reads the whole snapshot, verifying its count and checksum.
+     *
+     * @param channel  the channel of the snapshot. Must be non-{@code null}.
+     * @param consumer the consumer receiving the entries, or {@code null} to only verify the snapshot.
+     * @return the number of entries.
+     * @throws IOException if the snapshot could not be read, is no snapshot or is damaged.
+     */
+    private static long scan(@NotNull FileChannel channel, @Nullable BiConsumer<UUID, String> consumer) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).flip();
+        long[] position = {0};
+        buffer = require(channel, buffer, position, HEADER_SIZE);
+        if (buffer.getInt() != MAGIC) {
+            throw new IOException("The file is no status snapshot.");
+        }
+        if (buffer.getInt() != VERSION) {
+            throw new IOException("The version of the status snapshot is not supported.");
+        }
+
+        long count = buffer.getLong();
+        CRC32 crc32 = new CRC32();
+        for (long entry = 0; entry < count; entry++) {
+            buffer = require(channel, buffer, position, ENTRY_HEADER_SIZE);
+            int start = buffer.position();
+            UUID uuid = new UUID(buffer.getLong(), buffer.getLong());
+            int length = Short.toUnsignedInt(buffer.getShort());
+            if (buffer.remaining() < length) {
+                buffer = require(channel, buffer.position(start), position, ENTRY_HEADER_SIZE + length);
+                start = buffer.position();
+                buffer.position(start + ENTRY_HEADER_SIZE);
+            }
+
+            crc32.update(buffer.array(), start, ENTRY_HEADER_SIZE + length);
+            if (consumer != null) {
+                consumer.accept(uuid, new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8));
+            }
+            buffer.position(buffer.position() + length);
+        }
+
+        buffer = require(channel, buffer, position, Integer.BYTES);
+        if (buffer.getInt() != (int) crc32.getValue()) {
+            throw new IOException("The status snapshot is damaged.");
+        }
+        return count;
+    }
+
+    /**
+     * Makes sure the given buffer holds at least the given number of unread bytes, reading more of the snapshot if needed.
+     *
+     * @param channel  the channel of the snapshot. Must be non-{@code null}.
+     * @param buffer   the buffer, flipped for reading. Must be non-{@code null}.
+     * @param position a single element holding the position within the snapshot up to which it has been read.
+     * @param required the number of bytes which must be available.
+     * @return the buffer, flipped for reading.
+     * @throws IOException if the snapshot could not be read or ends too early.
+     */
+    private static @NotNull ByteBuffer require(@NotNull FileChannel channel, @NotNull ByteBuffer buffer, long @NotNull [] position, int required) throws IOException {
+        if (buffer.remaining() >= required) {
+            return buffer;
+        }
+
+        buffer.compact();
+        while (buffer.position() < required) {
+            int read = channel.read(buffer, position[0]);
+            if (read < 0) {
+                throw new IOException("The status snapshot ends unexpectedly.");
+            }
+            position[0] += read;
+        }
+        return buffer.flip();
+    }
+
+    private static void drain(@NotNull FileChannel channel, @NotNull ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright (C) 2023 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+package net.kissenpvp.statusplugin.store;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Represents a persistence backend for player statuses.
+ *
+ * <p>A {@code StatusStore} is the durable counterpart of the in-memory status
+ * map held by the plug-in. Writes are handed to the store through
+ * {@link #put(UUID, String)} and {@link #remove(UUID)}, which must never block
+ * the calling thread on I/O, as they are invoked from the main server thread.
+ * Implementations are free to buffer and batch these writes and persist them
+ * later.
+ *
+ * <p>On start-up the plug-in opens the store once by calling {@link #open()}.
+ * Statuses are not held in memory by the plug-in as a whole, instead the status
+ * of a single player is read through {@link #load(UUID)} while that player is
+ * logging in, which happens on an asynchronous thread. When the plug-in is
+ * disabled, {@link #close()} is called, which must persist every pending write
+ * before returning.
+ *
+ * @see JournalStatusStore
+ * @see MemoryStatusStore
+ */
+public interface StatusStore extends AutoCloseable {
+
+    /**
+     * Opens the store and prepares it for reads and writes.
+     *
+     * <p>This method is called once while the plug-in is enabling, before any
+     * other method of this store is invoked.
+     *
+     * @throws IOException if the underlying storage could not be opened.
+     */
+    void open() throws IOException;
+
+    /**
+     * Reads the persisted status of the player with the given unique ID.
+     *
+     * <p>Writes which have been handed to this store but have not been persisted
+     * yet must be reflected by the returned value. This method may block and is
+     * therefore only called from asynchronous threads, unless stated otherwise.
+     *
+     * @param uuid the unique ID of the player. Must be non-{@code null}.
+     * @return the status of the player, or {@code null} if the player has none.
+     * @throws IOException if the underlying storage could not be read.
+     */
+    @Nullable String load(@NotNull UUID uuid) throws IOException;
+
+    /**
+     * Marks the status of the player with the given unique ID as changed.
+     *
+     * <p>This method must not perform blocking I/O.
+     *
+     * @param uuid   the unique ID of the player. Must be non-{@code null}.
+     * @param status the new, already sanitized status. Must be non-{@code null}.
+     */
+    void put(@NotNull UUID uuid, @NotNull String status);
+
+    /**
+     * Marks the status of the player with the given unique ID as changed to a
+     * status which expires at the given time.
+     *
+     * <p>Stores which persist the expiry report it through
+     * {@link #forEachExpiry(ObjLongConsumer)} until the status is changed or
+     * removed, so timed statuses survive a restart. The default implementation
+     * stores the status without its expiry. This method must not perform
+     * blocking I/O.
+     *
+     * @param uuid      the unique ID of the player. Must be non-{@code null}.
+     * @param status    the new, already sanitized status. Must be non-{@code null}.
+     * @param expiresAt the time at which the status expires, in milliseconds since the epoch.
+     */
+    default void put(@NotNull UUID uuid, @NotNull String status, long expiresAt) {
+        put(uuid, status);
+    }
+
+    /**
+     * Marks the status of the player with the given unique ID as removed.
+     *
+     * <p>This method must not perform blocking I/O.
+     *
+     * @param uuid the unique ID of the player. Must be non-{@code null}.
+     */
+    void remove(@NotNull UUID uuid);
+
+    /**
+     * Passes the status of every player who has one to the given action.
+     *
+     * <p>Writes which have been handed to this store before this method was
+     * called must be reflected. Entries are streamed one by one instead of
+     * being collected first, so stores holding many statuses do not need any
+     * additional memory. This method may block and is therefore only called
+     * from asynchronous threads.
+     *
+     * @param action the action receiving the unique ID of each player and their status. Must be non-{@code null}.
+     * @throws IOException if the underlying storage could not be read.
+     */
+    void forEach(@NotNull BiConsumer<UUID, String> action) throws IOException;
+
+    /**
+     * Passes the expiry time of every timed status to the given action.
+     *
+     * <p>This is called once while the plug-in is enabling, so the timed
+     * statuses persisted before the last shutdown are scheduled to expire again.
+     * Stores which do not persist expiries may rely on the default
+     * implementation, which reports none.
+     *
+     * @param action the action receiving the unique ID of each player and the time at which their
+     *               status expires, in milliseconds since the epoch. Must be non-{@code null}.
+     * @throws IOException if the underlying storage could not be read.
+     * @see #put(UUID, String, long)
+     */
+    default void forEachExpiry(@NotNull ObjLongConsumer<UUID> action) throws IOException {}
+
+    /**
+     * Estimates the number of bytes this store retains on the heap.
+     *
+     * <p>The estimation should follow the constants of
+     * {@link net.kissenpvp.statusplugin.cache.MemoryUsage}. Stores which keep
+     * nothing in memory may rely on the default implementation.
+     *
+     * <p>This method is called by metrics scrapes from arbitrary threads, so it
+     * must neither block nor iterate the statuses held by the store.
+     *
+     * @return the estimated number of retained bytes.
+     */
+    default long estimateRetainedBytes() {
+        return 0;
+    }
+
+    /**
+     * Persists all pending writes and releases the resources held by this store.
+     *
+     * <p>Once this method returns, every write previously handed to this store
+     * has been persisted.
+     */
+    @Override
+    void close();
+}
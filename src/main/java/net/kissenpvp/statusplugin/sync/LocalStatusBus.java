@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2023 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+package net.kissenpvp.statusplugin.sync;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * A {@link StatusBus} connecting all of its instances within the same process.
+ *
+ * <p>Batches are delivered synchronously to the subscribers of every instance,
+ * including the publishing one, and so are requests. This bus is meant as a stand-in for a real
+ * network, for instance when running several plug-in instances in a single
+ * test process. Closing an instance only removes its own subscribers.
+ *
+ * @see StatusBus
+ */
+public class LocalStatusBus implements StatusBus {
+
+    private static final List<Consumer<List<StatusDelta>>> SUBSCRIBERS = new CopyOnWriteArrayList<>();
+
+    private static final List<Consumer<List<UUID>>> REQUEST_SUBSCRIBERS = new CopyOnWriteArrayList<>();
+
+    private final List<Consumer<List<StatusDelta>>> subscribers = new CopyOnWriteArrayList<>();
+    private final List<Consumer<List<UUID>>> requestSubscribers = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(@NotNull List<StatusDelta> batch) {
+        List<StatusDelta> delivered = List.copyOf(batch);
+        SUBSCRIBERS.forEach(subscriber -> subscriber.accept(delivered));
+    }
+
+    @Override
+    public void subscribe(@NotNull Consumer<List<StatusDelta>> subscriber) {
+        subscribers.add(subscriber);
+        SUBSCRIBERS.add(subscriber);
+    }
+
+    @Override
+    public void request(@NotNull List<UUID> uuids) {
+        List<UUID> delivered = List.copyOf(uuids);
+        REQUEST_SUBSCRIBERS.forEach(subscriber -> subscriber.accept(delivered));
+    }
+
+    @Override
+    public void subscribeRequests(@NotNull Consumer<List<UUID>> subscriber) {
+        requestSubscribers.add(subscriber);
+        REQUEST_SUBSCRIBERS.add(subscriber);
+    }
+
+    @Override
+    public void close() {
+        SUBSCRIBERS.removeAll(subscribers);
+        subscribers.clear();
+        REQUEST_SUBSCRIBERS.removeAll(requestSubscribers);
+        requestSubscribers.clear();
+    }
+}
@@ -0,0 +1,253 @@
+/*
+ * Copyright (C) 2023 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+package net.kissenpvp.statusplugin.sync;
+
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.plugin.messaging.PluginMessageListener;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+
+/**
+ * A {@link StatusBus} built upon the plugin messaging channel of BungeeCord.
+ *
+ * <p>Batches are wrapped into a {@code Forward} message targeting {@code ALL}
+ * servers, which BungeeCord and Velocity relay to every other backend server
+ * of the network. Plugin messages can only be sent through a connected
+ * player, and the proxy only relays them to servers with at least one
+ * connected player. Deltas published while no player is online are therefore
+ * queued, collapsed to the newest delta per player, and sent once a player
+ * joins. Servers without players miss the deltas sent in the meantime, so
+ * every server requests the latest delta of each player joining it, which
+ * the other servers answer. This bus thus guarantees that a player joining a
+ * server receives the latest delta known to any server with a player on it
+ * by then, whereas changes only known to servers without players arrive
+ * once those have a player again. The deltas are versioned, so late ones do
+ * not supersede newer changes.
+ *
+ * <p>Forwarded messages are limited in size, larger batches are therefore
+ * split into several messages. At most 16384 players are
+ * queued, further ones replace the eldest.
+ *
+ * @see StatusBus
+ */
+public class PluginMessageStatusBus implements StatusBus, PluginMessageListener {
+
+    private static final String CHANNEL = "BungeeCord";
+    private static final String SUB_CHANNEL = "StatusPlugin";
+    private static final String REQUEST_SUB_CHANNEL = "StatusPluginRequest";
+    private static final int MAX_PAYLOAD = 30000;
+    private static final int MAX_QUEUED = 16384;
+
+    private final Plugin plugin;
+    private final List<Consumer<List<StatusDelta>>> subscribers = new CopyOnWriteArrayList<>();
+    private final List<Consumer<List<UUID>>> requestSubscribers = new CopyOnWriteArrayList<>();
+    private final Map<UUID, StatusDelta> queuedDeltas = new LinkedHashMap<>();
+    private final Set<UUID> queuedRequests = new LinkedHashSet<>();
+
+    /**
+     * Constructor for creating a new {@code PluginMessageStatusBus}.
+     *
+     * <p>The constructor registers the plugin messaging channels of this bus.
+     *
+     * @param plugin the plug-in owning the channels. Must be non-{@code null}.
+     */
+    public PluginMessageStatusBus(@NotNull Plugin plugin) {
+        this.plugin = plugin;
+        plugin.getServer().getMessenger().registerOutgoingPluginChannel(plugin, CHANNEL);
+        plugin.getServer().getMessenger().registerIncomingPluginChannel(plugin, CHANNEL, this);
+    }
+
+    @Override
+    public void publish(@NotNull List<StatusDelta> batch) {
+        for (StatusDelta delta : batch) {
+            StatusDelta queued = queuedDeltas.remove(delta.uuid()); // re-insert at the end
+            queuedDeltas.put(delta.uuid(), delta.isNewerThan(queued) ? delta : queued);
+        }
+        trim(queuedDeltas.keySet());
+        sendQueued();
+    }
+
+    @Override
+    public void subscribe(@NotNull Consumer<List<StatusDelta>> subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    @Override
+    public void request(@NotNull List<UUID> uuids) {
+        queuedRequests.addAll(uuids);
+        trim(queuedRequests);
+        sendQueued();
+    }
+
+    @Override
+    public void subscribeRequests(@NotNull Consumer<List<UUID>> subscriber) {
+        requestSubscribers.add(subscriber);
+    }
+
+    @Override
+    public void onPluginMessageReceived(@NotNull String channel, @NotNull Player player, byte @NotNull [] message) {
+        if (!channel.equals(CHANNEL)) {
+            return;
+        }
+
+        try {
+            DataInputStream input = new DataInputStream(new ByteArrayInputStream(message));
+            String subChannel = input.readUTF();
+            if (!subChannel.equals(SUB_CHANNEL) && !subChannel.equals(REQUEST_SUB_CHANNEL)) {
+                return;
+            }
+
+            byte[] payload = new byte[input.readUnsignedShort()];
+            input.readFully(payload);
+            DataInputStream data = new DataInputStream(new ByteArrayInputStream(payload));
+            int count = data.readInt();
+            if (subChannel.equals(REQUEST_SUB_CHANNEL)) {
+                List<UUID> uuids = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    uuids.add(new UUID(data.readLong(), data.readLong()));
+                }
+                requestSubscribers.forEach(subscriber -> subscriber.accept(uuids));
+                return;
+            }
+
+            List<StatusDelta> batch = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                batch.add(read(data));
+            }
+            subscribers.forEach(subscriber -> subscriber.accept(batch));
+        } catch (IOException ioException) {
+            plugin.getLogger().log(Level.WARNING, "Received a malformed status message.", ioException);
+        }
+    }
+
+    @Override
+    public void close() {
+        subscribers.clear();
+        requestSubscribers.clear();
+        plugin.getServer().getMessenger().unregisterOutgoingPluginChannel(plugin);
+        plugin.getServer().getMessenger().unregisterIncomingPluginChannel(plugin);
+    }
+
+    /**
+     * Sends the queued deltas and requests through any online player.
+     *
+     * <p>Nothing is sent if no player is online, the queues are kept until
+     * this method is called again with a player online.
+     */
+    private void sendQueued() {
+        Player carrier = plugin.getServer().getOnlinePlayers().stream().findAny().orElse(null);
+        if (carrier == null) {
+            return;
+        }
+
+        try {
+            ByteArrayOutputStream chunk = new ByteArrayOutputStream();
+            int pending = 0;
+            for (StatusDelta delta : queuedDeltas.values()) {
+                ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+                write(new DataOutputStream(encoded), delta);
+                if (chunk.size() + encoded.size() > MAX_PAYLOAD && pending > 0) {
+                    send(carrier, SUB_CHANNEL, pending, chunk.toByteArray());
+                    chunk.reset();
+                    pending = 0;
+                }
+                chunk.writeBytes(encoded.toByteArray());
+                pending++;
+            }
+            if (pending > 0) {
+                send(carrier, SUB_CHANNEL, pending, chunk.toByteArray());
+            }
+
+            chunk.reset();
+            pending = 0;
+            DataOutputStream uuids = new DataOutputStream(chunk);
+            for (UUID uuid : queuedRequests) {
+                if (chunk.size() + 2 * Long.BYTES > MAX_PAYLOAD) {
+                    send(carrier, REQUEST_SUB_CHANNEL, pending, chunk.toByteArray());
+                    chunk.reset();
+                    pending = 0;
+                }
+                uuids.writeLong(uuid.getMostSignificantBits());
+                uuids.writeLong(uuid.getLeastSignificantBits());
+                pending++;
+            }
+            if (pending > 0) {
+                send(carrier, REQUEST_SUB_CHANNEL, pending, chunk.toByteArray());
+            }
+        } catch (IOException ioException) {
+            plugin.getLogger().log(Level.WARNING, "Could not publish status changes.", ioException);
+        } finally {
+            queuedDeltas.clear(); // a failed encoding would fail again
+            queuedRequests.clear();
+        }
+    }
+
+    private void send(@NotNull Player carrier, @NotNull String subChannel, int count, byte @NotNull [] entries) throws IOException {
+        ByteArrayOutputStream payload = new ByteArrayOutputStream(entries.length + Integer.BYTES);
+        DataOutputStream payloadOutput = new DataOutputStream(payload);
+        payloadOutput.writeInt(count);
+        payloadOutput.write(entries);
+
+        ByteArrayOutputStream message = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(message);
+        output.writeUTF("Forward");
+        output.writeUTF("ALL");
+        output.writeUTF(subChannel);
+        output.writeShort(payload.size());
+        output.write(payload.toByteArray());
+        carrier.sendPluginMessage(plugin, CHANNEL, message.toByteArray());
+    }
+
+    private static void trim(@NotNull Collection<UUID> queued) {
+        Iterator<UUID> iterator = queued.iterator();
+        for (int excess = queued.size() - MAX_QUEUED; excess > 0; excess--) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    private static void write(@NotNull DataOutputStream output, @NotNull StatusDelta delta) throws IOException {
+        output.writeLong(delta.uuid().getMostSignificantBits());
+        output.writeLong(delta.uuid().getLeastSignificantBits());
+        output.writeLong(delta.version());
+        output.writeUTF(delta.origin());
+        output.writeBoolean(delta.status() != null);
+        if (delta.status() != null) {
+            output.writeUTF(delta.status());
+            output.writeLong(delta.expiresAt());
+        }
+    }
+
+    private static @NotNull StatusDelta read(@NotNull DataInputStream input) throws IOException {
+        UUID uuid = new UUID(input.readLong(), input.readLong());
+        long version = input.readLong();
+        String origin = input.readUTF();
+        if (!input.readBoolean()) {
+            return new StatusDelta(uuid, null, 0, version, origin);
+        }
+        String status = input.readUTF();
+        return new StatusDelta(uuid, status, input.readLong(), version, origin);
+    }
+}
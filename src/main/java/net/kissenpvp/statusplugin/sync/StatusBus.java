@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2023 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+package net.kissenpvp.statusplugin.sync;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Represents a message bus connecting the servers of a network.
+ *
+ * <p>The bus transports batches of {@link StatusDelta}s. Every batch published
+ * by one server is delivered to the subscribers of all servers, possibly
+ * including the publishing server itself. Implementations may deliver batches
+ * on any thread, and delivery is not required to be reliable or ordered.
+ *
+ * <p>Besides deltas, the bus transports requests for the latest delta of
+ * players. A server requests the players joining it, so it catches up on
+ * changes it has missed, for instance while nobody was online on it.
+ *
+ * @see LocalStatusBus
+ * @see PluginMessageStatusBus
+ */
+public interface StatusBus extends AutoCloseable {
+
+    /**
+     * Publishes a batch of deltas to all servers.
+     *
+     * <p>This method is called from the main thread and must not block.
+     *
+     * @param batch the deltas to publish. Must be non-{@code null}.
+     */
+    void publish(@NotNull List<StatusDelta> batch);
+
+    /**
+     * Registers a subscriber which receives every batch delivered by this bus.
+     *
+     * @param subscriber the subscriber to register. Must be non-{@code null}.
+     */
+    void subscribe(@NotNull Consumer<List<StatusDelta>> subscriber);
+
+    /**
+     * Asks all servers to publish the latest delta they know of the given players.
+     *
+     * <p>This method is called from the main thread and must not block.
+     *
+     * @param uuids the unique IDs of the players. Must be non-{@code null}.
+     */
+    void request(@NotNull List<UUID> uuids);
+
+    /**
+     * Registers a subscriber which receives every request delivered by this bus.
+     *
+     * @param subscriber the subscriber to register. Must be non-{@code null}.
+     */
+    void subscribeRequests(@NotNull Consumer<List<UUID>> subscriber);
+
+    /**
+     * Disconnects from the bus and releases all resources held by it.
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (C) 2023 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+package net.kissenpvp.statusplugin.sync;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.UUID;
+
+/**
+ * A single status change which is exchanged between the servers of a network.
+ *
+ * <p>Deltas are ordered by their version first and the server they originate
+ * from second. A delta is only applied if it is newer than the last delta
+ * applied for the same player, which drops updates arriving out of order.
+ *
+ * @param uuid      the unique ID of the player whose status has changed. Must be non-{@code null}.
+ * @param status    the new status of the player, or {@code null} if it has been cleared.
+ * @param expiresAt the epoch millis at which the status expires, or {@code 0} if it does not expire.
+ * @param version   the version of the change, based on the wall clock of the origin.
+ * @param origin    the ID of the server the change originates from. Must be non-{@code null}.
+ * @see StatusSync
+ */
+public record StatusDelta(@NotNull UUID uuid, @Nullable String status, long expiresAt, long version, @NotNull String origin) {
+
+    /**
+     * Checks whether this delta supersedes the given one.
+     *
+     * @param other the delta to compare against, or {@code null} if there is none.
+     * @return {@code true} if this delta is newer than the given one.
+     */
+    public boolean isNewerThan(@Nullable StatusDelta other) {
+        if (other == null || version != other.version) {
+            return other == null || version > other.version;
+        }
+        return origin.compareTo(other.origin) > 0;
+    }
+}
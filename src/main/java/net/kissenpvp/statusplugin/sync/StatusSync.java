@@ -0,0 +1,209 @@
+/*
+ * Copyright (C) 2023 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+package net.kissenpvp.statusplugin.sync;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+/**
+ * Synchronises statuses between the servers of a network.
+ *
+ * <p>Local changes are handed to {@link #publish(UUID, String, long)}. They are not
+ * sent immediately, but collected until the next call to {@link #flush()},
+ * which happens once per tick. Repeated changes of the same player within a
+ * tick collapse into the latest one, and all changes of a tick are published
+ * as a single batch through the {@link StatusBus}.
+ *
+ * <p>Every change carries a version, which is derived from the wall clock but
+ * always exceeds the last version known for the player. Batches received from
+ * the bus are queued and applied on the main thread during the next flush.
+ * Deltas originating from this server, as well as deltas which are not newer
+ * than the last one known for their player, are dropped. The versions are
+ * remembered for a bounded number of players.
+ *
+ * <p>A bus may not reach every server, so a server may miss changes while it
+ * has no players. Players joining a server are therefore handed to
+ * {@link #request(UUID)}, which asks the other servers for their latest delta
+ * of the player. Requests received from other servers are answered with the
+ * delta known for the player, if any, within the next batch.
+ *
+ * <p>Apart from receiving batches, this class must only be used from the main thread.
+ *
+ * @see StatusBus
+ * @see StatusDelta
+ */
+public class StatusSync {
+
+    private static final int MAX_KNOWN = 16384;
+
+    private final String origin;
+    private final StatusBus statusBus;
+    private final Consumer<StatusDelta> applier;
+    private final Map<UUID, StatusDelta> outgoing = new LinkedHashMap<>();
+    private final Set<UUID> requested = new LinkedHashSet<>();
+    private final Queue<List<StatusDelta>> incoming = new ConcurrentLinkedQueue<>();
+    private final Queue<List<UUID>> incomingRequests = new ConcurrentLinkedQueue<>();
+    private final Map<UUID, StatusDelta> known = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<UUID, StatusDelta> eldest) {
+            return size() > MAX_KNOWN;
+        }
+    };
+    private long published;
+    private long batches;
+    private long applied;
+    private long stale;
+
+    /**
+     * Constructor for creating a new {@code StatusSync}.
+     *
+     * <p>The constructor subscribes to the given bus.
+     *
+     * @param origin    the unique ID of this server within the network. Must be non-{@code null}.
+     * @param statusBus the bus connecting the servers. Must be non-{@code null}.
+     * @param applier   the function applying a remote delta. Must be non-{@code null}.
+     */
+    public StatusSync(@NotNull String origin, @NotNull StatusBus statusBus, @NotNull Consumer<StatusDelta> applier) {
+        this.origin = origin;
+        this.statusBus = statusBus;
+        this.applier = applier;
+        statusBus.subscribe(incoming::add);
+        statusBus.subscribeRequests(incomingRequests::add);
+    }
+
+    /**
+     * Queues a local status change to be published with the next flush.
+     *
+     * <p>The expiry travels with the status, so every server stores it
+     * with the same expiry and removes it once it has run out.
+     *
+     * @param uuid      the unique ID of the player whose status has changed. Must be non-{@code null}.
+     * @param status    the new status of the player, or {@code null} if it has been cleared.
+     * @param expiresAt the epoch millis at which the status expires, or {@code 0} if it does not expire.
+     */
+    public void publish(@NotNull UUID uuid, @Nullable String status, long expiresAt) {
+        StatusDelta last = known.get(uuid);
+        publish(uuid, status, expiresAt, Math.max(System.currentTimeMillis(), last == null ? 0 : last.version() + 1));
+    }
+
+    /**
+     * Queues the removal of an expired status to be published with the next flush.
+     *
+     * <p>Unlike {@link #publish(UUID, String, long)}, the removal is versioned right
+     * after the last change known for the player rather than by the wall clock.
+     * The expiry only refers to the status it was scheduled for, so a status
+     * set on another server in the meantime is newer and keeps winning, even
+     * if this server has not learned about it. If no change is known for the
+     * player, for instance after a restart, the removal is only applied by
+     * servers which do not know a delta of the player either.
+     *
+     * @param uuid the unique ID of the player whose status has expired. Must be non-{@code null}.
+     */
+    public void publishExpiry(@NotNull UUID uuid) {
+        StatusDelta last = known.get(uuid);
+        publish(uuid, null, 0, last == null ? 0 : last.version() + 1);
+    }
+
+    private void publish(@NotNull UUID uuid, @Nullable String status, long expiresAt, long version) {
+        StatusDelta delta = new StatusDelta(uuid, status, expiresAt, version, origin);
+        known.put(uuid, delta);
+        outgoing.put(uuid, delta);
+    }
+
+    /**
+     * Queues a request for the latest delta of the given player to be sent with the next flush.
+     *
+     * <p>This is called for every player joining this server, so changes
+     * which have been missed while the server had no players are caught up on.
+     *
+     * @param uuid the unique ID of the player. Must be non-{@code null}.
+     */
+    public void request(@NotNull UUID uuid) {
+        requested.add(uuid);
+    }
+
+    /**
+     * Applies all received batches, answers the received requests and publishes
+     * the queued local changes as one batch.
+     */
+    public void flush() {
+        List<StatusDelta> batch;
+        while ((batch = incoming.poll()) != null) {
+            batch.forEach(this::apply);
+        }
+        List<UUID> requests;
+        while ((requests = incomingRequests.poll()) != null) {
+            requests.forEach(this::answer);
+        }
+
+        if (!requested.isEmpty()) {
+            statusBus.request(new ArrayList<>(requested));
+            requested.clear();
+        }
+        if (!outgoing.isEmpty()) {
+            statusBus.publish(new ArrayList<>(outgoing.values()));
+            published += outgoing.size();
+            batches++;
+            outgoing.clear();
+        }
+    }
+
+    /**
+     * Creates a snapshot of the counters of this synchronisation.
+     *
+     * @return the current statistics of this synchronisation.
+     */
+    public @NotNull SyncStats getStats() {
+        return new SyncStats(published, batches, applied, stale);
+    }
+
+    /**
+     * Disconnects from the bus.
+     */
+    public void close() {
+        flush();
+        statusBus.close();
+    }
+
+    private void apply(@NotNull StatusDelta delta) {
+        if (delta.origin().equals(origin)) {
+            return;
+        }
+        if (!delta.isNewerThan(known.get(delta.uuid()))) {
+            stale++;
+            return;
+        }
+
+        known.put(delta.uuid(), delta);
+        outgoing.remove(delta.uuid()); // superseded by the remote change
+        applier.accept(delta);
+        applied++;
+    }
+
+    private void answer(@NotNull UUID uuid) {
+        StatusDelta last = known.get(uuid);
+        if (last != null) {
+            outgoing.putIfAbsent(uuid, last); // a pending local change is at least as new
+        }
+    }
+}
@@ -0,0 +1,30 @@
+/*
+ * Copyright (C) 2023 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+package net.kissenpvp.statusplugin.sync;
+
+/**
+ * An immutable snapshot of the counters of a {@link StatusSync}.
+ *
+ * @param published the number of deltas published to the bus.
+ * @param batches   the number of batches published to the bus.
+ * @param applied   the number of remote deltas applied locally.
+ * @param stale     the number of remote deltas dropped as they were outdated.
+ * @see StatusSync#getStats()
+ */
+public record SyncStats(long published, long batches, long applied, long stale) {}
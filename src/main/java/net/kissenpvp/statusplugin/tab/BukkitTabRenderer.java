@@ -0,0 +1,46 @@
+/*
+ * Copyright (C) 2023 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+package net.kissenpvp.statusplugin.tab;
+
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Map;
+
+/**
+ * A {@link TabRenderer} which uses {@link Player#setPlayerListName(String)}.
+ *
+ * <p>This renderer only relies on the Bukkit API and is therefore always
+ * available. The server sends each changed name to every viewer in a separate
+ * packet, and every viewer sees the same name.
+ *
+ * @see TabRenderer
+ */
+public class BukkitTabRenderer implements TabRenderer {
+
+    @Override
+    public boolean isCurrent(@NotNull Player player, @NotNull String listName) {
+        return listName.equals(player.getPlayerListName());
+    }
+
+    @Override
+    public void render(@NotNull Map<Player, String> updates) {
+        updates.forEach(Player::setPlayerListName);
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) 2023 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+package net.kissenpvp.statusplugin.tab;
+
+import com.comphenix.protocol.PacketType;
+import com.comphenix.protocol.ProtocolLibrary;
+import com.comphenix.protocol.ProtocolManager;
+import com.comphenix.protocol.events.PacketContainer;
+import com.comphenix.protocol.wrappers.EnumWrappers;
+import com.comphenix.protocol.wrappers.PlayerInfoData;
+import com.comphenix.protocol.wrappers.WrappedChatComponent;
+import com.comphenix.protocol.wrappers.WrappedGameProfile;
+import org.bukkit.Server;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+
+/**
+ * A {@link TabRenderer} which sends player info packets through ProtocolLib.
+ *
+ * <p>Instead of changing the player list name on the server, which broadcasts
+ * one packet per changed player to every viewer, this renderer builds a single
+ * player info update packet per viewer and flush, containing the display names
+ * of all players changed within that flush.
+ *
+ * <p>As the packets are built per viewer, each viewer may choose to hide the
+ * statuses of other players, in which case they only see the plain names.
+ * Viewers who have joined, or who have changed their preference, receive the
+ * names of all online players with the next flush. Preferences only last for
+ * the current session.
+ *
+ * <p>This renderer requires ProtocolLib to be installed.
+ *
+ * @see TabRenderer
+ * @see BukkitTabRenderer
+ */
+public class PacketTabRenderer implements TabRenderer {
+
+    private final Server server;
+    private final ProtocolManager protocolManager = ProtocolLibrary.getProtocolManager();
+    private final Map<UUID, String> listNames = new HashMap<>();
+    private final Set<UUID> hidden = new HashSet<>();
+    private final Set<UUID> pendingViewers = new LinkedHashSet<>();
+
+    /**
+     * Constructor for creating a new {@code PacketTabRenderer}.
+     *
+     * @param server the server whose players are viewing the player tab. Must be non-{@code null}.
+     */
+    public PacketTabRenderer(@NotNull Server server) {
+        this.server = server;
+    }
+
+    @Override
+    public boolean isCurrent(@NotNull Player player, @NotNull String listName) {
+        String current = listNames.get(player.getUniqueId());
+        return current == null ? listName.equals(player.getDisplayName()) : current.equals(listName);
+    }
+
+    @Override
+    public void render(@NotNull Map<Player, String> updates) {
+        updates.forEach((player, listName) -> listNames.put(player.getUniqueId(), listName));
+
+        if (!pendingViewers.isEmpty()) {
+            List<Player> everyone = new ArrayList<>(server.getOnlinePlayers());
+            for (UUID uuid : pendingViewers) {
+                Player viewer = server.getPlayer(uuid);
+                if (viewer != null) {
+                    send(viewer, everyone);
+                }
+            }
+        }
+
+        if (!updates.isEmpty()) {
+            List<Player> changed = new ArrayList<>(updates.keySet());
+            for (Player viewer : server.getOnlinePlayers()) {
+                if (!pendingViewers.contains(viewer.getUniqueId())) {
+                    send(viewer, changed);
+                }
+            }
+        }
+        pendingViewers.clear();
+    }
+
+    @Override
+    public void addViewer(@NotNull Player viewer) {
+        pendingViewers.add(viewer.getUniqueId()); // sent with the next flush, after the server has listed all players
+    }
+
+    @Override
+    public void removeViewer(@NotNull UUID uuid) {
+        listNames.remove(uuid);
+        hidden.remove(uuid);
+        pendingViewers.remove(uuid);
+    }
+
+    @Override
+    public boolean isPerViewer() {
+        return true;
+    }
+
+    @Override
+    public void setStatusesVisible(@NotNull Player viewer, boolean visible) {
+        if (visible ? hidden.remove(viewer.getUniqueId()) : hidden.add(viewer.getUniqueId())) {
+            addViewer(viewer);
+        }
+    }
+
+    @Override
+    public boolean areStatusesVisible(@NotNull Player viewer) {
+        return !hidden.contains(viewer.getUniqueId());
+    }
+
+    /**
+     * Sends the display names of the given players to the given viewer within a single packet.
+     *
+     * @param viewer  the player receiving the packet. Must be non-{@code null}.
+     * @param players the players whose display names are sent. Must be non-{@code null}.
+     */
+    private void send(@NotNull Player viewer, @NotNull Collection<Player> players) {
+        boolean visible = areStatusesVisible(viewer);
+        List<PlayerInfoData> entries = new ArrayList<>(players.size());
+        for (Player player : players) {
+            String listName = visible ? listNames.getOrDefault(player.getUniqueId(), player.getDisplayName()) : player.getDisplayName();
+            entries.add(new PlayerInfoData(WrappedGameProfile.fromPlayer(player), player.getPing(),
+                    EnumWrappers.NativeGameMode.fromBukkit(player.getGameMode()), WrappedChatComponent.fromLegacyText(listName)));
+        }
+
+        PacketContainer packet = protocolManager.createPacket(PacketType.Play.Server.PLAYER_INFO);
+        packet.getPlayerInfoActions().write(0, EnumSet.of(EnumWrappers.PlayerInfoAction.UPDATE_DISPLAY_NAME));
+        packet.getPlayerInfoDataLists().write(1, entries);
+        protocolManager.sendServerPacket(viewer, packet);
+    }
+}
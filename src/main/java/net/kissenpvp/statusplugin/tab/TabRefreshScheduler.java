@@ -0,0 +1,185 @@
+/*
+ * Copyright (C) 2023 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+package net.kissenpvp.statusplugin.tab;
+
+import org.bukkit.Server;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Coalesces and batches refreshes of the player tab.
+ *
+ * <p>Every update of a player list name sends a packet to each online player.
+ * Instead of doing so immediately whenever a status changes, players are only
+ * marked as dirty through {@link #markDirty(Player)}.
+ * Marking a player who is already dirty does not cause another update, so any
+ * number of changes within a tick collapse into a single one.
+ *
+ * <p>Once per tick, {@link #flush()} hands the updates of the dirty players to
+ * the {@link TabRenderer} as a single batch, in the order in which they have
+ * been marked. At most {@code maxPerTick} updates are sent per tick, the remaining players stay dirty for the following ticks.
+ * This keeps mass changes, such as many players joining at once, from sending
+ * all of their packets within the same tick.
+ *
+ * <p>The last rendered player list name of each player is cached along with
+ * the status and display name it was rendered from. As long as neither of them has
+ * changed, the cached name is reused instead of being rendered again. An update
+ * is only sent if the resulting name differs from the one the renderer currently
+ * displays, which for instance skips every player without status on join.
+ *
+ * <p>This class is not thread-safe and must only be used from the main thread.
+ *
+ * @see TabStats
+ * @see TabRenderer
+ */
+public class TabRefreshScheduler {
+
+    private final Server server;
+    private final Function<Player, String> statusLookup;
+    private final TabRenderer renderer;
+    private final int maxPerTick;
+    private final Set<UUID> dirty = new LinkedHashSet<>();
+    private final Map<UUID, Rendered> rendered = new HashMap<>();
+    private final Map<Player, String> batch = new LinkedHashMap<>();
+    private long requested;
+    private long coalesced;
+    private long skipped;
+    private long sent;
+
+    /**
+     * Constructor for creating a new {@code TabRefreshScheduler}.
+     *
+     * @param server       the server used to resolve the dirty players. Must be non-{@code null}.
+     * @param statusLookup the function returning the status of a player, or {@code null} if they have none.
+     *                     Must be non-{@code null}.
+     * @param renderer     the renderer displaying the player list names. Must be non-{@code null}.
+     * @param maxPerTick   the maximum number of updates which are sent within a single tick.
+     */
+    public TabRefreshScheduler(@NotNull Server server, @NotNull Function<Player, String> statusLookup, @NotNull TabRenderer renderer, int maxPerTick) {
+        this.server = server;
+        this.statusLookup = statusLookup;
+        this.renderer = renderer;
+        this.maxPerTick = Math.max(1, maxPerTick);
+    }
+
+    /**
+     * Marks the player list name of the given player as outdated.
+     *
+     * @param player the player whose tab entry is to be refreshed. Must be non-{@code null}.
+     */
+    public void markDirty(@NotNull Player player) {
+        requested++;
+        if (!dirty.add(player.getUniqueId())) {
+            coalesced++;
+        }
+    }
+
+    /**
+     * Marks the given player, who has just joined, as dirty and registers them as viewer.
+     *
+     * @param player the player who has joined. Must be non-{@code null}.
+     */
+    public void join(@NotNull Player player) {
+        renderer.addViewer(player);
+        markDirty(player);
+    }
+
+    /**
+     * Drops the cached player list name of the player with the given unique ID.
+     *
+     * <p>This is called when a player leaves the server.
+     *
+     * @param uuid the unique ID of the player. Must be non-{@code null}.
+     */
+    public void forget(@NotNull UUID uuid) {
+        dirty.remove(uuid);
+        rendered.remove(uuid);
+        renderer.removeViewer(uuid);
+    }
+
+    /**
+     * Sends the updates of up to {@code maxPerTick} dirty players.
+     *
+     * <p>Players who have left in the meantime, as well as players whose player
+     * list name would not change, are skipped without counting towards the limit.
+     */
+    public void flush() {
+        int budget = maxPerTick;
+        Iterator<UUID> iterator = dirty.iterator();
+        while (budget > 0 && iterator.hasNext()) {
+            Player player = server.getPlayer(iterator.next());
+            iterator.remove();
+            if (player == null) {
+                continue;
+            }
+
+            String listName = render(player);
+            if (renderer.isCurrent(player, listName)) {
+                skipped++;
+                continue;
+            }
+
+            batch.put(player, listName);
+            sent++;
+            budget--;
+        }
+
+        renderer.render(batch);
+        batch.clear();
+    }
+
+    /**
+     * Renders the player list name of the given player.
+     *
+     * <p>The status is concatenated with the player's display name. If the
+     * player does not have a status, only the display name is used. The
+     * rendered name is taken from the cache if neither the status nor the
+     * display name have changed since it has been rendered.
+     *
+     * @param player the player whose player list name is to be rendered. Must be non-{@code null}.
+     * @return the player list name to be displayed in the game tab.
+     */
+    private @NotNull String render(@NotNull Player player) {
+        String status = statusLookup.apply(player);
+        String displayName = player.getDisplayName();
+        Rendered last = rendered.get(player.getUniqueId());
+        if (last != null && last.status() == status && last.displayName().equals(displayName)) {
+            return last.listName();
+        }
+
+        String listName = status == null ? displayName : status + displayName;
+        rendered.put(player.getUniqueId(), new Rendered(status, displayName, listName));
+        return listName;
+    }
+
+    /**
+     * Creates a snapshot of the counters of this scheduler.
+     *
+     * @return the current statistics of this scheduler.
+     */
+    public @NotNull TabStats getStats() {
+        return new TabStats(requested, coalesced, skipped, sent, dirty.size());
+    }
+
+    private record Rendered(@Nullable String status, @NotNull String displayName, @NotNull String listName) {}
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2023 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+package net.kissenpvp.statusplugin.tab;
+
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Represents a backend which displays player list names to the viewers of the player tab.
+ *
+ * <p>The {@link TabRefreshScheduler} decides which player list names have to
+ * be updated and hands them to the renderer once per tick as a single batch
+ * through {@link #render(Map)}. How these names reach the viewers is up to the
+ * renderer, which allows backends to send one packet per viewer for the whole
+ * batch, or to display names differently to each viewer.
+ *
+ * <p>All methods are called from the main thread.
+ *
+ * @see BukkitTabRenderer
+ * @see PacketTabRenderer
+ */
+public interface TabRenderer {
+
+    /**
+     * Checks whether the given player list name is already displayed for the given player.
+     *
+     * @param player   the player whose tab entry is checked. Must be non-{@code null}.
+     * @param listName the player list name as rendered. Must be non-{@code null}.
+     * @return {@code true} if the name is already displayed and no update has to be sent.
+     */
+    boolean isCurrent(@NotNull Player player, @NotNull String listName);
+
+    /**
+     * Displays the given player list names.
+     *
+     * <p>This method is called once per tick, with an empty map if no name has changed.
+     *
+     * @param updates a map relating each player to their new player list name. Must be non-{@code null}.
+     */
+    void render(@NotNull Map<Player, String> updates);
+
+    /**
+     * Notifies the renderer about a player who has joined and is now viewing the player tab.
+     *
+     * @param viewer the player who has joined. Must be non-{@code null}.
+     */
+    default void addViewer(@NotNull Player viewer) {}
+
+    /**
+     * Notifies the renderer about a player who has left the server.
+     *
+     * @param uuid the unique ID of the player. Must be non-{@code null}.
+     */
+    default void removeViewer(@NotNull UUID uuid) {}
+
+    /**
+     * Checks whether this renderer is able to display different names to different viewers.
+     *
+     * @return {@code true} if statuses can be hidden from single viewers.
+     */
+    default boolean isPerViewer() {
+        return false;
+    }
+
+    /**
+     * Changes whether the given viewer sees the statuses of other players.
+     *
+     * @param viewer  the viewer whose preference is changed. Must be non-{@code null}.
+     * @param visible whether statuses are displayed to the viewer.
+     * @throws UnsupportedOperationException if this renderer is not {@link #isPerViewer() per viewer}.
+     */
+    default void setStatusesVisible(@NotNull Player viewer, boolean visible) {
+        throw new UnsupportedOperationException("This renderer displays the same names to every viewer.");
+    }
+
+    /**
+     * Checks whether the given viewer sees the statuses of other players.
+     *
+     * @param viewer the viewer to check. Must be non-{@code null}.
+     * @return {@code true} if statuses are displayed to the viewer.
+     */
+    default boolean areStatusesVisible(@NotNull Player viewer) {
+        return true;
+    }
+}
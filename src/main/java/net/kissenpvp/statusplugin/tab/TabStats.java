@@ -0,0 +1,31 @@
+/*
+ * Copyright (C) 2023 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+package net.kissenpvp.statusplugin.tab;
+
+/**
+ * An immutable snapshot of the counters of a {@link TabRefreshScheduler}.
+ *
+ * @param requested the number of refreshes which have been requested.
+ * @param coalesced the number of requests which were merged into an already pending refresh.
+ * @param skipped   the number of updates which were not sent, as the player list name had not changed.
+ * @param sent      the number of player list names which have actually been sent.
+ * @param pending   the number of players currently waiting for their refresh.
+ * @see TabRefreshScheduler#getStats()
+ */
+public record TabStats(long requested, long coalesced, long skipped, long sent, int pending) {}
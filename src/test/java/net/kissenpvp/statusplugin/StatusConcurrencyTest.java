@@ -0,0 +1,143 @@
+/*
+ * Copyright (C) 2023 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+
+package net.kissenpvp.statusplugin;
+
+import net.kissenpvp.statusplugin.event.SetStatusEvent;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Hammers the synchronous status methods from several threads while others read the statuses.
+ */
+class StatusConcurrencyTest {
+
+    private static final int PLAYERS = 50;
+    private static final int WRITERS = 4;
+    private static final int READERS = 4;
+    private static final int OPERATIONS = 600;
+    private static final Pattern VALID_STATUS = Pattern.compile("§[ac](Writer\\d|Timed) ");
+
+    @TempDir
+    Path dataFolder;
+    private FakeServer server;
+    private StatusPlugin plugin;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        server = new FakeServer();
+        plugin = server.enable(dataFolder, Map.of());
+        executor = Executors.newFixedThreadPool(WRITERS + READERS);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        executor.shutdownNow();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        server.close();
+    }
+
+    @Test
+    void writesFromOtherThreadsAreHandedToMainThread() {
+        List<FakePlayer> players = new ArrayList<>();
+        for (int i = 0; i < PLAYERS; i++) {
+            players.add(server.join("Player" + i));
+        }
+        AtomicLong events = new AtomicLong();
+        AtomicLong eventsOffMain = new AtomicLong();
+        server.getPluginManager().registerEvents(new Listener() {
+            @EventHandler
+            public void onSetStatusEvent(SetStatusEvent setStatusEvent) {
+                events.incrementAndGet();
+                if (!server.isPrimaryThread()) {
+                    eventsOffMain.incrementAndGet();
+                }
+            }
+        }, plugin);
+
+        AtomicBoolean writing = new AtomicBoolean(true);
+        List<CompletableFuture<Void>> readers = new ArrayList<>();
+        for (int reader = 0; reader < READERS; reader++) {
+            readers.add(CompletableFuture.runAsync(() -> {
+                while (writing.get()) {
+                    for (FakePlayer player : players) {
+                        String status = plugin.peekStatus(player.getPlayer());
+                        if (status != null && !VALID_STATUS.matcher(status).matches()) {
+                            fail("read a torn status: " + status);
+                        }
+                        plugin.getStatus(player.getPlayer()).ifPresent(present -> assertTrue(VALID_STATUS.matcher(present).matches()));
+                    }
+                }
+            }, executor));
+        }
+
+        List<CompletableFuture<Void>> writers = new ArrayList<>();
+        for (int writer = 0; writer < WRITERS; writer++) {
+            int id = writer;
+            writers.add(CompletableFuture.runAsync(() -> {
+                for (int i = 0; i < OPERATIONS; i++) {
+                    FakePlayer player = players.get(ThreadLocalRandom.current().nextInt(PLAYERS));
+                    switch (i % 3) {
+                        case 0 -> assertEquals("§aWriter" + id + " ", plugin.setStatus(player.getPlayer(), "&aWriter" + id));
+                        case 1 -> plugin.clearStatus(player.getPlayer());
+                        default -> {
+                            assertEquals("§cTimed ", plugin.setStatus(player.getPlayer(), "&cTimed", Duration.ofMinutes(5)));
+                            plugin.getRemainingStatusTime(player.getPlayer());
+                        }
+                    }
+                }
+            }, executor));
+        }
+
+        CompletableFuture<Void> allWriters = CompletableFuture.allOf(writers.toArray(CompletableFuture[]::new));
+        server.tickUntil(allWriters::isDone, Duration.ofMinutes(1));
+        writing.set(false);
+        allWriters.join();
+        CompletableFuture.allOf(readers.toArray(CompletableFuture[]::new)).join();
+
+        assertEquals((long) WRITERS * (OPERATIONS / 3) * 2, events.get());
+        assertEquals(0, eventsOffMain.get());
+        for (FakePlayer player : players) {
+            String status = plugin.peekStatus(player.getPlayer());
+            assertTrue(status == null || VALID_STATUS.matcher(status).matches());
+            assertEquals(status != null && status.startsWith("§cTimed"), plugin.getRemainingStatusTime(player.getPlayer()) != null);
+        }
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright (C) 2023 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+
+package net.kissenpvp.statusplugin;
+
+import net.kissenpvp.statusplugin.audit.AuditAction;
+import net.kissenpvp.statusplugin.audit.AuditEntry;
+import net.kissenpvp.statusplugin.event.BulkStatusEvent;
+import net.kissenpvp.statusplugin.event.ClearStatusEvent;
+import net.kissenpvp.statusplugin.event.SetStatusEvent;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies the contract between the plug-in and the listeners of {@link SetStatusEvent} and {@link ClearStatusEvent}.
+ */
+class StatusEventTest {
+
+    @TempDir
+    Path dataFolder;
+    private FakeServer server;
+    private StatusPlugin plugin;
+    private FakePlayer player;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Files.writeString(dataFolder.resolve("blocklist.txt"), "blocked\n");
+        server = new FakeServer();
+        plugin = server.enable(dataFolder, Map.of());
+        player = server.join("Notch");
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    @Test
+    void statusIsSanitisedWithoutListeners() {
+        assertEquals("§aBuilding §lnow ", plugin.setStatus(player.getPlayer(), "   &aBuilding &lnow   "));
+        assertEquals("§aBuilding §lnow ", plugin.peekStatus(player.getPlayer()));
+    }
+
+    @Test
+    void listenerReceivesCompiledStatus() {
+        List<String> received = new ArrayList<>();
+        onSetStatus(setStatusEvent -> received.add(setStatusEvent.getStatus()));
+
+        plugin.setStatus(player.getPlayer(), "  &aBuilding  ");
+
+        assertEquals(List.of("§aBuilding "), received);
+    }
+
+    @Test
+    void statusEditedByListenerIsSanitisedAgain() {
+        onSetStatus(setStatusEvent -> setStatusEvent.setStatus("   &cEdited &lby listener   "));
+
+        assertEquals("§cEdited §lby listener ", plugin.setStatus(player.getPlayer(), "&aBuilding"));
+        assertEquals("§cEdited §lby listener ", plugin.peekStatus(player.getPlayer()));
+    }
+
+    @Test
+    void blankEditCancelsStatusChange() {
+        plugin.setStatus(player.getPlayer(), "&aBuilding");
+        onSetStatus(setStatusEvent -> setStatusEvent.setStatus("&c   "));
+
+        assertThrows(EventCancelledException.class, () -> plugin.setStatus(player.getPlayer(), "&cAFK"));
+        assertEquals("§aBuilding ", plugin.peekStatus(player.getPlayer()));
+    }
+
+    @Test
+    void blockedEditCancelsStatusChange() {
+        onSetStatus(setStatusEvent -> setStatusEvent.setStatus("&cbl0cked"));
+
+        assertThrows(EventCancelledException.class, () -> plugin.setStatus(player.getPlayer(), "&cAFK"));
+        assertNull(plugin.peekStatus(player.getPlayer()));
+    }
+
+    @Test
+    void nullEditCancelsStatusChange() {
+        onSetStatus(setStatusEvent -> setStatusEvent.setStatus(null));
+
+        assertThrows(EventCancelledException.class, () -> plugin.setStatus(player.getPlayer(), "&cAFK"));
+        assertNull(plugin.peekStatus(player.getPlayer()));
+    }
+
+    @Test
+    void rejectedEditIsRecordedAsCancelled() {
+        onSetStatus(setStatusEvent -> setStatusEvent.setStatus("&cbl0cked"));
+
+        assertThrows(EventCancelledException.class, () -> plugin.setStatus(player.getPlayer(), "&cAFK"));
+
+        List<AuditEntry> history = history(player);
+        assertEquals(1, history.size());
+        assertEquals(AuditAction.CANCEL, history.get(0).action());
+        assertEquals("§cAFK ", history.get(0).status());
+    }
+
+    @Test
+    void rejectedBulkEditIsRecordedAsCancelled() {
+        FakePlayer blanked = server.join("Jeb");
+        server.getPluginManager().registerEvents(new Listener() {
+            @EventHandler
+            public void onBulkStatusEvent(BulkStatusEvent bulkStatusEvent) {
+                bulkStatusEvent.getStatuses().put(blanked.getPlayer(), "&c  ");
+            }
+        }, plugin);
+
+        plugin.setStatuses(Map.of(player.getPlayer(), "&aBuilding", blanked.getPlayer(), "&aBuilding"));
+
+        assertEquals(AuditAction.SET, history(player).get(0).action());
+        List<AuditEntry> history = history(blanked);
+        assertEquals(1, history.size());
+        assertEquals(AuditAction.CANCEL, history.get(0).action());
+        assertEquals("§aBuilding ", history.get(0).status());
+    }
+
+    @Test
+    void clearStatusEventCarriesClearedStatus() {
+        plugin.setStatus(player.getPlayer(), "&aBuilding");
+        List<String> received = new ArrayList<>();
+        server.getPluginManager().registerEvents(new Listener() {
+            @EventHandler
+            public void onClearStatusEvent(ClearStatusEvent clearStatusEvent) {
+                received.add(clearStatusEvent.getStatus());
+            }
+        }, plugin);
+
+        plugin.clearStatus(player.getPlayer());
+        plugin.clearStatus(player.getPlayer()); // without a status no event is fired
+
+        assertEquals(List.of("§aBuilding "), received);
+        assertNull(plugin.peekStatus(player.getPlayer()));
+    }
+
+    private List<AuditEntry> history(FakePlayer fakePlayer) {
+        CompletableFuture<List<AuditEntry>> history = plugin.getStatusHistory(fakePlayer.getUniqueId(), 0, 10);
+        server.tickUntil(history::isDone, Duration.ofSeconds(5));
+        return history.join();
+    }
+
+    private void onSetStatus(Consumer<SetStatusEvent> handler) {
+        server.getPluginManager().registerEvents(new Listener() {
+            @EventHandler
+            public void onSetStatusEvent(SetStatusEvent setStatusEvent) {
+                handler.accept(setStatusEvent);
+            }
+        }, plugin);
+    }
+}
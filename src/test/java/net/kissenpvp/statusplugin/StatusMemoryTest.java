@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2023 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+
+package net.kissenpvp.statusplugin;
+
+import net.kissenpvp.statusplugin.cache.MemoryUsage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies that the memory held by the plug-in only depends on the number of
+ * players, no matter how often they join and leave.
+ */
+class StatusMemoryTest {
+
+    private static final int PLAYERS = 500;
+    private static final int ROUNDS = 30;
+    private static final List<String> STATUSES = List.of("&aBuilding", "&cAFK", "&6Streaming", "&dRecording", "&bExploring");
+
+    @TempDir
+    Path dataFolder;
+    private FakeServer server;
+    private StatusPlugin plugin;
+
+    @BeforeEach
+    void setUp() {
+        server = new FakeServer();
+        plugin = server.enable(dataFolder, Map.of("cache.offline-max-size", PLAYERS, "store.flush-interval-ms", 10));
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    @Test
+    void joinQuitChurnKeepsHeapFlat() {
+        long[] estimates = new long[ROUNDS];
+        long[] heap = new long[ROUNDS];
+        for (int round = 0; round < ROUNDS; round++) {
+            List<FakePlayer> players = new ArrayList<>(PLAYERS);
+            for (int i = 0; i < PLAYERS; i++) {
+                FakePlayer player = server.join("Player" + (round % 2 * PLAYERS + i)); // alternate between two groups of players
+                plugin.setStatus(player.getPlayer(), STATUSES.get((round + i) % STATUSES.size()));
+                players.add(player);
+            }
+            server.tickUntil(() -> plugin.getTabStats().pending() == 0, Duration.ofSeconds(30));
+            players.forEach(server::quit);
+            server.tick();
+
+            MemoryUsage memoryUsage = plugin.getMemoryUsage();
+            assertEquals(0, memoryUsage.onlineEntries());
+            assertTrue(memoryUsage.offlineEntries() <= PLAYERS);
+            estimates[round] = memoryUsage.cacheBytes();
+            heap[round] = usedHeap();
+        }
+
+        assertEquals(STATUSES.size(), plugin.getInternStats().distinct());
+        assertEquals(estimates[2], estimates[ROUNDS - 1], "the estimated memory of the cache must not grow");
+        long baseline = Math.min(heap[2], heap[3]);
+        assertTrue(heap[ROUNDS - 1] - baseline < 8 << 20, () -> String.format("the heap grew from %d to %d bytes", baseline, heap[ROUNDS - 1]));
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+        }
+        return used;
+    }
+}
@@ -0,0 +1,360 @@
+/*
+ * Copyright (C) 2023 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+
+package net.kissenpvp.statusplugin;
+
+import net.kissenpvp.statusplugin.event.BulkStatusEvent;
+import net.kissenpvp.statusplugin.event.ClearStatusEvent;
+import net.kissenpvp.statusplugin.event.SetStatusEvent;
+import net.kissenpvp.statusplugin.sync.LocalStatusBus;
+import net.kissenpvp.statusplugin.sync.StatusDelta;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Exercises the status commands and events on a {@link FakeServer}.
+ */
+class StatusPluginTest {
+
+    @TempDir
+    Path dataFolder;
+    private FakeServer server;
+    private StatusPlugin plugin;
+    private FakePlayer player;
+
+    @BeforeEach
+    void setUp() {
+        server = new FakeServer();
+        plugin = server.enable(dataFolder, Map.of());
+        player = server.join("Notch");
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    @Test
+    void statusCommandSetsStatus() {
+        server.dispatch(player, "status &aBuilding a castle");
+
+        assertEquals(List.of("§7Your status has been set to §f§aBuilding a castle ."), awaitReply());
+        assertEquals("§aBuilding a castle ", plugin.peekStatus(player.getPlayer()));
+        server.tick();
+        assertEquals("§aBuilding a castle Notch", player.getPlayerListName());
+    }
+
+    @Test
+    void statusCommandRejectsInvalidDuration() {
+        server.dispatch(player, "status &aBuilding --for soon");
+
+        assertEquals(List.of("§cThe duration 'soon' is invalid. Use for example §f30m §cor §f1h30m§c."), awaitReply());
+        assertNull(plugin.peekStatus(player.getPlayer()));
+    }
+
+    @Test
+    void clearStatusCommandClearsStatus() {
+        plugin.setStatus(player.getPlayer(), "&aBuilding");
+
+        server.dispatch(player, "cstatus");
+
+        assertEquals(1, awaitReply().size());
+        assertNull(plugin.peekStatus(player.getPlayer()));
+        server.tick();
+        assertEquals("Notch", player.getPlayerListName());
+    }
+
+    @Test
+    void statusCommandIsRateLimitedUnlessBypassed() {
+        server.disable();
+        plugin = server.enable(dataFolder, Map.of("rate-limit.capacity", 2, "rate-limit.refill-per-second", 0.0));
+        FakePlayer other = server.join("Jeb");
+
+        server.dispatch(player, "status &aOne");
+        server.dispatch(player, "status &aTwo");
+        server.dispatch(player, "status &aThree");
+        server.tickUntil(() -> player.getMessageCount() >= 3, Duration.ofSeconds(5));
+
+        assertEquals(List.of("§cYou are changing your status too quickly.",
+                "§7Your status has been set to §f§aOne .",
+                "§7Your status has been set to §f§aTwo ."), player.takeMessages());
+        assertEquals(1, plugin.getRateLimiter().getRejected());
+
+        server.dispatch(other, "status &aBuilding"); // each player has a bucket of their own
+        server.tickUntil(() -> other.getMessageCount() > 0, Duration.ofSeconds(5));
+        assertEquals(List.of("§7Your status has been set to §f§aBuilding ."), other.takeMessages());
+
+        player.grant("statusplugin.ratelimit.bypass");
+        server.dispatch(player, "status &aFour");
+
+        assertEquals(List.of("§7Your status has been set to §f§aFour ."), awaitReply());
+        assertEquals(1, plugin.getRateLimiter().getRejected());
+    }
+
+    @Test
+    void tabUpdatesShareGlobalBudget() {
+        server.disable();
+        plugin = server.enable(dataFolder, Map.of("tab.max-updates-per-tick", 2));
+        List<FakePlayer> fakePlayers = List.of(player, server.join("Jeb"), server.join("Dinnerbone"), server.join("Grumm"));
+        server.tick(); // the players without status are skipped
+
+        fakePlayers.forEach(fakePlayer -> plugin.setStatus(fakePlayer.getPlayer(), "&aBuilding"));
+        server.tick();
+        assertEquals(2, plugin.getTabStats().sent());
+        assertEquals(2, plugin.getTabStats().pending());
+
+        server.tick();
+        assertEquals(4, plugin.getTabStats().sent());
+        fakePlayers.forEach(fakePlayer -> assertEquals("§aBuilding " + fakePlayer.getName(), fakePlayer.getPlayerListName()));
+    }
+
+    @Test
+    void cancelledSetStatusEventKeepsStatus() {
+        plugin.setStatus(player.getPlayer(), "&aBuilding");
+        server.getPluginManager().registerEvents(new Listener() {
+            @EventHandler
+            public void onSetStatusEvent(SetStatusEvent setStatusEvent) {
+                setStatusEvent.setCancelled(true);
+            }
+        }, plugin);
+
+        server.dispatch(player, "status &cAFK");
+
+        assertEquals(List.of("§cThe status was not changed."), awaitReply());
+        assertEquals("§aBuilding ", plugin.peekStatus(player.getPlayer()));
+    }
+
+    @Test
+    void cancelledClearStatusEventKeepsStatus() {
+        plugin.setStatus(player.getPlayer(), "&aBuilding");
+        server.getPluginManager().registerEvents(new Listener() {
+            @EventHandler
+            public void onClearStatusEvent(ClearStatusEvent clearStatusEvent) {
+                clearStatusEvent.setCancelled(true);
+            }
+        }, plugin);
+
+        assertThrows(EventCancelledException.class, () -> plugin.clearStatus(player.getPlayer()));
+        assertEquals("§aBuilding ", plugin.peekStatus(player.getPlayer()));
+    }
+
+    @Test
+    void bulkStatusesReplacedByListenerAreCompiledAgain() {
+        FakePlayer replaced = server.join("Jeb");
+        FakePlayer blanked = server.join("Dinnerbone");
+        server.getPluginManager().registerEvents(new Listener() {
+            @EventHandler
+            public void onBulkStatusEvent(BulkStatusEvent bulkStatusEvent) {
+                bulkStatusEvent.getStatuses().put(replaced.getPlayer(), "&cReplaced");
+                bulkStatusEvent.getStatuses().put(blanked.getPlayer(), "&c  ");
+            }
+        }, plugin);
+
+        Map<Player, String> applied = plugin.setStatuses(Map.of(player.getPlayer(), "&aBuilding", replaced.getPlayer(), "&aBuilding", blanked.getPlayer(), "&aBuilding"));
+
+        assertEquals(Map.of(player.getPlayer(), "§aBuilding ", replaced.getPlayer(), "§cReplaced "), applied);
+        assertEquals("§aBuilding ", plugin.peekStatus(player.getPlayer()));
+        assertEquals("§cReplaced ", plugin.peekStatus(replaced.getPlayer()));
+        assertNull(plugin.peekStatus(blanked.getPlayer()));
+    }
+
+    @Test
+    void bulkPlayersAddedByListenerAreIgnored() {
+        FakePlayer added = server.join("Jeb");
+        FakePlayer offline = server.join("Dinnerbone");
+        server.quit(offline);
+        server.getPluginManager().registerEvents(new Listener() {
+            @EventHandler
+            public void onBulkStatusEvent(BulkStatusEvent bulkStatusEvent) {
+                bulkStatusEvent.getStatuses().put(added.getPlayer(), "&cAdded");
+                bulkStatusEvent.getStatuses().put(offline.getPlayer(), "&cAdded");
+            }
+        }, plugin);
+
+        Map<Player, String> applied = plugin.setStatuses(Map.of(player.getPlayer(), "&aBuilding"));
+        Set<Player> cleared = plugin.clearStatuses(List.of(player.getPlayer()));
+
+        assertEquals(Map.of(player.getPlayer(), "§aBuilding "), applied);
+        assertEquals(Set.of(player.getPlayer()), cleared);
+        assertNull(plugin.peekStatus(added.getPlayer()));
+        assertNull(plugin.peekStatus(player.getPlayer()));
+    }
+
+    @Test
+    void statusIsRestoredOnRejoinAndAfterRestart() {
+        plugin.setStatus(player.getPlayer(), "&aBuilding");
+        server.quit(player);
+        player = server.join("Notch");
+        assertEquals("§aBuilding ", plugin.peekStatus(player.getPlayer()));
+
+        server.disable();
+        plugin = server.enable(dataFolder, Map.of()); // the player is still online, so the status is loaded asynchronously
+
+        server.tickUntil(() -> plugin.peekStatus(player.getPlayer()) != null, Duration.ofSeconds(5));
+        assertEquals("§aBuilding ", plugin.peekStatus(player.getPlayer()));
+        server.tick(2);
+        assertEquals("§aBuilding Notch", player.getPlayerListName());
+    }
+
+    @Test
+    void timedStatusSurvivesRestart() {
+        plugin.setStatus(player.getPlayer(), "&cAFK", Duration.ofMinutes(30));
+
+        server.disable();
+        plugin = server.enable(dataFolder, Map.of());
+        server.tickUntil(() -> plugin.peekStatus(player.getPlayer()) != null, Duration.ofSeconds(5));
+
+        Duration remaining = plugin.getRemainingStatusTime(player.getPlayer());
+        assertNotNull(remaining);
+        assertTrue(remaining.compareTo(Duration.ofMinutes(29)) > 0);
+    }
+
+    @Test
+    void timedStatusExpiredWhileDownIsCleared() throws InterruptedException {
+        FakePlayer offline = server.join("Jeb");
+        plugin.setStatus(player.getPlayer(), "&cAFK", Duration.ofMillis(100));
+        plugin.setStatus(offline.getPlayer(), "&cAFK", Duration.ofMillis(100));
+        server.quit(offline);
+
+        server.disable();
+        Thread.sleep(200);
+        plugin = server.enable(dataFolder, Map.of());
+        assertEquals(2, plugin.getExpiryStats().pending());
+        server.tickUntil(() -> plugin.getExpiryStats().pending() == 0, Duration.ofSeconds(5));
+        server.tick(5); // the status of the online player was still loading
+
+        assertNull(plugin.peekStatus(player.getPlayer()));
+        offline = server.join("Jeb");
+        assertNull(plugin.peekStatus(offline.getPlayer()));
+        server.disable();
+        plugin = server.enable(dataFolder, Map.of());
+        assertEquals(0, plugin.getExpiryStats().pending());
+        server.tick(5);
+        assertNull(plugin.peekStatus(player.getPlayer()));
+    }
+
+    @Test
+    void importCancelsExpiryOfOfflinePlayer() {
+        FakePlayer offline = server.join("Jeb");
+        plugin.setStatus(offline.getPlayer(), "&aBuilding");
+        Path snapshot = dataFolder.resolve("statuses.snapshot");
+        CompletableFuture<Long> exported = plugin.exportStatuses(snapshot);
+        server.tickUntil(exported::isDone, Duration.ofSeconds(5));
+        plugin.setStatus(offline.getPlayer(), "&cAFK", Duration.ofMinutes(30));
+        server.quit(offline);
+
+        CompletableFuture<Long> imported = plugin.importStatuses(snapshot);
+        server.tickUntil(imported::isDone, Duration.ofSeconds(5));
+
+        assertEquals(1, imported.join());
+        assertEquals(0, plugin.getExpiryStats().pending());
+        FakePlayer rejoined = server.join("Jeb");
+        server.tickUntil(() -> plugin.peekStatus(rejoined.getPlayer()) != null, Duration.ofSeconds(5));
+        assertEquals("§aBuilding ", plugin.peekStatus(rejoined.getPlayer()));
+    }
+
+    @Test
+    void historyOfOfflinePlayerIsLookedUpByName() {
+        FakePlayer offline = server.join("Jeb");
+        plugin.setStatus(offline.getPlayer(), "&aBuilding");
+        plugin.clearStatus(offline.getPlayer());
+        server.quit(offline);
+        player.grant("statusplugin.admin");
+
+        server.dispatch(player, "statusadmin history jeb");
+        server.tickUntil(() -> player.getMessageCount() >= 3, Duration.ofSeconds(5));
+
+        List<String> reply = player.takeMessages();
+        assertEquals(3, reply.size());
+        assertEquals("§7Status history of §fJeb §7(page §f1§7):", reply.get(0));
+        assertTrue(reply.get(1).endsWith("§eclear §f§aBuilding "), reply.get(1));
+        assertTrue(reply.get(2).endsWith("§aset §f§aBuilding "), reply.get(2));
+
+        server.dispatch(player, "statusadmin history Herobrine");
+        assertEquals(List.of("§cHerobrine has never played on this server."), awaitReply());
+    }
+
+    @Test
+    void remoteStatusQueuedAtShutdownIsStored() {
+        server.disable();
+        plugin = server.enable(dataFolder, Map.of("sync.bus", "local"));
+        LocalStatusBus remote = new LocalStatusBus();
+        remote.publish(List.of(new StatusDelta(player.getUniqueId(), "§aBuilding ", 0, System.currentTimeMillis(), "remote")));
+        remote.close();
+
+        server.disable(); // applied while closing, before the tick would have picked it up
+        plugin = server.enable(dataFolder, Map.of());
+        server.tickUntil(() -> plugin.peekStatus(player.getPlayer()) != null, Duration.ofSeconds(5));
+
+        assertEquals("§aBuilding ", plugin.peekStatus(player.getPlayer()));
+    }
+
+    @Test
+    void remoteTimedStatusKeepsItsExpiry() {
+        server.disable();
+        plugin = server.enable(dataFolder, Map.of("sync.bus", "local"));
+        LocalStatusBus remote = new LocalStatusBus();
+        long expiresAt = System.currentTimeMillis() + Duration.ofMinutes(30).toMillis();
+        remote.publish(List.of(new StatusDelta(player.getUniqueId(), "§cAFK ", expiresAt, System.currentTimeMillis(), "remote")));
+        remote.close();
+        server.tickUntil(() -> "§cAFK ".equals(plugin.peekStatus(player.getPlayer())), Duration.ofSeconds(5));
+
+        Duration remaining = plugin.getRemainingStatusTime(player.getPlayer());
+        assertNotNull(remaining);
+        assertTrue(remaining.compareTo(Duration.ofMinutes(29)) > 0);
+        server.disable();
+        plugin = server.enable(dataFolder, Map.of());
+        assertEquals(1, plugin.getExpiryStats().pending()); // persisted with its expiry
+    }
+
+    @Test
+    void unopenableJournalFallsBackToMemory() throws IOException {
+        server.disable();
+        Path journal = dataFolder.resolve("statuses.journal");
+        Files.deleteIfExists(journal);
+        Files.createDirectory(journal); // cannot be opened as a file
+
+        plugin = server.enable(dataFolder, Map.of());
+        server.tick(5); // the status of the online player is loaded asynchronously
+        plugin.setStatus(player.getPlayer(), "&aBuilding");
+
+        assertEquals("§aBuilding ", plugin.peekStatus(player.getPlayer()));
+    }
+
+    private List<String> awaitReply() {
+        server.tickUntil(() -> player.getMessageCount() > 0, Duration.ofSeconds(5));
+        return player.takeMessages();
+    }
+}
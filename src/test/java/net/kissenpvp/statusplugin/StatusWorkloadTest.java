@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2023 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+
+package net.kissenpvp.statusplugin;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs scripted {@code /status} and {@code /cstatus} workloads of thousands of virtual players.
+ *
+ * <p>The reports are published through the {@link TestReporter} and, if the
+ * system property {@code workload.reports} names a directory, written into
+ * it, so their latencies can be compared between changes.
+ */
+class StatusWorkloadTest {
+
+    private static final int PLAYERS = 2000;
+
+    @TempDir
+    Path dataFolder;
+    private FakeServer server;
+    private StatusPlugin plugin;
+
+    @BeforeEach
+    void setUp() {
+        server = new FakeServer();
+        plugin = server.enable(dataFolder, Map.of());
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    @Test
+    void scriptedWorkloadOfThousandsOfPlayers(TestReporter reporter) throws IOException {
+        List<FakePlayer> players = join(PLAYERS);
+        StatusWorkload workload = new StatusWorkload(server, List.of("status &aBuilding", "status &cAFK --for 30m", "cstatus"), 250, Duration.ofMinutes(1));
+
+        WorkloadReport report = workload.run(players, 2);
+        publish(reporter, "thousands-of-players", report);
+
+        assertEquals(Set.of("status", "cstatus"), report.operations().keySet());
+        assertEquals(4L * PLAYERS, report.operations().get("status").count());
+        assertEquals(2L * PLAYERS, report.operations().get("cstatus").count());
+        report.operations().values().forEach(operation -> assertEquals(0, operation.failed()));
+        report.operations().values().forEach(operation -> assertTrue(operation.p50() <= operation.p99()));
+        assertTrue(report.tabUpdates() > 0);
+        assertTrue(report.tabUpdates() <= 6L * PLAYERS, "each status change causes at most one tab update");
+        for (FakePlayer player : players) {
+            assertNull(plugin.peekStatus(player.getPlayer()));
+            assertEquals(player.getName(), player.getPlayerListName());
+        }
+    }
+
+    @Test
+    void burstOfStatusesAfterRestart(TestReporter reporter) throws IOException {
+        List<FakePlayer> players = join(PLAYERS);
+        StatusWorkload workload = new StatusWorkload(server, List.of("status &6Streaming"), PLAYERS, Duration.ofMinutes(1));
+        workload.run(players, 1);
+
+        server.disable();
+        plugin = server.enable(dataFolder, Map.of());
+        server.tickUntil(() -> players.stream().allMatch(player -> plugin.peekStatus(player.getPlayer()) != null)
+                && plugin.getTabStats().pending() == 0, Duration.ofSeconds(30));
+        for (FakePlayer player : players) {
+            assertEquals("§6Streaming ", plugin.peekStatus(player.getPlayer()));
+        }
+        WorkloadReport report = new StatusWorkload(server, List.of("status &dRecording"), PLAYERS, Duration.ofMinutes(1)).run(players, 1);
+        publish(reporter, "burst-after-restart", report);
+
+        assertEquals(0, report.operations().get("status").failed());
+        assertEquals(PLAYERS, report.tabUpdates());
+        for (FakePlayer player : players) {
+            assertEquals("§dRecording " + player.getName(), player.getPlayerListName());
+        }
+    }
+
+    @Test
+    void tabUpdatesWithinOneTickAreCoalesced() {
+        FakePlayer player = server.join("Notch");
+        server.tickUntil(() -> plugin.getTabStats().pending() == 0, Duration.ofSeconds(5));
+        long before = player.getListNameUpdates();
+
+        plugin.setStatus(player.getPlayer(), "&aBuilding");
+        plugin.setStatus(player.getPlayer(), "&cAFK");
+        server.tick(2);
+
+        assertEquals(before + 1, player.getListNameUpdates());
+        assertEquals("§cAFK Notch", player.getPlayerListName());
+    }
+
+    private List<FakePlayer> join(int count) {
+        List<FakePlayer> players = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            players.add(server.join("Player" + i));
+        }
+        server.tickUntil(() -> plugin.getTabStats().pending() == 0, Duration.ofSeconds(30));
+        return players;
+    }
+
+    private static void publish(TestReporter reporter, String name, WorkloadReport report) throws IOException {
+        reporter.publishEntry("workload " + name, report.format());
+        String directory = System.getProperty("workload.reports");
+        if (directory != null) {
+            Path file = Path.of(directory, name + ".txt");
+            Files.createDirectories(file.getParent());
+            Files.writeString(file, report.format());
+        }
+    }
+}
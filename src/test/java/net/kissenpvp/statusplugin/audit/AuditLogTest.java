@@ -0,0 +1,155 @@
+/*
+ * Copyright (C) 2023 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+package net.kissenpvp.statusplugin.audit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.UUID;
+import java.util.logging.Logger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies that the {@link AuditLog} pages through the history of a player by
+ * following its back-pointers, and that its index is brought up to date or
+ * rebuilt whenever it does not cover the whole log.
+ */
+class AuditLogTest {
+
+    private static final Logger LOGGER = Logger.getLogger(AuditLogTest.class.getName());
+    private static final UUID PLAYER = new UUID(0, 1);
+
+    @TempDir
+    Path folder;
+
+    @Test
+    void pagesSkipRecordsOfOtherPlayers() throws IOException {
+        AuditLog auditLog = open();
+        for (int i = 0; i < 25; i++) {
+            auditLog.record(PLAYER, AuditAction.SET, "§a" + i);
+            for (int other = 0; other < 500; other++) {
+                auditLog.record(new UUID(1, other), AuditAction.SET, "§cOther " + i);
+            }
+        }
+
+        assertEquals(expected(24, 15), history(auditLog, 0, 10));
+        assertEquals(expected(14, 5), history(auditLog, 10, 10));
+        assertEquals(expected(4, 0), history(auditLog, 20, 10));
+        assertEquals(List.of(), history(auditLog, 30, 10));
+        assertEquals(List.of(), auditLog.getHistory(new UUID(2, 0), 0, 10).join());
+        auditLog.close();
+    }
+
+    @Test
+    void pageBeyondRingIsReadFromLog() throws IOException {
+        AuditLog auditLog = open();
+        auditLog.join(PLAYER);
+        record(auditLog, 0, 4);
+
+        assertEquals(expected(1, 0), history(auditLog, 2, Integer.MAX_VALUE)); // the end of the page overflows
+        assertThrows(IllegalArgumentException.class, () -> auditLog.getHistory(PLAYER, -1, 10));
+        assertThrows(IllegalArgumentException.class, () -> auditLog.getHistory(PLAYER, 0, -1));
+        auditLog.close();
+    }
+
+    @Test
+    void staleIndexCatchesUpWithLog() throws IOException {
+        Path index = folder.resolve("audit.index");
+        AuditLog auditLog = open();
+        record(auditLog, 0, 5);
+        auditLog.close();
+        assertTrue(Files.exists(index));
+        Files.copy(index, folder.resolve("stale.index"));
+
+        auditLog = open();
+        record(auditLog, 5, 8);
+        auditLog.close();
+        Files.copy(folder.resolve("stale.index"), index, StandardCopyOption.REPLACE_EXISTING);
+
+        auditLog = open();
+        assertEquals(expected(7, 0), history(auditLog, 0, 10));
+        auditLog.close();
+    }
+
+    @Test
+    void missingOrDamagedIndexIsRebuilt() throws IOException {
+        Path index = folder.resolve("audit.index");
+        AuditLog auditLog = open();
+        record(auditLog, 0, 5);
+        auditLog.close();
+
+        Files.delete(index);
+        auditLog = open();
+        assertEquals(expected(4, 0), history(auditLog, 0, 10));
+        auditLog.close();
+
+        byte[] bytes = Files.readAllBytes(index);
+        bytes[bytes.length / 2] ^= 1;
+        Files.write(index, bytes);
+        auditLog = open();
+        assertEquals(expected(4, 0), history(auditLog, 0, 10));
+        auditLog.close();
+    }
+
+    @Test
+    void tornRecordIsCutOffAndChainContinues() throws IOException {
+        AuditLog auditLog = open();
+        record(auditLog, 0, 3);
+        auditLog.close();
+        Files.write(folder.resolve("audit.log"), new byte[]{0, 0, 0, 0, 0, 0, 0, 0, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        auditLog = open();
+        record(auditLog, 3, 5);
+        assertEquals(expected(4, 0), history(auditLog, 0, 10));
+        auditLog.close();
+
+        auditLog = open();
+        assertEquals(expected(4, 2), history(auditLog, 0, 3));
+        assertEquals(expected(1, 0), history(auditLog, 3, 3));
+        auditLog.close();
+    }
+
+    private AuditLog open() throws IOException {
+        AuditLog auditLog = new AuditLog(folder.resolve("audit.log"), LOGGER, 4);
+        auditLog.open();
+        return auditLog;
+    }
+
+    private static void record(AuditLog auditLog, int from, int to) {
+        for (int i = from; i < to; i++) {
+            auditLog.record(PLAYER, AuditAction.SET, "§a" + i);
+        }
+    }
+
+    private static List<String> history(AuditLog auditLog, int offset, int limit) {
+        return auditLog.getHistory(PLAYER, offset, limit).join().stream().map(AuditEntry::status).toList();
+    }
+
+    private static List<String> expected(int newest, int oldest) {
+        return IntStream.iterate(newest, i -> i >= oldest, i -> i - 1).mapToObj(i -> "§a" + i).toList();
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2023 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+
+package net.kissenpvp.statusplugin.cache;
+
+import net.kissenpvp.statusplugin.store.MemoryStatusStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies how the {@link StatusCache} hands statuses between the login thread, the main thread and the store.
+ */
+class StatusCacheTest {
+
+    private static final UUID PLAYER = new UUID(0, 1);
+
+    private MemoryStatusStore statusStore;
+    private StatusCache statusCache;
+
+    @BeforeEach
+    void setUp() {
+        statusStore = new MemoryStatusStore();
+        statusCache = new StatusCache(statusStore, Retention.STORE, 10, 300);
+    }
+
+    @Test
+    void preloadedStatusIsPinnedUntilJoin() throws IOException {
+        statusStore.put(PLAYER, "§aBuilding ");
+        statusCache.preload(PLAYER);
+        statusStore.put(PLAYER, "§cAFK ");
+
+        for (int i = 0; i < 100; i++) { // more quitting players than the offline part may hold
+            UUID other = new UUID(1, i);
+            assertFalse(statusCache.activate(other));
+            statusCache.release(other);
+        }
+
+        assertTrue(statusCache.activate(PLAYER));
+        assertEquals("§aBuilding ", statusCache.get(PLAYER));
+    }
+
+    @Test
+    void statusNotInMemoryIsLoadedAfterActivation() throws IOException {
+        statusStore.put(PLAYER, "§aBuilding ");
+
+        assertFalse(statusCache.activate(PLAYER));
+        assertNull(statusCache.get(PLAYER));
+
+        assertTrue(statusCache.complete(PLAYER, statusCache.load(PLAYER)));
+        assertEquals("§aBuilding ", statusCache.get(PLAYER));
+    }
+
+    @Test
+    void loadedStatusDoesNotOverwriteNewerStatus() throws IOException {
+        statusStore.put(PLAYER, "§aBuilding ");
+        assertFalse(statusCache.activate(PLAYER));
+        String loaded = statusCache.load(PLAYER);
+
+        statusCache.remove(PLAYER);
+
+        assertFalse(statusCache.complete(PLAYER, loaded));
+        assertNull(statusCache.get(PLAYER));
+    }
+
+    @Test
+    void playerLeavingWhileLoadingIsLoadedAgainOnRejoin() throws IOException {
+        statusStore.put(PLAYER, "§aBuilding ");
+        assertFalse(statusCache.activate(PLAYER));
+        statusCache.release(PLAYER);
+
+        assertFalse(statusCache.activate(PLAYER));
+        assertTrue(statusCache.complete(PLAYER, statusCache.load(PLAYER)));
+        assertEquals("§aBuilding ", statusCache.get(PLAYER));
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright (C) 2023 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+package net.kissenpvp.statusplugin.command;
+
+import net.kissenpvp.statusplugin.FakePlayer;
+import net.kissenpvp.statusplugin.FakeServer;
+import net.kissenpvp.statusplugin.StatusPlugin;
+import net.kissenpvp.statusplugin.event.SetStatusEvent;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies on which threads and in which order the {@link CommandPipeline} runs the stages of a command.
+ */
+class CommandPipelineTest {
+
+    @TempDir
+    Path dataFolder;
+    private FakeServer server;
+    private StatusPlugin plugin;
+    private CommandPipeline pipeline;
+    private FakePlayer player;
+
+    @BeforeEach
+    void setUp() {
+        server = new FakeServer();
+        plugin = server.enable(dataFolder, Map.of());
+        pipeline = new CommandPipeline(plugin, plugin.getMetrics(), 2);
+        player = server.join("Notch");
+    }
+
+    @AfterEach
+    void tearDown() {
+        pipeline.close();
+        server.close();
+    }
+
+    @Test
+    void onlyCommitAndReplyRunOnMainThread() {
+        List<String> stages = new CopyOnWriteArrayList<>();
+
+        pipeline.submit(player.getPlayer(), () -> {
+            stages.add("prepare " + server.getServer().isPrimaryThread());
+            return "input";
+        }, input -> {
+            stages.add("commit " + server.getServer().isPrimaryThread());
+            return input + " committed";
+        }, (result, throwable) -> stages.add(result + " " + server.getServer().isPrimaryThread()));
+        server.tickUntil(() -> stages.size() == 3, Duration.ofSeconds(5));
+
+        assertEquals(List.of("prepare false", "commit true", "input committed true"), stages);
+    }
+
+    @Test
+    void commandsOfPlayerAreCommittedInOrder() {
+        List<String> committed = new CopyOnWriteArrayList<>();
+        CountDownLatch release = new CountDownLatch(1);
+
+        pipeline.submit(player.getPlayer(), () -> {
+            await(release);
+            return "first";
+        }, committed::add, (result, throwable) -> {});
+        pipeline.submit(player.getPlayer(), () -> "second", committed::add, (result, throwable) -> {});
+        server.tick(5);
+        assertTrue(committed.isEmpty()); // the second command waits for the first
+
+        release.countDown();
+        server.tickUntil(() -> committed.size() == 2, Duration.ofSeconds(5));
+
+        assertEquals(List.of("first", "second"), committed);
+    }
+
+    @Test
+    void failedPreparationSkipsCommit() {
+        List<Throwable> failures = new CopyOnWriteArrayList<>();
+
+        pipeline.submit(player.getPlayer(), () -> {
+            throw new IllegalArgumentException("Invalid duration.");
+        }, input -> fail("The commit must not run."), (result, throwable) -> failures.add(throwable));
+        server.tickUntil(() -> !failures.isEmpty(), Duration.ofSeconds(5));
+
+        assertInstanceOf(IllegalArgumentException.class, failures.get(0));
+    }
+
+    @Test
+    void failingReplyIsReportedOnce() {
+        List<Throwable> failures = new CopyOnWriteArrayList<>();
+
+        pipeline.submit(player.getPlayer(), () -> "input", input -> {
+            throw new IllegalStateException("Broken commit.");
+        }, (result, throwable) -> {
+            failures.add(throwable);
+            throw new IllegalStateException("Broken reply.");
+        });
+        server.tickUntil(() -> player.getMessageCount() > 0, Duration.ofSeconds(5));
+
+        assertEquals(1, failures.size()); // the reply is not run again with its own failure
+        assertEquals("Broken commit.", failures.get(0).getMessage());
+        assertEquals(List.of("§cAn error occurred while executing this command."), player.takeMessages());
+    }
+
+    @Test
+    void commandOfLeftPlayerIsDropped() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean prepared = new AtomicBoolean();
+        List<String> stages = new CopyOnWriteArrayList<>();
+
+        pipeline.submit(player.getPlayer(), () -> {
+            await(release);
+            prepared.set(true);
+            return "input";
+        }, stages::add, (result, throwable) -> stages.add("reply"));
+        server.quit(player);
+        release.countDown();
+        server.tickUntil(prepared::get, Duration.ofSeconds(5));
+        for (int i = 0; i < 20; i++) { // the worker hands the commit to the main thread right after preparing
+            Thread.sleep(5);
+            server.tick();
+        }
+
+        assertTrue(stages.isEmpty());
+    }
+
+    @Test
+    void statusCommandFiresEventOnMainThread() {
+        List<Boolean> primary = new CopyOnWriteArrayList<>();
+        server.getPluginManager().registerEvents(new Listener() {
+            @EventHandler
+            public void onSetStatusEvent(SetStatusEvent setStatusEvent) {
+                primary.add(server.getServer().isPrimaryThread());
+            }
+        }, plugin);
+
+        server.dispatch(player, "status &aBuilding");
+        server.tickUntil(() -> player.getMessageCount() > 0, Duration.ofSeconds(5));
+
+        assertEquals(List.of(true), primary);
+        assertEquals("§aBuilding ", plugin.peekStatus(player.getPlayer()));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(interruptedException);
+        }
+    }
+}
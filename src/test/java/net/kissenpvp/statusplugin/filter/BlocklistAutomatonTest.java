@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2023 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+package net.kissenpvp.statusplugin.filter;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies which statuses the {@link BlocklistAutomaton} blocks, and which it must not.
+ */
+class BlocklistAutomatonTest {
+
+    @Test
+    void shortTermDoesNotBlockWordsContainingIt() {
+        BlocklistAutomaton automaton = BlocklistAutomaton.compile(List.of("ass"));
+
+        assertNull(automaton.find("Class trip"));
+        assertNull(automaton.find("[Bass] player"));
+        assertNull(automaton.find("Passing by"));
+        assertNull(automaton.find("as signed"));
+    }
+
+    @Test
+    void wholeWordIsBlockedDespiteEvasion() {
+        BlocklistAutomaton automaton = BlocklistAutomaton.compile(List.of("ass"));
+
+        assertEquals("ass", automaton.find("Kiss my ass"));
+        assertEquals("ass", automaton.find("a.s.s"));
+        assertEquals("ass", automaton.find("Such an 4$$"));
+        assertEquals("ass", automaton.find("Ässhat ass"));
+    }
+
+    @Test
+    void wildcardsAllowMatchesWithinWords() {
+        BlocklistAutomaton automaton = BlocklistAutomaton.compile(List.of("spam*", "*coin", "*scam*"));
+
+        assertEquals("spam*", automaton.find("Spammer here"));
+        assertNull(automaton.find("Antispam"));
+        assertEquals("*coin", automaton.find("Free bitcoin"));
+        assertNull(automaton.find("Coins for sale"));
+        assertEquals("*scam*", automaton.find("Noscamming"));
+    }
+
+    @Test
+    void termEndingWithinLongerTermIsFound() {
+        BlocklistAutomaton automaton = BlocklistAutomaton.compile(List.of("classic", "ass"));
+
+        assertNull(automaton.find("Classical music"));
+        assertEquals("ass", automaton.find("Glass ass"));
+        assertEquals("classic", automaton.find("Classic"));
+    }
+
+    @Test
+    void looserOfEqualTermsWins() {
+        BlocklistAutomaton automaton = BlocklistAutomaton.compile(List.of("scam", "*scam*"));
+
+        assertEquals("scam", automaton.find("Noscamming"));
+    }
+
+    @Test
+    void termWithDigitsIsMatchedLiterally() {
+        BlocklistAutomaton automaton = BlocklistAutomaton.compile(List.of("88", "1337", "ass"));
+
+        assertNull(automaton.find("bb"));
+        assertNull(automaton.find("Ieet"));
+        assertEquals("88", automaton.find("Heil 88"));
+        assertEquals("1337", automaton.find("1.3.3.7"));
+        assertEquals("ass", automaton.find("Such an 4$$"));
+        assertEquals(3, automaton.getTerms());
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2023 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+package net.kissenpvp.statusplugin.limit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies how the {@link TokenBucketLimiter} permits bursts, rejects spam and regains tokens.
+ */
+class TokenBucketLimiterTest {
+
+    private static final UUID PLAYER = new UUID(0, 1);
+    private static final UUID OTHER = new UUID(0, 2);
+
+    @Test
+    void burstBeyondCapacityIsRejected() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(3, 0);
+
+        assertTrue(limiter.tryAcquire(PLAYER));
+        assertTrue(limiter.tryAcquire(PLAYER));
+        assertTrue(limiter.tryAcquire(PLAYER));
+        assertFalse(limiter.tryAcquire(PLAYER));
+        assertFalse(limiter.tryAcquire(PLAYER));
+
+        assertEquals(2, limiter.getRejected());
+    }
+
+    @Test
+    void playersHaveSeparateBuckets() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(1, 0);
+
+        assertTrue(limiter.tryAcquire(PLAYER));
+        assertFalse(limiter.tryAcquire(PLAYER));
+        assertTrue(limiter.tryAcquire(OTHER));
+
+        assertEquals(1, limiter.getRejected());
+    }
+
+    @Test
+    void tokensAreRegainedOverTime() throws InterruptedException {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(1, 1000);
+
+        assertTrue(limiter.tryAcquire(PLAYER));
+        Thread.sleep(20); // regains far more than a single token, which the capacity caps
+
+        assertTrue(limiter.tryAcquire(PLAYER));
+        assertEquals(0, limiter.getRejected());
+    }
+
+    @Test
+    void drainedBucketIsNotEvicted() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(2, 0);
+        assertTrue(limiter.tryAcquire(PLAYER));
+
+        limiter.evictIdle(); // a bucket created again would be full
+
+        assertTrue(limiter.tryAcquire(PLAYER));
+        assertFalse(limiter.tryAcquire(PLAYER));
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright (C) 2023 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+package net.kissenpvp.statusplugin.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies that a scrape of the {@link PrometheusExporter} takes shared readings only once.
+ */
+class PrometheusExporterTest {
+
+    @Test
+    void sharedReadingIsTakenOncePerScrape() {
+        StatusMetrics metrics = new StatusMetrics(true);
+        AtomicInteger readings = new AtomicInteger();
+        Supplier<long[]> reading = metrics.perScrape(() -> {
+            int count = readings.incrementAndGet();
+            return new long[]{count, count * 10L};
+        });
+        metrics.register("first", "The first value.", false, () -> reading.get()[0]);
+        metrics.register("second", "The second value.", false, () -> reading.get()[1]);
+        metrics.register("third", "The first value again.", false, () -> reading.get()[0]);
+        PrometheusExporter exporter = new PrometheusExporter(metrics);
+
+        String scrape = exporter.scrape();
+        assertEquals(1, readings.get());
+        assertTrue(scrape.contains("statusplugin_first 1\n"));
+        assertTrue(scrape.contains("statusplugin_second 10\n"));
+        assertTrue(scrape.contains("statusplugin_third 1\n"));
+
+        assertTrue(exporter.scrape().contains("statusplugin_second 20\n"));
+        assertEquals(2, readings.get());
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2023 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+
+package net.kissenpvp.statusplugin.store;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+/**
+ * Writes batches of statuses into a journal until it is killed, printing the
+ * number of each batch once its flush has returned.
+ *
+ * @see JournalStatusStoreTest#processKilledDuringFlushKeepsEveryAcknowledgedBatch()
+ */
+final class JournalCrashChild {
+
+    static final int BATCH_SIZE = 100;
+
+    private JournalCrashChild() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        JournalStatusStore store = new JournalStatusStore(Path.of(args[0]), Logger.getLogger(JournalCrashChild.class.getName()), 60_000, 60_000);
+        store.open();
+        for (int batch = 0; ; batch++) {
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                store.put(uuid(batch, i), status(batch, i));
+            }
+            store.flush();
+            System.out.println(batch);
+            System.out.flush();
+        }
+    }
+
+    static UUID uuid(int batch, int index) {
+        return new UUID(batch, index);
+    }
+
+    static String status(int batch, int index) {
+        return "§a" + "x".repeat(index) + batch;
+    }
+}
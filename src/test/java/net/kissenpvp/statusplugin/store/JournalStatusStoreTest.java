@@ -0,0 +1,278 @@
+/*
+ * Copyright (C) 2023 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+
+package net.kissenpvp.statusplugin.store;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies that the {@link JournalStatusStore} recovers every completed flush
+ * from torn, corrupted and abruptly abandoned journals.
+ */
+class JournalStatusStoreTest {
+
+    private static final Logger LOGGER = Logger.getLogger(JournalStatusStoreTest.class.getName());
+
+    @TempDir
+    Path folder;
+
+    @Test
+    void openReplaysLatestRecords() throws IOException {
+        UUID first = new UUID(0, 1);
+        UUID second = new UUID(0, 2);
+        try (JournalStatusStore store = open(folder.resolve("statuses.journal"))) {
+            store.put(first, "§aBuilding ");
+            store.put(second, "§cAFK ");
+            store.flush();
+            store.put(first, "§6Streaming ");
+            store.remove(second);
+        }
+
+        try (JournalStatusStore store = open(folder.resolve("statuses.journal"))) {
+            assertEquals("§6Streaming ", store.load(first));
+            assertNull(store.load(second));
+        }
+    }
+
+    @Test
+    void tornRecordIsCutOffAtEveryOffset() throws IOException {
+        Path journal = folder.resolve("statuses.journal");
+        UUID first = new UUID(0, 1);
+        UUID second = new UUID(0, 2);
+        try (JournalStatusStore store = open(journal)) {
+            store.put(first, "§aBuilding ");
+            store.flush();
+        }
+        long valid = Files.size(journal);
+        try (JournalStatusStore store = open(journal)) {
+            store.put(second, "§cAFK ");
+        }
+        byte[] complete = Files.readAllBytes(journal);
+
+        for (int length = (int) valid; length < complete.length; length++) {
+            Path torn = folder.resolve("torn-" + length + ".journal");
+            Files.write(torn, Arrays.copyOf(complete, length));
+            try (JournalStatusStore store = open(torn)) {
+                assertEquals("§aBuilding ", store.load(first));
+                assertNull(store.load(second));
+            }
+            assertEquals(valid, Files.size(torn), "the torn record must be truncated");
+        }
+    }
+
+    @Test
+    void recordWithWrongChecksumIsRejected() throws IOException {
+        Path journal = folder.resolve("statuses.journal");
+        UUID uuid = new UUID(0, 1);
+        try (JournalStatusStore store = open(journal)) {
+            store.put(uuid, "§aBuilding ");
+            store.flush();
+            store.put(uuid, "§cAFK ");
+        }
+        byte[] bytes = Files.readAllBytes(journal);
+        bytes[bytes.length - 2] ^= 0x20;
+        Files.write(journal, bytes);
+
+        try (JournalStatusStore store = open(journal)) {
+            assertEquals("§aBuilding ", store.load(uuid));
+            store.put(uuid, "§6Streaming ");
+        }
+        try (JournalStatusStore store = open(journal)) {
+            assertEquals("§6Streaming ", store.load(uuid));
+        }
+    }
+
+    @Test
+    void journalLargerThanOneWindowIsReplayed() throws IOException {
+        Path journal = folder.resolve("statuses.journal");
+        Map<UUID, String> expected = new HashMap<>();
+        try (JournalStatusStore store = open(journal)) {
+            for (int i = 0; i < 30_000; i++) {
+                UUID uuid = new UUID(i, i);
+                String status = "§a" + "x".repeat(i % 80) + i;
+                store.put(uuid, status);
+                expected.put(uuid, status);
+            }
+        }
+        assertTrue(Files.size(journal) > 2 << 20);
+
+        try (JournalStatusStore store = open(journal)) {
+            Map<UUID, String> replayed = new HashMap<>();
+            store.forEach(replayed::put);
+            assertEquals(expected, replayed);
+            assertEquals(expected.get(new UUID(29_999, 29_999)), store.load(new UUID(29_999, 29_999)));
+        }
+    }
+
+    @Test
+    void compactionKeepsLatestStatuses() throws IOException {
+        Path journal = folder.resolve("statuses.journal");
+        try (JournalStatusStore store = open(journal)) {
+            for (int round = 0; round < 10; round++) {
+                for (int i = 0; i < 100; i++) {
+                    store.put(new UUID(0, i), "§a" + round);
+                }
+                store.flush();
+            }
+            store.remove(new UUID(0, 0));
+            long before = Files.size(journal);
+
+            store.compact();
+
+            assertTrue(Files.size(journal) < before / 5);
+            assertNull(store.load(new UUID(0, 0)));
+            assertEquals("§a9", store.load(new UUID(0, 99)));
+            store.put(new UUID(0, 100), "§cAFK");
+        }
+
+        try (JournalStatusStore store = open(journal)) {
+            assertNull(store.load(new UUID(0, 0)));
+            assertEquals("§a9", store.load(new UUID(0, 1)));
+            assertEquals("§cAFK", store.load(new UUID(0, 100)));
+        }
+    }
+
+    @Test
+    void timedStatusesKeepTheirExpiry() throws IOException {
+        Path journal = folder.resolve("statuses.journal");
+        UUID timed = new UUID(0, 1);
+        UUID untimed = new UUID(0, 2);
+        UUID removed = new UUID(0, 3);
+        try (JournalStatusStore store = open(journal)) {
+            store.put(timed, "§cAFK ", 1_700_000_000_000L);
+            store.put(untimed, "§aBuilding ", 1_700_000_000_000L);
+            store.put(removed, "§aBuilding ", 1_700_000_000_000L);
+            store.flush();
+            store.put(untimed, "§aBuilding ");
+            store.remove(removed);
+        }
+
+        try (JournalStatusStore store = open(journal)) {
+            assertEquals(Map.of(timed, 1_700_000_000_000L), expiries(store));
+            assertEquals("§cAFK ", store.load(timed));
+            assertEquals("§aBuilding ", store.load(untimed));
+
+            store.compact();
+            assertEquals(Map.of(timed, 1_700_000_000_000L), expiries(store));
+        }
+        try (JournalStatusStore store = open(journal)) {
+            assertEquals(Map.of(timed, 1_700_000_000_000L), expiries(store));
+            Map<UUID, String> statuses = new HashMap<>();
+            store.forEach(statuses::put);
+            assertEquals(Map.of(timed, "§cAFK ", untimed, "§aBuilding "), statuses);
+        }
+    }
+
+    @Test
+    void writesAreRejectedUnlessOpen() throws IOException {
+        UUID uuid = new UUID(0, 1);
+        JournalStatusStore store = new JournalStatusStore(folder.resolve("statuses.journal"), LOGGER, 60_000, 60_000);
+        assertThrows(IllegalStateException.class, () -> store.put(uuid, "§aBuilding "));
+        assertThrows(IllegalStateException.class, () -> store.remove(uuid));
+        assertThrows(IllegalStateException.class, store::flush);
+
+        store.open();
+        store.put(uuid, "§aBuilding ");
+        store.close();
+        assertThrows(IllegalStateException.class, () -> store.put(uuid, "§cAFK "));
+
+        try (JournalStatusStore reopened = open(folder.resolve("statuses.journal"))) {
+            assertEquals("§aBuilding ", reopened.load(uuid));
+        }
+    }
+
+    @Test
+    void processKilledDuringFlushKeepsEveryAcknowledgedBatch() throws Exception {
+        Path journal = folder.resolve("statuses.journal");
+        String java = ProcessHandle.current().info().command().orElse("java");
+        Process process = new ProcessBuilder(java, "-cp", classPath(JournalCrashChild.class, JournalStatusStore.class), JournalCrashChild.class.getName(), journal.toString())
+                .redirectError(ProcessBuilder.Redirect.DISCARD)
+                .start();
+
+        int acknowledged = -1;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while (acknowledged < 200 && (line = reader.readLine()) != null) {
+                acknowledged = Integer.parseInt(line);
+            }
+        } finally {
+            process.destroyForcibly();
+            assertTrue(process.waitFor(30, TimeUnit.SECONDS));
+        }
+        assertTrue(acknowledged >= 200, "the child process did not acknowledge enough batches");
+
+        try (JournalStatusStore store = open(journal)) {
+            for (int batch = 0; batch <= acknowledged; batch++) {
+                for (int i = 0; i < JournalCrashChild.BATCH_SIZE; i++) {
+                    assertEquals(JournalCrashChild.status(batch, i), store.load(JournalCrashChild.uuid(batch, i)));
+                }
+            }
+            // batches flushed after the last acknowledgement are either missing or intact
+            boolean found = true;
+            for (int batch = acknowledged + 1; found; batch++) {
+                found = false;
+                for (int i = 0; i < JournalCrashChild.BATCH_SIZE; i++) {
+                    String status = store.load(JournalCrashChild.uuid(batch, i));
+                    assertTrue(status == null || status.equals(JournalCrashChild.status(batch, i)));
+                    found |= status != null;
+                }
+            }
+        }
+    }
+
+    private static Map<UUID, Long> expiries(JournalStatusStore store) throws IOException {
+        Map<UUID, Long> expiries = new HashMap<>();
+        store.forEachExpiry(expiries::put);
+        return expiries;
+    }
+
+    private static String classPath(Class<?>... classes) throws URISyntaxException {
+        Set<String> locations = new LinkedHashSet<>();
+        for (Class<?> type : classes) {
+            locations.add(Path.of(type.getProtectionDomain().getCodeSource().getLocation().toURI()).toString());
+        }
+        return String.join(File.pathSeparator, locations);
+    }
+
+    private static JournalStatusStore open(Path journal) throws IOException {
+        JournalStatusStore store = new JournalStatusStore(journal, LOGGER, 60_000, 60_000);
+        store.open();
+        return store;
+    }
+}
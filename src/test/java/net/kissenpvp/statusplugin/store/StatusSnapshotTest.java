@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2023 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+package net.kissenpvp.statusplugin.store;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies that a {@link StatusSnapshot} of a million statuses reads back
+ * exactly the statuses it was written from, and that a damaged one hands over
+ * none at all.
+ */
+class StatusSnapshotTest {
+
+    private static final int ENTRIES = 1_000_000;
+
+    @TempDir
+    Path folder;
+
+    @Test
+    void millionEntriesRoundTrip() throws IOException {
+        Path file = folder.resolve("statuses.snapshot");
+        assertEquals(ENTRIES, StatusSnapshot.write(file, fill(new MemoryStatusStore())));
+        assertFalse(Files.exists(folder.resolve("statuses.snapshot.tmp")));
+
+        BitSet seen = new BitSet(ENTRIES);
+        long read = StatusSnapshot.read(file, (uuid, status) -> {
+            int index = (int) uuid.getMostSignificantBits();
+            assertEquals(~index, uuid.getLeastSignificantBits());
+            assertEquals(status(index), status);
+            assertFalse(seen.get(index), "duplicate entry");
+            seen.set(index);
+        });
+
+        assertEquals(ENTRIES, read);
+        assertEquals(ENTRIES, seen.cardinality());
+    }
+
+    @Test
+    void damagedSnapshotHandsOverNothing() throws IOException {
+        Path file = folder.resolve("statuses.snapshot");
+        StatusSnapshot.write(file, fill(new MemoryStatusStore()));
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long position = channel.size() - 64; // inside the last entries, so that the first pass must reach the end
+            ByteBuffer buffer = ByteBuffer.allocate(1);
+            channel.read(buffer, position);
+            buffer.flip();
+            channel.write(buffer.put(0, (byte) ~buffer.get(0)), position);
+        }
+
+        int[] handedOver = {0};
+        assertThrows(IOException.class, () -> StatusSnapshot.read(file, (uuid, status) -> handedOver[0]++));
+        assertEquals(0, handedOver[0]);
+    }
+
+    private static StatusStore fill(StatusStore statusStore) {
+        for (int i = 0; i < ENTRIES; i++) {
+            statusStore.put(new UUID(i, ~i), status(i));
+        }
+        return statusStore;
+    }
+
+    private static String status(int index) {
+        // varying lengths and multi-byte characters, as real statuses have
+        return switch (index % 4) {
+            case 0 -> "§aBuilding " + index + " ";
+            case 1 -> "§c§lAFK ";
+            case 2 -> "§6Streaming on Twitch ✦ " + index + " ";
+            default -> "Grüße aus " + Integer.toHexString(index) + " ";
+        };
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright (C) 2023 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+package net.kissenpvp.statusplugin.sync;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies how {@link StatusSync} copes with servers which miss deltas, as those without players do.
+ */
+class StatusSyncTest {
+
+    private static final UUID PLAYER = new UUID(0, 1);
+
+    private ManualBus busA;
+    private ManualBus busB;
+    private StatusSync serverA;
+    private StatusSync serverB;
+    private Map<UUID, StatusDelta> appliedB;
+
+    @BeforeEach
+    void setUp() {
+        busA = new ManualBus();
+        busB = new ManualBus();
+        serverA = new StatusSync("a", busA, delta -> {});
+        appliedB = new HashMap<>();
+        serverB = new StatusSync("b", busB, delta -> appliedB.put(delta.uuid(), delta));
+    }
+
+    @Test
+    void joiningPlayerCatchesUpOnMissedChange() {
+        serverA.publish(PLAYER, "§aBuilding ", 0);
+        serverA.flush();
+        busA.published.clear(); // server B had no players and missed the batch
+
+        serverB.request(PLAYER);
+        serverB.flush();
+        busA.requestSubscriber.accept(busB.requested.remove(0));
+        serverA.flush();
+        busB.subscriber.accept(busA.published.remove(0));
+        serverB.flush();
+
+        assertEquals("§aBuilding ", appliedB.get(PLAYER).status());
+    }
+
+    @Test
+    void timedStatusKeepsItsExpiry() {
+        serverA.publish(PLAYER, "§aAFK ", 1_700_000_000_000L);
+        serverA.flush();
+        busB.subscriber.accept(busA.published.remove(0));
+        serverB.flush();
+
+        assertEquals(1_700_000_000_000L, appliedB.get(PLAYER).expiresAt());
+    }
+
+    @Test
+    void unknownPlayerIsNotAnswered() {
+        busA.requestSubscriber.accept(List.of(PLAYER));
+        serverA.flush();
+
+        assertTrue(busA.published.isEmpty());
+    }
+
+    @Test
+    void expiryDoesNotSupersedeMissedChange() {
+        serverA.publish(PLAYER, "§aAFK ", 0);
+        serverA.flush();
+        busB.subscriber.accept(busA.published.remove(0));
+        serverB.flush();
+
+        serverB.publish(PLAYER, "§cIn match ", 0);
+        serverB.flush();
+        busB.published.clear(); // server A has become empty and missed the batch
+
+        serverA.publishExpiry(PLAYER);
+        serverA.flush();
+        busB.subscriber.accept(busA.published.remove(0));
+        serverB.flush();
+
+        assertEquals("§aAFK ", appliedB.get(PLAYER).status()); // applied before, but never cleared
+        assertEquals(1, serverB.getStats().stale());
+    }
+
+    /**
+     * A bus which only records what is published, leaving the delivery to the test.
+     */
+    private static class ManualBus implements StatusBus {
+
+        private final List<List<StatusDelta>> published = new ArrayList<>();
+        private final List<List<UUID>> requested = new ArrayList<>();
+        private Consumer<List<StatusDelta>> subscriber;
+        private Consumer<List<UUID>> requestSubscriber;
+
+        @Override
+        public void publish(@NotNull List<StatusDelta> batch) {
+            published.add(List.copyOf(batch));
+        }
+
+        @Override
+        public void subscribe(@NotNull Consumer<List<StatusDelta>> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(@NotNull List<UUID> uuids) {
+            requested.add(List.copyOf(uuids));
+        }
+
+        @Override
+        public void subscribeRequests(@NotNull Consumer<List<UUID>> subscriber) {
+            this.requestSubscriber = subscriber;
+        }
+
+        @Override
+        public void close() {}
+    }
+}
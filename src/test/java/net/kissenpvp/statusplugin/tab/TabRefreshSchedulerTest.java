@@ -0,0 +1,219 @@
+/*
+ * Copyright (C) 2023 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+package net.kissenpvp.statusplugin.tab;
+
+import net.kissenpvp.statusplugin.FakePlayer;
+import net.kissenpvp.statusplugin.FakeServer;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies how the {@link TabRefreshScheduler} coalesces, skips and batches refreshes of the player tab.
+ */
+class TabRefreshSchedulerTest {
+
+    private FakeServer server;
+    private Map<UUID, String> statuses;
+    private RecordingRenderer renderer;
+
+    @BeforeEach
+    void setUp() {
+        server = new FakeServer();
+        statuses = new HashMap<>();
+        renderer = new RecordingRenderer();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    @Test
+    void changesWithinTickAreCoalesced() {
+        TabRefreshScheduler scheduler = create(50);
+        FakePlayer fakePlayer = server.join("Alice");
+
+        statuses.put(fakePlayer.getUniqueId(), "§aBuilding ");
+        scheduler.markDirty(fakePlayer.getPlayer());
+        statuses.put(fakePlayer.getUniqueId(), "§cAFK ");
+        scheduler.markDirty(fakePlayer.getPlayer());
+        scheduler.markDirty(fakePlayer.getPlayer());
+        scheduler.flush();
+
+        assertEquals(1, fakePlayer.getListNameUpdates());
+        assertEquals("§cAFK Alice", fakePlayer.getPlayerListName());
+        assertEquals(new TabStats(3, 2, 0, 1, 0), scheduler.getStats());
+    }
+
+    @Test
+    void updatesArePerTickBounded() {
+        TabRefreshScheduler scheduler = create(2);
+        List<FakePlayer> fakePlayers = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            FakePlayer fakePlayer = server.join("Player" + i);
+            statuses.put(fakePlayer.getUniqueId(), "§aBuilding ");
+            scheduler.markDirty(fakePlayer.getPlayer());
+            fakePlayers.add(fakePlayer);
+        }
+
+        scheduler.flush();
+        assertEquals(List.of(2), renderer.batchSizes());
+        assertEquals(3, scheduler.getStats().pending());
+
+        scheduler.flush();
+        assertEquals(1, scheduler.getStats().pending());
+
+        scheduler.flush();
+        assertEquals(List.of(2, 2, 1), renderer.batchSizes());
+        assertEquals(0, scheduler.getStats().pending());
+        fakePlayers.forEach(fakePlayer -> assertEquals(1, fakePlayer.getListNameUpdates()));
+    }
+
+    @Test
+    void updatesAreSentInMarkingOrder() {
+        TabRefreshScheduler scheduler = create(2);
+        FakePlayer alice = server.join("Alice");
+        FakePlayer bob = server.join("Bob");
+        FakePlayer carol = server.join("Carol");
+        for (FakePlayer fakePlayer : List.of(carol, alice, bob)) {
+            statuses.put(fakePlayer.getUniqueId(), "§aBuilding ");
+            scheduler.markDirty(fakePlayer.getPlayer());
+        }
+
+        scheduler.flush();
+
+        assertEquals(List.of(carol.getPlayer(), alice.getPlayer()), renderer.batches.get(0));
+        assertEquals(0, bob.getListNameUpdates());
+    }
+
+    @Test
+    void unchangedNameIsSkipped() {
+        TabRefreshScheduler scheduler = create(50);
+        FakePlayer fakePlayer = server.join("Alice");
+
+        scheduler.markDirty(fakePlayer.getPlayer()); // no status, so the name stays as it is
+        scheduler.flush();
+
+        assertEquals(0, fakePlayer.getListNameUpdates());
+        assertEquals(new TabStats(1, 0, 1, 0, 0), scheduler.getStats());
+
+        statuses.put(fakePlayer.getUniqueId(), "§aBuilding ");
+        scheduler.markDirty(fakePlayer.getPlayer());
+        scheduler.flush();
+        scheduler.markDirty(fakePlayer.getPlayer());
+        scheduler.flush();
+
+        assertEquals(1, fakePlayer.getListNameUpdates());
+        assertEquals(2, scheduler.getStats().skipped());
+    }
+
+    @Test
+    void cacheIsInvalidatedByChanges() {
+        TabRefreshScheduler scheduler = create(50);
+        FakePlayer fakePlayer = server.join("Alice");
+        statuses.put(fakePlayer.getUniqueId(), "§aBuilding ");
+        scheduler.markDirty(fakePlayer.getPlayer());
+        scheduler.flush();
+
+        statuses.put(fakePlayer.getUniqueId(), "§cAFK ");
+        scheduler.markDirty(fakePlayer.getPlayer());
+        scheduler.flush();
+        assertEquals("§cAFK Alice", fakePlayer.getPlayerListName());
+
+        fakePlayer.setDisplayName("§6Alice");
+        scheduler.markDirty(fakePlayer.getPlayer());
+        scheduler.flush();
+        assertEquals("§cAFK §6Alice", fakePlayer.getPlayerListName());
+
+        assertEquals(3, fakePlayer.getListNameUpdates());
+        assertEquals(0, scheduler.getStats().skipped());
+    }
+
+    @Test
+    void flushHandsSingleBatchToRenderer() {
+        TabRefreshScheduler scheduler = create(50);
+        List<FakePlayer> fakePlayers = List.of(server.join("Alice"), server.join("Bob"), server.join("Carol"));
+        fakePlayers.forEach(fakePlayer -> {
+            statuses.put(fakePlayer.getUniqueId(), "§aBuilding ");
+            scheduler.markDirty(fakePlayer.getPlayer());
+        });
+
+        scheduler.flush();
+        scheduler.flush(); // nothing has changed since
+
+        assertEquals(List.of(3, 0), renderer.batchSizes());
+    }
+
+    @Test
+    void viewersAreRegisteredWithRenderer() {
+        TabRefreshScheduler scheduler = create(50);
+        FakePlayer fakePlayer = server.join("Alice");
+        statuses.put(fakePlayer.getUniqueId(), "§aBuilding ");
+
+        scheduler.join(fakePlayer.getPlayer());
+        assertEquals(Set.of(fakePlayer.getUniqueId()), renderer.viewers);
+
+        server.quit(fakePlayer);
+        scheduler.forget(fakePlayer.getUniqueId());
+        scheduler.flush();
+
+        assertTrue(renderer.viewers.isEmpty());
+        assertEquals(0, fakePlayer.getListNameUpdates());
+    }
+
+    private @NotNull TabRefreshScheduler create(int maxPerTick) {
+        return new TabRefreshScheduler(server.getServer(), player -> statuses.get(player.getUniqueId()), renderer, maxPerTick);
+    }
+
+    /**
+     * A {@link BukkitTabRenderer} which records the batches it has been handed, as well as its viewers.
+     */
+    private static class RecordingRenderer extends BukkitTabRenderer {
+
+        private final List<List<Player>> batches = new ArrayList<>();
+        private final Set<UUID> viewers = new HashSet<>();
+
+        @Override
+        public void addViewer(@NotNull Player viewer) {
+            viewers.add(viewer.getUniqueId());
+        }
+
+        @Override
+        public void removeViewer(@NotNull UUID uuid) {
+            viewers.remove(uuid);
+        }
+
+        @Override
+        public void render(@NotNull Map<Player, String> updates) {
+            batches.add(List.copyOf(updates.keySet()));
+            super.render(updates);
+        }
+
+        private @NotNull List<Integer> batchSizes() {
+            return batches.stream().map(List::size).toList();
+        }
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright (C) 2023 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+
+package net.kissenpvp.statusplugin;
+
+import lombok.Getter;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A player of a {@link FakeServer}.
+ *
+ * <p>The player itself, as handed to the plug-in, is available through
+ * {@link #getPlayer()}. Besides the state the plug-in reads, such as the name
+ * and permissions, a fake player records everything the plug-in sends to it:
+ * chat messages are collected along with the time the latest one arrived,
+ * and every call to {@link #setPlayerListName(String)} counts as one tab
+ * update sent to the clients.
+ *
+ * @see FakeServer#join(String)
+ */
+public class FakePlayer {
+
+    @Getter
+    private final UUID uniqueId;
+    @Getter
+    private final String name;
+    @Getter
+    private final Player player;
+    private final Set<String> permissions = new HashSet<>();
+    private final List<String> messages = new ArrayList<>();
+    private final AtomicLong listNameUpdates = new AtomicLong();
+    private volatile String displayName;
+    private volatile String playerListName;
+    private volatile boolean online;
+    private volatile boolean op;
+    @Getter
+    private volatile long lastMessageNanos;
+
+    /**
+     * Constructor for creating a new {@code FakePlayer}, which is offline until it has joined.
+     *
+     * @param uniqueId the unique ID of the player. Must be non-{@code null}.
+     * @param name     the name of the player. Must be non-{@code null}.
+     */
+    FakePlayer(@NotNull UUID uniqueId, @NotNull String name) {
+        this.uniqueId = uniqueId;
+        this.name = name;
+        this.displayName = name;
+        this.playerListName = name;
+        this.player = StandIns.create(Player.class, this);
+    }
+
+    public @NotNull String getDisplayName() {
+        return displayName;
+    }
+
+    public void setDisplayName(@Nullable String name) {
+        displayName = name == null ? this.name : name;
+    }
+
+    public @NotNull String getPlayerListName() {
+        return playerListName;
+    }
+
+    public void setPlayerListName(@Nullable String name) {
+        playerListName = name == null ? this.name : name;
+        listNameUpdates.incrementAndGet();
+    }
+
+    public void sendMessage(@NotNull String message) {
+        synchronized (messages) {
+            messages.add(message);
+            lastMessageNanos = System.nanoTime();
+        }
+    }
+
+    public void sendMessage(@NotNull String... messages) {
+        for (String message : messages) {
+            sendMessage(message);
+        }
+    }
+
+    public void sendPluginMessage(@NotNull Plugin source, @NotNull String channel, byte @NotNull [] message) {
+        // not connected to any proxy
+    }
+
+    public boolean hasPermission(@NotNull String permission) {
+        synchronized (permissions) {
+            return op || permissions.contains(permission);
+        }
+    }
+
+    public boolean isOp() {
+        return op;
+    }
+
+    public void setOp(boolean op) {
+        this.op = op;
+    }
+
+    public boolean isOnline() {
+        return online;
+    }
+
+    public boolean hasPlayedBefore() {
+        return true;
+    }
+
+    public int getPing() {
+        return 0;
+    }
+
+    public boolean canSee(@NotNull Player player) {
+        return true;
+    }
+
+    /**
+     * Grants the given permission to this player.
+     *
+     * @param permission the permission to grant. Must be non-{@code null}.
+     */
+    public void grant(@NotNull String permission) {
+        synchronized (permissions) {
+            permissions.add(permission);
+        }
+    }
+
+    /**
+     * @return the number of times the player list name of this player has been sent.
+     */
+    public long getListNameUpdates() {
+        return listNameUpdates.get();
+    }
+
+    /**
+     * Removes and returns all messages this player has received so far.
+     *
+     * @return the received messages, oldest first.
+     */
+    public @NotNull List<String> takeMessages() {
+        synchronized (messages) {
+            List<String> taken = new ArrayList<>(messages);
+            messages.clear();
+            return taken;
+        }
+    }
+
+    /**
+     * @return the number of messages this player has received and which have not been taken yet.
+     */
+    public int getMessageCount() {
+        synchronized (messages) {
+            return messages.size();
+        }
+    }
+
+    void setOnline(boolean online) {
+        this.online = online;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
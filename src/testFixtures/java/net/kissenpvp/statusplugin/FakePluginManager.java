@@ -0,0 +1,177 @@
+/*
+ * Copyright (C) 2023 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+
+package net.kissenpvp.statusplugin;
+
+import lombok.Getter;
+import org.bukkit.event.*;
+import org.bukkit.plugin.EventExecutor;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.plugin.PluginManager;
+import org.bukkit.plugin.RegisteredListener;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.*;
+import java.util.function.BooleanSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The plugin manager of a {@link FakeServer}.
+ *
+ * <p>Listeners are registered into the {@link HandlerList} of their events
+ * just like on a real server, so the plug-in sees the same handler lists,
+ * priorities and cancellation semantics. Events are dispatched on the calling
+ * thread. As on a real server, synchronous events may only be fired from the
+ * main thread and asynchronous ones only from other threads, and exceptions
+ * thrown by listeners are logged instead of being passed on.
+ */
+public class FakePluginManager {
+
+    private final Logger logger;
+    private final BooleanSupplier primaryThread;
+    private final Map<String, Plugin> plugins = new LinkedHashMap<>();
+    @Getter
+    private final PluginManager pluginManager;
+
+    /**
+     * Constructor for creating a new {@code FakePluginManager}.
+     *
+     * @param logger        the logger reporting exceptions thrown by listeners. Must be non-{@code null}.
+     * @param primaryThread the check whether the calling thread is the main thread. Must be non-{@code null}.
+     */
+    FakePluginManager(@NotNull Logger logger, @NotNull BooleanSupplier primaryThread) {
+        this.logger = logger;
+        this.primaryThread = primaryThread;
+        this.pluginManager = StandIns.create(PluginManager.class, this);
+    }
+
+    public void callEvent(@NotNull Event event) {
+        if (event.isAsynchronous() && primaryThread.getAsBoolean()) {
+            throw new IllegalStateException(event.getEventName() + " cannot be triggered asynchronously from primary server thread.");
+        }
+        if (!event.isAsynchronous() && !primaryThread.getAsBoolean()) {
+            throw new IllegalStateException(event.getEventName() + " cannot be triggered asynchronously from another thread.");
+        }
+
+        for (RegisteredListener registration : event.getHandlers().getRegisteredListeners()) {
+            if (!registration.getPlugin().isEnabled()) {
+                continue;
+            }
+            try {
+                registration.callEvent(event);
+            } catch (Throwable throwable) {
+                logger.log(Level.SEVERE, String.format("Could not pass event %s to %s", event.getEventName(), registration.getPlugin().getName()), throwable);
+            }
+        }
+    }
+
+    public void registerEvents(@NotNull Listener listener, @NotNull Plugin plugin) {
+        Set<Method> methods = new LinkedHashSet<>(Arrays.asList(listener.getClass().getMethods()));
+        methods.addAll(Arrays.asList(listener.getClass().getDeclaredMethods()));
+        for (Method method : methods) {
+            EventHandler eventHandler = method.getAnnotation(EventHandler.class);
+            if (eventHandler == null || method.isBridge() || method.isSynthetic()) {
+                continue;
+            }
+            if (method.getParameterCount() != 1 || !Event.class.isAssignableFrom(method.getParameterTypes()[0])) {
+                throw new IllegalArgumentException(String.format("%s attempted to register an invalid EventHandler method signature \"%s\".", plugin.getName(), method));
+            }
+
+            Class<? extends Event> eventClass = method.getParameterTypes()[0].asSubclass(Event.class);
+            method.setAccessible(true);
+            EventExecutor executor = (target, event) -> {
+                if (!eventClass.isInstance(event)) {
+                    return;
+                }
+                try {
+                    method.invoke(target, event);
+                } catch (InvocationTargetException invocationTargetException) {
+                    throw new EventException(invocationTargetException.getCause());
+                } catch (IllegalAccessException illegalAccessException) {
+                    throw new EventException(illegalAccessException);
+                }
+            };
+            getHandlerList(eventClass).register(new RegisteredListener(listener, executor, eventHandler.priority(), plugin, eventHandler.ignoreCancelled()));
+        }
+    }
+
+    public boolean isPluginEnabled(@Nullable String name) {
+        return isPluginEnabled(getPlugin(name));
+    }
+
+    public boolean isPluginEnabled(@Nullable Plugin plugin) {
+        return plugin != null && plugin.isEnabled();
+    }
+
+    public synchronized @Nullable Plugin getPlugin(@Nullable String name) {
+        return plugins.get(name);
+    }
+
+    public synchronized Plugin @NotNull [] getPlugins() {
+        return plugins.values().toArray(new Plugin[0]);
+    }
+
+    /**
+     * Adds the given plug-in to the plug-ins known to this manager.
+     *
+     * @param plugin the plug-in. Must be non-{@code null}.
+     */
+    synchronized void addPlugin(@NotNull Plugin plugin) {
+        plugins.put(plugin.getName(), plugin);
+    }
+
+    /**
+     * Removes the given plug-in and unregisters all of its listeners.
+     *
+     * @param plugin the plug-in. Must be non-{@code null}.
+     */
+    synchronized void removePlugin(@NotNull Plugin plugin) {
+        plugins.remove(plugin.getName(), plugin);
+        HandlerList.unregisterAll(plugin);
+    }
+
+    /**
+     * Looks up the handler list of the given event class through its static {@code getHandlerList()} method.
+     *
+     * @param eventClass the class of the event, or one of its super classes. Must be non-{@code null}.
+     * @return the handler list of the event.
+     * @throws IllegalArgumentException if neither the class nor any of its super classes declares a handler list.
+     */
+    private static @NotNull HandlerList getHandlerList(@NotNull Class<? extends Event> eventClass) {
+        for (Class<?> type = eventClass; type != null && Event.class.isAssignableFrom(type); type = type.getSuperclass()) {
+            try {
+                Method method = type.getDeclaredMethod("getHandlerList");
+                if (Modifier.isStatic(method.getModifiers())) {
+                    method.setAccessible(true);
+                    return (HandlerList) method.invoke(null);
+                }
+            } catch (NoSuchMethodException noSuchMethodException) {
+                // look at the super class
+            } catch (ReflectiveOperationException reflectiveOperationException) {
+                throw new IllegalArgumentException(reflectiveOperationException);
+            }
+        }
+        throw new IllegalArgumentException(String.format("Unable to find handler list for event %s. Static getHandlerList method required!", eventClass.getName()));
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ * Copyright (C) 2023 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+
+package net.kissenpvp.statusplugin;
+
+import lombok.Getter;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitScheduler;
+import org.bukkit.scheduler.BukkitTask;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The scheduler of a {@link FakeServer}.
+ *
+ * <p>Time does not pass on its own. Instead, the main thread calls {@link #tick()},
+ * which advances the current tick by one and runs every synchronous task due
+ * by then, just like one iteration of the main loop of a real server. This
+ * keeps tests deterministic and lets benchmarks drive the server as fast as
+ * it goes. Asynchronous tasks are run on a pool of daemon threads as soon as
+ * they are due, and so are repeating asynchronous tasks once their tick has come.
+ *
+ * <p>Tasks may be scheduled from any thread.
+ */
+public class FakeScheduler {
+
+    private final Logger logger;
+    private final ExecutorService async;
+    private final PriorityQueue<Task> queue = new PriorityQueue<>(Comparator.comparingLong(Task::getNextRun).thenComparingInt(Task::getTaskId));
+    private final AtomicInteger ids = new AtomicInteger();
+    @Getter
+    private final BukkitScheduler scheduler;
+    @Getter
+    private volatile long currentTick;
+
+    /**
+     * Constructor for creating a new {@code FakeScheduler}.
+     *
+     * @param logger the logger reporting exceptions thrown by tasks. Must be non-{@code null}.
+     */
+    FakeScheduler(@NotNull Logger logger) {
+        this.logger = logger;
+        AtomicInteger counter = new AtomicInteger();
+        this.async = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "FakeScheduler-Async-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler = StandIns.create(BukkitScheduler.class, this);
+    }
+
+    public @NotNull BukkitTask runTask(@NotNull Plugin plugin, @NotNull Runnable runnable) {
+        return schedule(plugin, runnable, true, 0, -1);
+    }
+
+    public @NotNull BukkitTask runTaskLater(@NotNull Plugin plugin, @NotNull Runnable runnable, long delay) {
+        return schedule(plugin, runnable, true, delay, -1);
+    }
+
+    public @NotNull BukkitTask runTaskTimer(@NotNull Plugin plugin, @NotNull Runnable runnable, long delay, long period) {
+        return schedule(plugin, runnable, true, delay, Math.max(1, period));
+    }
+
+    public @NotNull BukkitTask runTaskAsynchronously(@NotNull Plugin plugin, @NotNull Runnable runnable) {
+        Task task = new Task(ids.incrementAndGet(), plugin, runnable, false, -1);
+        async.execute(() -> task.run(logger));
+        return task.getTask();
+    }
+
+    public @NotNull BukkitTask runTaskLaterAsynchronously(@NotNull Plugin plugin, @NotNull Runnable runnable, long delay) {
+        return schedule(plugin, runnable, false, delay, -1);
+    }
+
+    public @NotNull BukkitTask runTaskTimerAsynchronously(@NotNull Plugin plugin, @NotNull Runnable runnable, long delay, long period) {
+        return schedule(plugin, runnable, false, delay, Math.max(1, period));
+    }
+
+    public <T> @NotNull Future<T> callSyncMethod(@NotNull Plugin plugin, @NotNull Callable<T> callable) {
+        FutureTask<T> future = new FutureTask<>(callable);
+        runTask(plugin, future);
+        return future;
+    }
+
+    public synchronized void cancelTask(int taskId) {
+        queue.stream().filter(task -> task.getTaskId() == taskId).toList().forEach(Task::cancel);
+    }
+
+    public synchronized void cancelTasks(@NotNull Plugin plugin) {
+        queue.stream().filter(task -> task.getOwner().equals(plugin)).toList().forEach(Task::cancel);
+    }
+
+    /**
+     * Advances the current tick by one and runs all tasks which are due.
+     *
+     * <p>This method must be called from the main thread of the server.
+     * Synchronous tasks are run on the calling thread, in the order they
+     * are due, while asynchronous ones are handed to the thread pool.
+     */
+    public void tick() {
+        long tick = ++currentTick;
+        while (true) {
+            Task task;
+            synchronized (this) {
+                task = queue.peek();
+                if (task == null || task.getNextRun() > tick) {
+                    return;
+                }
+                queue.poll();
+            }
+
+            if (task.isSync()) {
+                task.run(logger);
+            } else {
+                async.execute(() -> task.run(logger));
+            }
+
+            if (task.getPeriod() > 0 && !task.isCancelled()) {
+                synchronized (this) {
+                    task.setNextRun(tick + task.getPeriod());
+                    queue.add(task);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the number of synchronous and delayed asynchronous tasks waiting to be run.
+     */
+    public synchronized int getPendingTasks() {
+        return queue.size();
+    }
+
+    /**
+     * Drops all pending tasks and waits for the running asynchronous ones to complete.
+     */
+    void shutdown() {
+        synchronized (this) {
+            List.copyOf(queue).forEach(Task::cancel);
+        }
+        async.shutdown();
+        try {
+            if (!async.awaitTermination(10, TimeUnit.SECONDS)) {
+                logger.warning("The asynchronous tasks did not complete in time.");
+            }
+        } catch (InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private synchronized @NotNull BukkitTask schedule(@NotNull Plugin plugin, @NotNull Runnable runnable, boolean sync, long delay, long period) {
+        Task task = new Task(ids.incrementAndGet(), plugin, runnable, sync, period);
+        task.setNextRun(currentTick + Math.max(0, delay));
+        queue.add(task);
+        return task.getTask();
+    }
+
+    /**
+     * A task scheduled through a {@link FakeScheduler}, exposed to the plug-in as {@link BukkitTask}.
+     */
+    public class Task {
+
+        @Getter
+        private final int taskId;
+        @Getter
+        private final Plugin owner;
+        private final Runnable runnable;
+        @Getter
+        private final boolean sync;
+        @Getter
+        private final long period;
+        @Getter
+        private final BukkitTask task;
+        private volatile boolean cancelled;
+        @Getter
+        private long nextRun;
+
+        private Task(int taskId, @NotNull Plugin owner, @NotNull Runnable runnable, boolean sync, long period) {
+            this.taskId = taskId;
+            this.owner = owner;
+            this.runnable = runnable;
+            this.sync = sync;
+            this.period = period;
+            this.task = StandIns.create(BukkitTask.class, this);
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        public void cancel() {
+            cancelled = true;
+            synchronized (FakeScheduler.this) {
+                queue.remove(this);
+            }
+        }
+
+        private void setNextRun(long nextRun) {
+            this.nextRun = nextRun;
+        }
+
+        private void run(@NotNull Logger logger) {
+            if (cancelled) {
+                return;
+            }
+            try {
+                runnable.run();
+            } catch (Throwable throwable) {
+                logger.log(Level.WARNING, String.format("Task #%d for %s generated an exception", taskId, owner.getName()), throwable);
+            }
+        }
+    }
+}
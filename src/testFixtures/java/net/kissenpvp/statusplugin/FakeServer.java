@@ -0,0 +1,488 @@
+/*
+ * Copyright (C) 2023 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+
+package net.kissenpvp.statusplugin;
+
+import lombok.Getter;
+import org.bukkit.Bukkit;
+import org.bukkit.OfflinePlayer;
+import org.bukkit.Server;
+import org.bukkit.command.PluginCommand;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.entity.Player;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.plugin.InvalidDescriptionException;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.plugin.PluginDescriptionFile;
+import org.bukkit.plugin.PluginManager;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.plugin.java.JavaPluginLoader;
+import org.bukkit.scheduler.BukkitScheduler;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+import java.util.logging.Logger;
+
+/**
+ * An in-process server running the plug-in without Minecraft.
+ *
+ * <p>A fake server provides the parts of the Bukkit API this plug-in relies
+ * on: the {@link Server} itself, a {@link FakePluginManager} dispatching
+ * events through the real handler lists, a {@link FakeScheduler} driven tick
+ * by tick, and any number of {@link FakePlayer}s, which join and leave through
+ * the same events as real players. The plug-in is loaded from its actual
+ * {@code plugin.yml} and {@code config.yml} and enabled through the regular
+ * lifecycle of {@link JavaPlugin}, so the commands, listeners and background
+ * tasks under test are exactly the ones a real server would run.
+ *
+ * <p>The thread creating a fake server is its main thread. Everything but
+ * scheduling tasks must be done from that thread, just like on a real server.
+ * Time only passes when the main thread calls {@link #tick()}. As {@link Bukkit}
+ * holds a single server for the lifetime of the JVM, it is pointed at the
+ * fake server created last.
+ *
+ * <pre>{@code
+ * try (FakeServer server = new FakeServer()) {
+ *     StatusPlugin plugin = server.enable(dataFolder, Map.of("store.type", "memory"));
+ *     FakePlayer player = server.join("Notch");
+ *     server.dispatch(player, "status &aBuilding");
+ *     server.tickUntil(() -> player.getMessageCount() > 0, Duration.ofSeconds(5));
+ * }
+ * }</pre>
+ */
+public class FakeServer implements AutoCloseable {
+
+    private static final AtomicReference<FakeServer> CURRENT = new AtomicReference<>();
+    private static final String VERSION = "1.20.1-R0.1-SNAPSHOT";
+
+    @Getter
+    private final Logger logger = Logger.getLogger("FakeServer");
+    @Getter
+    private final Server server;
+    @Getter
+    private final FakeScheduler fakeScheduler;
+    @Getter
+    private final FakePluginManager fakePluginManager;
+    private final Thread mainThread;
+    private final ExecutorService loginThreads;
+    private final Map<UUID, FakePlayer> known = new ConcurrentHashMap<>();
+    private final Map<String, FakePlayer> names = new ConcurrentHashMap<>();
+    private final Map<UUID, Player> online = new ConcurrentHashMap<>();
+    private final Map<String, PluginCommand> commands = new HashMap<>();
+    @Getter
+    private StatusPlugin plugin;
+
+    /**
+     * Constructor for creating a new {@code FakeServer}, whose main thread is the calling thread.
+     */
+    public FakeServer() {
+        this.mainThread = Thread.currentThread();
+        this.server = StandIns.create(Server.class, this);
+        this.fakeScheduler = new FakeScheduler(logger);
+        this.fakePluginManager = new FakePluginManager(logger, this::isPrimaryThread);
+        this.loginThreads = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "FakeServer-Login");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        CURRENT.set(this);
+        synchronized (FakeServer.class) {
+            if (Bukkit.getServer() == null) {
+                Bukkit.setServer(StandIns.create(Server.class, CURRENT::get));
+            }
+        }
+    }
+
+    public @NotNull String getName() {
+        return "FakeServer";
+    }
+
+    public @NotNull String getVersion() {
+        return VERSION;
+    }
+
+    public @NotNull String getBukkitVersion() {
+        return VERSION;
+    }
+
+    public @NotNull PluginManager getPluginManager() {
+        return fakePluginManager.getPluginManager();
+    }
+
+    public @NotNull BukkitScheduler getScheduler() {
+        return fakeScheduler.getScheduler();
+    }
+
+    public boolean isPrimaryThread() {
+        return Thread.currentThread() == mainThread;
+    }
+
+    public int getMaxPlayers() {
+        return Integer.MAX_VALUE;
+    }
+
+    public @NotNull Collection<? extends Player> getOnlinePlayers() {
+        return Collections.unmodifiableCollection(online.values());
+    }
+
+    public @Nullable Player getPlayer(@NotNull UUID uuid) {
+        return online.get(uuid);
+    }
+
+    public @Nullable Player getPlayer(@NotNull String name) {
+        return getPlayerExact(name);
+    }
+
+    public @Nullable Player getPlayerExact(@NotNull String name) {
+        FakePlayer fakePlayer = names.get(name.toLowerCase(Locale.ROOT));
+        return fakePlayer != null && fakePlayer.isOnline() ? fakePlayer.getPlayer() : null;
+    }
+
+    public @NotNull OfflinePlayer getOfflinePlayer(@NotNull UUID uuid) {
+        FakePlayer fakePlayer = known.get(uuid);
+        return fakePlayer != null ? fakePlayer.getPlayer() : StandIns.create(OfflinePlayer.class, new UnknownPlayer(uuid, null));
+    }
+
+    public @NotNull OfflinePlayer getOfflinePlayer(@NotNull String name) {
+        FakePlayer fakePlayer = names.get(name.toLowerCase(Locale.ROOT));
+        return fakePlayer != null ? fakePlayer.getPlayer() : StandIns.create(OfflinePlayer.class, new UnknownPlayer(uuidOf(name), name));
+    }
+
+    public OfflinePlayer @NotNull [] getOfflinePlayers() {
+        return known.values().stream().map(FakePlayer::getPlayer).toArray(OfflinePlayer[]::new);
+    }
+
+    public @Nullable PluginCommand getPluginCommand(@NotNull String name) {
+        synchronized (commands) {
+            return commands.get(name.toLowerCase(Locale.ROOT));
+        }
+    }
+
+    /**
+     * Loads the plug-in from its {@code plugin.yml} and enables it.
+     *
+     * <p>The configuration is written into the data folder before the plug-in
+     * is enabled. It consists of the default {@code config.yml} of the plug-in,
+     * with the given values replacing the defaults. Players who are already
+     * online are picked up by the plug-in just like after a reload.
+     *
+     * @param dataFolder the data folder of the plug-in, which is created if it does not exist. Must be non-{@code null}.
+     * @param config     the configuration values replacing the defaults, keyed by their path. Must be non-{@code null}.
+     * @return the enabled plug-in.
+     * @throws IllegalStateException if the plug-in is already enabled.
+     */
+    @SuppressWarnings("deprecation") // the loader is only needed for the test constructor of JavaPlugin
+    public @NotNull StatusPlugin enable(@NotNull Path dataFolder, @NotNull Map<String, ?> config) {
+        checkPrimaryThread();
+        if (plugin != null) {
+            throw new IllegalStateException("The plug-in is already enabled.");
+        }
+
+        PluginDescriptionFile description;
+        try {
+            Files.createDirectories(dataFolder);
+            YamlConfiguration configuration;
+            try (Reader defaults = new InputStreamReader(resource("config.yml"), StandardCharsets.UTF_8)) {
+                configuration = YamlConfiguration.loadConfiguration(defaults);
+            }
+            config.forEach(configuration::set);
+            configuration.save(dataFolder.resolve("config.yml").toFile());
+
+            try (InputStream stream = resource("plugin.yml")) {
+                description = new PluginDescriptionFile(stream);
+            }
+        } catch (IOException ioException) {
+            throw new UncheckedIOException(ioException);
+        } catch (InvalidDescriptionException invalidDescriptionException) {
+            throw new IllegalStateException(invalidDescriptionException);
+        }
+
+        StatusPlugin statusPlugin = new StatusPlugin(new JavaPluginLoader(server), description, dataFolder.toFile(), dataFolder.resolve(description.getName() + ".jar").toFile());
+        registerCommands(statusPlugin, description);
+        fakePluginManager.addPlugin(statusPlugin);
+        plugin = statusPlugin;
+        setEnabled(statusPlugin, true);
+        return statusPlugin;
+    }
+
+    /**
+     * Disables the plug-in, unregisters its listeners and commands and cancels its tasks.
+     *
+     * <p>Players stay online, so the plug-in may be enabled again to simulate a reload.
+     */
+    public void disable() {
+        checkPrimaryThread();
+        if (plugin == null) {
+            return;
+        }
+
+        setEnabled(plugin, false);
+        fakePluginManager.removePlugin(plugin);
+        fakeScheduler.cancelTasks(plugin);
+        synchronized (commands) {
+            commands.clear();
+        }
+        plugin = null;
+    }
+
+    /**
+     * Lets a player join the server.
+     *
+     * <p>Just like a real server, the {@link AsyncPlayerPreLoginEvent} is fired
+     * on a login thread first, while the main thread waits for it, followed by
+     * the {@link PlayerJoinEvent} on the main thread. The unique ID is derived
+     * from the name as in offline mode, so a player joining again under the
+     * same name is the same player.
+     *
+     * @param name the name of the player. Must be non-{@code null}.
+     * @return the player who has joined.
+     * @throws IllegalStateException if the player is already online or has been denied to log in.
+     */
+    public @NotNull FakePlayer join(@NotNull String name) {
+        checkPrimaryThread();
+        UUID uuid = uuidOf(name);
+        FakePlayer fakePlayer = known.computeIfAbsent(uuid, key -> new FakePlayer(key, name));
+        names.putIfAbsent(name.toLowerCase(Locale.ROOT), fakePlayer);
+        if (fakePlayer.isOnline()) {
+            throw new IllegalStateException(String.format("%s is already online.", name));
+        }
+
+        AsyncPlayerPreLoginEvent preLoginEvent = new AsyncPlayerPreLoginEvent(name, InetAddress.getLoopbackAddress(), uuid);
+        CompletableFuture.runAsync(() -> fakePluginManager.callEvent(preLoginEvent), loginThreads).join();
+        if (preLoginEvent.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED) {
+            throw new IllegalStateException(String.format("%s has been denied to log in.", name));
+        }
+
+        fakePlayer.setOnline(true);
+        online.put(uuid, fakePlayer.getPlayer());
+        fakePluginManager.callEvent(new PlayerJoinEvent(fakePlayer.getPlayer(), name + " joined the game"));
+        return fakePlayer;
+    }
+
+    /**
+     * Lets a player leave the server, firing the {@link PlayerQuitEvent}.
+     *
+     * @param fakePlayer the player who leaves. Must be non-{@code null}.
+     */
+    public void quit(@NotNull FakePlayer fakePlayer) {
+        checkPrimaryThread();
+        if (!fakePlayer.isOnline()) {
+            return;
+        }
+
+        fakePluginManager.callEvent(new PlayerQuitEvent(fakePlayer.getPlayer(), fakePlayer.getName() + " left the game"));
+        online.remove(fakePlayer.getUniqueId());
+        fakePlayer.setOnline(false);
+    }
+
+    /**
+     * Looks up a player who has joined this server at least once.
+     *
+     * @param name the name of the player. Must be non-{@code null}.
+     * @return the player, or {@code null} if they have never joined.
+     */
+    public @Nullable FakePlayer getFakePlayer(@NotNull String name) {
+        return names.get(name.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Executes a command line on behalf of the given player, as if they had typed it into the chat.
+     *
+     * <p>The command is executed through its {@link PluginCommand}, so the
+     * permission declared in {@code plugin.yml} is checked first.
+     *
+     * @param fakePlayer  the player issuing the command. Must be non-{@code null}.
+     * @param commandLine the command line, with or without the leading slash. Must be non-{@code null}.
+     * @return the result of the command.
+     * @throws IllegalArgumentException if no such command is registered.
+     */
+    public boolean dispatch(@NotNull FakePlayer fakePlayer, @NotNull String commandLine) {
+        checkPrimaryThread();
+        String[] parts = commandLine.strip().split(" +");
+        String label = parts[0].startsWith("/") ? parts[0].substring(1) : parts[0];
+        PluginCommand command = getPluginCommand(label);
+        if (command == null) {
+            throw new IllegalArgumentException(String.format("Unknown command '%s'.", label));
+        }
+        return command.execute(fakePlayer.getPlayer(), label, Arrays.copyOfRange(parts, 1, parts.length));
+    }
+
+    /**
+     * Runs a single tick of the main loop.
+     *
+     * @see FakeScheduler#tick()
+     */
+    public void tick() {
+        checkPrimaryThread();
+        fakeScheduler.tick();
+    }
+
+    /**
+     * Runs the given number of ticks of the main loop.
+     *
+     * @param ticks the number of ticks.
+     */
+    public void tick(int ticks) {
+        for (int i = 0; i < ticks; i++) {
+            tick();
+        }
+    }
+
+    /**
+     * Runs ticks of the main loop until the given condition is met.
+     *
+     * <p>Ticks are run back to back without waiting, so work handed to the main
+     * thread by other threads is picked up as soon as possible.
+     *
+     * @param condition the condition to wait for. Must be non-{@code null}.
+     * @param timeout   the maximum time to wait. Must be non-{@code null}.
+     * @throws IllegalStateException if the condition is not met within the timeout.
+     */
+    public void tickUntil(@NotNull BooleanSupplier condition, @NotNull Duration timeout) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() - deadline > 0) {
+                throw new IllegalStateException(String.format("The condition was not met within %s.", timeout));
+            }
+            tick();
+            Thread.yield();
+        }
+    }
+
+    /**
+     * Disables the plug-in if it is enabled and stops all threads of this server.
+     */
+    @Override
+    public void close() {
+        disable();
+        fakeScheduler.shutdown();
+        loginThreads.shutdownNow();
+        CURRENT.compareAndSet(this, null);
+    }
+
+    private void registerCommands(@NotNull Plugin owner, @NotNull PluginDescriptionFile description) {
+        try {
+            Constructor<PluginCommand> constructor = PluginCommand.class.getDeclaredConstructor(String.class, Plugin.class);
+            constructor.setAccessible(true);
+            synchronized (commands) {
+                for (Map.Entry<String, Map<String, Object>> entry : description.getCommands().entrySet()) {
+                    PluginCommand command = constructor.newInstance(entry.getKey(), owner);
+                    Map<String, Object> properties = entry.getValue() == null ? Map.of() : entry.getValue();
+                    if (properties.get("permission") instanceof String permission) {
+                        command.setPermission(permission);
+                    }
+                    commands.put(entry.getKey().toLowerCase(Locale.ROOT), command);
+                    Object aliases = properties.get("aliases");
+                    if (aliases instanceof String alias) {
+                        commands.put(alias.toLowerCase(Locale.ROOT), command);
+                    } else if (aliases instanceof List<?> list) {
+                        list.forEach(alias -> commands.put(alias.toString().toLowerCase(Locale.ROOT), command));
+                    }
+                }
+            }
+        } catch (ReflectiveOperationException reflectiveOperationException) {
+            throw new IllegalStateException("Could not create the commands of the plug-in.", reflectiveOperationException);
+        }
+    }
+
+    private void checkPrimaryThread() {
+        if (!isPrimaryThread()) {
+            throw new IllegalStateException("The fake server can only be driven from its main thread.");
+        }
+    }
+
+    private static void setEnabled(@NotNull JavaPlugin plugin, boolean enabled) {
+        try {
+            Method method = JavaPlugin.class.getDeclaredMethod("setEnabled", boolean.class);
+            method.setAccessible(true);
+            method.invoke(plugin, enabled);
+        } catch (InvocationTargetException invocationTargetException) {
+            if (invocationTargetException.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(invocationTargetException.getCause());
+        } catch (ReflectiveOperationException reflectiveOperationException) {
+            throw new IllegalStateException(reflectiveOperationException);
+        }
+    }
+
+    private static @NotNull InputStream resource(@NotNull String name) throws IOException {
+        InputStream stream = StatusPlugin.class.getClassLoader().getResourceAsStream(name);
+        if (stream == null) {
+            throw new IOException(String.format("The resource %s is missing from the class path.", name));
+        }
+        return stream;
+    }
+
+    private static @NotNull UUID uuidOf(@NotNull String name) {
+        return UUID.nameUUIDFromBytes(("OfflinePlayer:" + name).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * A player who has never joined the server.
+     *
+     * @param uniqueId the unique ID of the player.
+     * @param name     the name of the player, or {@code null} if only the unique ID is known.
+     */
+    public record UnknownPlayer(@NotNull UUID uniqueId, @Nullable String name) {
+
+        public @NotNull UUID getUniqueId() {
+            return uniqueId;
+        }
+
+        public @Nullable String getName() {
+            return name;
+        }
+
+        public boolean isOnline() {
+            return false;
+        }
+
+        public boolean hasPlayedBefore() {
+            return false;
+        }
+
+        public @Nullable Player getPlayer() {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright (C) 2023 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+
+package net.kissenpvp.statusplugin;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Creates stand-ins for the interfaces of the Bukkit API.
+ *
+ * <p>The interfaces of the Bukkit API consist of hundreds of methods, of which
+ * this plug-in only uses a handful. Instead of implementing all of them, a
+ * stand-in is a {@link Proxy} forwarding each call to the public method with
+ * the same name and parameter types of a delegate, such as {@link FakeServer}
+ * or {@link FakePlayer}. Calls to methods the delegate does not provide fail
+ * with an {@link UnsupportedOperationException}, so a missing method shows up
+ * as soon as the plug-in starts to use it.
+ *
+ * <p>Stand-ins are only equal to themselves.
+ */
+final class StandIns {
+
+    private static final ClassValue<Map<Method, Optional<Method>>> TARGETS = new ClassValue<>() {
+        @Override
+        protected Map<Method, Optional<Method>> computeValue(@NotNull Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    private StandIns() {}
+
+    /**
+     * Creates a stand-in of the given interface forwarding to the given delegate.
+     *
+     * @param type     the interface to implement. Must be non-{@code null}.
+     * @param delegate the object receiving the calls. Must be non-{@code null}.
+     * @param <T>      the type of the interface.
+     * @return the stand-in.
+     */
+    static <T> @NotNull T create(@NotNull Class<T> type, @NotNull Object delegate) {
+        return create(type, () -> delegate);
+    }
+
+    /**
+     * Creates a stand-in of the given interface forwarding to the delegate returned by the given supplier.
+     *
+     * <p>The delegate is looked up again for each call, so a stand-in which has
+     * to live longer than its delegate, such as the server held by {@link org.bukkit.Bukkit},
+     * can be pointed at another one.
+     *
+     * @param type     the interface to implement. Must be non-{@code null}.
+     * @param delegate the supplier of the object receiving the calls. Must be non-{@code null}.
+     * @param <T>      the type of the interface.
+     * @return the stand-in.
+     */
+    static <T> @NotNull T create(@NotNull Class<T> type, @NotNull Supplier<?> delegate) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "equals" -> {
+                    if (method.getParameterCount() == 1 && method.getParameterTypes()[0] == Object.class) {
+                        return proxy == args[0];
+                    }
+                }
+                case "hashCode" -> {
+                    if (method.getParameterCount() == 0) {
+                        return System.identityHashCode(proxy);
+                    }
+                }
+                case "toString" -> {
+                    if (method.getParameterCount() == 0) {
+                        return type.getSimpleName() + "[" + delegate.get() + "]";
+                    }
+                }
+            }
+
+            Object target = delegate.get();
+            if (target == null) {
+                throw new IllegalStateException(String.format("The stand-in of %s is not bound to any delegate.", type.getSimpleName()));
+            }
+            Optional<Method> implementation = TARGETS.get(target.getClass()).computeIfAbsent(method, key -> find(target.getClass(), key));
+            if (implementation.isEmpty()) {
+                if (method.isDefault()) {
+                    return InvocationHandler.invokeDefault(proxy, method, args);
+                }
+                throw new UnsupportedOperationException(String.format("%s#%s is not supported by the stand-in.", method.getDeclaringClass().getSimpleName(), method.getName()));
+            }
+
+            try {
+                return implementation.get().invoke(target, args);
+            } catch (InvocationTargetException invocationTargetException) {
+                throw invocationTargetException.getCause();
+            }
+        };
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+
+    private static @NotNull Optional<Method> find(@NotNull Class<?> delegate, @NotNull Method method) {
+        try {
+            Method implementation = delegate.getMethod(method.getName(), method.getParameterTypes());
+            implementation.setAccessible(true); // delegates may be nested classes
+            return Optional.of(implementation);
+        } catch (NoSuchMethodException noSuchMethodException) {
+            return Optional.empty();
+        }
+    }
+}
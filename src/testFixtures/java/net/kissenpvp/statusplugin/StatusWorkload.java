@@ -0,0 +1,156 @@
+/*
+ * Copyright (C) 2023 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+
+package net.kissenpvp.statusplugin;
+
+import net.kissenpvp.statusplugin.metrics.LatencyHistogram;
+import org.jetbrains.annotations.NotNull;
+
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * Runs a scripted command workload of many virtual players against a {@link FakeServer}.
+ *
+ * <p>The script is a list of command lines, such as {@code status &aBuilding}
+ * or {@code cstatus}, which every player works through in the given order.
+ * Each step of the script is dispatched for all players, at most
+ * {@code commandsPerTick} of them per tick, and the workload moves on to the
+ * next step once every player has received the reply to their command. This
+ * resembles the bursts of commands a server sees after a restart, when many
+ * players set their status at once.
+ *
+ * <p>For every kind of command, the latency from the dispatch to the reply
+ * is recorded. The number of tab updates sent to the clients is counted
+ * until the last pending one has been sent. Players are granted the
+ * permission bypassing the rate limit, so every command is executed.
+ *
+ * <p>This class must be used from the main thread of the server.
+ */
+public class StatusWorkload {
+
+    private static final String RATE_LIMIT_BYPASS = "statusplugin.ratelimit.bypass";
+
+    private final FakeServer server;
+    private final List<String> script;
+    private final int commandsPerTick;
+    private final Duration timeout;
+
+    /**
+     * Constructor for creating a new {@code StatusWorkload}.
+     *
+     * @param server          the server with the enabled plug-in. Must be non-{@code null}.
+     * @param script          the command lines every player executes in order. Must be non-{@code null}.
+     * @param commandsPerTick the maximum number of commands dispatched within a single tick. Must be positive.
+     * @param timeout         the maximum time a single step of the script may take. Must be non-{@code null}.
+     */
+    public StatusWorkload(@NotNull FakeServer server, @NotNull List<String> script, int commandsPerTick, @NotNull Duration timeout) {
+        if (commandsPerTick <= 0) {
+            throw new IllegalArgumentException("At least one command has to be dispatched per tick.");
+        }
+        this.server = server;
+        this.script = List.copyOf(script);
+        this.commandsPerTick = commandsPerTick;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Runs the script the given number of times for each of the given players.
+     *
+     * @param players the online players executing the script. Must be non-{@code null}.
+     * @param rounds  how often the script is run.
+     * @return the latencies of the commands and the number of tab updates sent.
+     * @throws IllegalStateException if a step of the script does not complete within the timeout.
+     */
+    public @NotNull WorkloadReport run(@NotNull List<FakePlayer> players, int rounds) {
+        Map<String, LatencyHistogram> latencies = new LinkedHashMap<>();
+        Map<String, Long> failures = new HashMap<>();
+        players.forEach(player -> player.grant(RATE_LIMIT_BYPASS));
+
+        long updatesBefore = countTabUpdates(players);
+        long ticksBefore = server.getFakeScheduler().getCurrentTick();
+        long start = System.nanoTime();
+        for (int round = 0; round < rounds; round++) {
+            for (String commandLine : script) {
+                String label = commandLine.strip().split(" +")[0];
+                LatencyHistogram histogram = latencies.computeIfAbsent(label, key -> new LatencyHistogram());
+                failures.merge(label, runStep(players, commandLine, histogram), Long::sum);
+            }
+        }
+        server.tickUntil(() -> server.getPlugin().getTabStats().pending() == 0, timeout);
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        Map<String, WorkloadReport.Operation> operations = new LinkedHashMap<>();
+        latencies.forEach((label, histogram) -> operations.put(label, new WorkloadReport.Operation(histogram.getCount(), failures.get(label),
+                histogram.getValueAtQuantile(0.5), histogram.getValueAtQuantile(0.9), histogram.getValueAtQuantile(0.99), histogram.getMax())));
+        return new WorkloadReport(operations, countTabUpdates(players) - updatesBefore, server.getFakeScheduler().getCurrentTick() - ticksBefore, elapsed);
+    }
+
+    /**
+     * Dispatches one command line for every player and waits for all replies.
+     *
+     * @param players     the players executing the command. Must be non-{@code null}.
+     * @param commandLine the command line. Must be non-{@code null}.
+     * @param histogram   the histogram recording the latencies. Must be non-{@code null}.
+     * @return the number of commands which have been answered with an error.
+     */
+    private long runStep(@NotNull List<FakePlayer> players, @NotNull String commandLine, @NotNull LatencyHistogram histogram) {
+        Map<FakePlayer, Long> pending = new LinkedHashMap<>();
+        Iterator<FakePlayer> waiting = players.iterator();
+        long failed = 0;
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (waiting.hasNext() || !pending.isEmpty()) {
+            for (int i = 0; i < commandsPerTick && waiting.hasNext(); i++) {
+                FakePlayer player = waiting.next();
+                player.takeMessages();
+                pending.put(player, System.nanoTime());
+                server.dispatch(player, commandLine);
+            }
+
+            server.tick();
+            Iterator<Map.Entry<FakePlayer, Long>> iterator = pending.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<FakePlayer, Long> entry = iterator.next();
+                if (entry.getKey().getMessageCount() == 0) {
+                    continue;
+                }
+
+                histogram.record(entry.getKey().getLastMessageNanos() - entry.getValue());
+                if (entry.getKey().takeMessages().stream().anyMatch(message -> message.startsWith("§c"))) {
+                    failed++;
+                }
+                iterator.remove();
+            }
+
+            if (System.nanoTime() - deadline > 0) {
+                throw new IllegalStateException(String.format("%d players did not receive a reply to '%s' within %s.", pending.size(), commandLine, timeout));
+            }
+            Thread.yield();
+        }
+        return failed;
+    }
+
+    private static long countTabUpdates(@NotNull List<FakePlayer> players) {
+        long updates = 0;
+        for (FakePlayer player : players) {
+            updates += player.getListNameUpdates();
+        }
+        return updates;
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2023 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+
+package net.kissenpvp.statusplugin;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The result of a {@link StatusWorkload}.
+ *
+ * @param operations the statistics of each kind of command, keyed by the label of the command.
+ * @param tabUpdates the number of player list names sent to the clients while the workload ran.
+ * @param ticks      the number of ticks the workload took.
+ * @param elapsed    the wall-clock time the workload took.
+ */
+public record WorkloadReport(@NotNull Map<String, Operation> operations, long tabUpdates, long ticks, @NotNull Duration elapsed) {
+
+    /**
+     * Formats this report as a table with one row per kind of command, latencies in microseconds.
+     *
+     * @return the formatted report.
+     */
+    public @NotNull String format() {
+        StringBuilder builder = new StringBuilder(String.format("%-10s %8s %8s %10s %10s %10s %10s%n", "command", "count", "failed", "p50 µs", "p90 µs", "p99 µs", "max µs"));
+        operations.forEach((label, operation) -> builder.append(String.format("%-10s %8d %8d %10d %10d %10d %10d%n", label, operation.count(), operation.failed(),
+                micros(operation.p50()), micros(operation.p90()), micros(operation.p99()), micros(operation.max()))));
+        builder.append(String.format("tab updates: %d, ticks: %d, elapsed: %d ms", tabUpdates, ticks, elapsed.toMillis()));
+        return builder.toString();
+    }
+
+    private static long micros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+
+    /**
+     * The statistics of one kind of command.
+     *
+     * <p>The latency of a command is the time from its dispatch until the reply
+     * reached the player. Latencies are recorded in a {@link net.kissenpvp.statusplugin.metrics.LatencyHistogram},
+     * so percentiles are accurate to within 12.5%.
+     *
+     * @param count  the number of commands which have been executed.
+     * @param failed the number of commands which have been answered with an error.
+     * @param p50    the median latency in nanoseconds.
+     * @param p90    the 90th percentile of the latency in nanoseconds.
+     * @param p99    the 99th percentile of the latency in nanoseconds.
+     * @param max    the maximum latency in nanoseconds.
+     */
+    public record Operation(long count, long failed, long p50, long p90, long p99, long max) {}
+}